@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.MatrixCursor;
+import android.os.Debug;
+import android.provider.ContactsContract;
+import android.provider.ContactsContract.CommonDataKinds.Email;
+import android.provider.ContactsContract.CommonDataKinds.Phone;
+import android.provider.ContactsContract.CommonDataKinds.StructuredName;
+import android.util.Log;
+
+import com.digits.sdk.vcard.VCardBuilder;
+import com.digits.sdk.vcard.VCardConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark of the objects allocated per contact while reading the address book, compared to
+ * reading every row into a {@link ContentValues} as done before.
+ */
+public class ContactsHelperAllocationTests extends DigitsAndroidTestCase {
+    private static final String TAG = "ContactsHelperAlloc";
+    private static final int CONTACT_COUNT = 1000;
+    private static final String COUNTRY_CODE = "1";
+    private static final String[] COLUMNS = {"data1", "data2", "data3", "lookup", "mimetype",
+            "is_primary", "contact_id"};
+
+    private List<Object[]> rows;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+
+        rows = new ArrayList<>();
+        for (long contactId = 1; contactId <= CONTACT_COUNT; contactId++) {
+            final String lookupKey = Long.toString(contactId);
+            rows.add(new Object[]{"nene goose " + contactId, "nene", "goose", lookupKey,
+                    StructuredName.CONTENT_ITEM_TYPE, null, contactId});
+            rows.add(new Object[]{"(555)555-" + (1000 + contactId), Phone.TYPE_MOBILE, null,
+                    lookupKey, Phone.CONTENT_ITEM_TYPE, 0, contactId});
+            rows.add(new Object[]{"(555)555-" + (3000 + contactId), Phone.TYPE_WORK, null,
+                    lookupKey, Phone.CONTENT_ITEM_TYPE, 1, contactId});
+            rows.add(new Object[]{"nene" + contactId + "@digits.com", Email.TYPE_HOME, null,
+                    lookupKey, Email.CONTENT_ITEM_TYPE, 0, contactId});
+        }
+    }
+
+    private Cursor createCursor() {
+        final MatrixCursor cursor = new MatrixCursor(COLUMNS, rows.size());
+        for (Object[] row : rows) {
+            cursor.addRow(row);
+        }
+        return cursor;
+    }
+
+    public void testReadContacts_allocatesLessThanContentValues() {
+        final Cursor legacyCursor = createCursor();
+        final Cursor cursor = createCursor();
+        // Rows are read in a single query.
+        final ContactsHelper contactsHelper = new ContactsHelper(null, Integer.MAX_VALUE) {
+            @Override
+            public Cursor getContactsCursor(long afterContactId) {
+                return afterContactId == 0 ? cursor : null;
+            }
+
+            @Override
+            String getDefaultCountryCode() {
+                return COUNTRY_CODE;
+            }
+        };
+        final ContactsHelperTests.CardCollector legacyCollector =
+                new ContactsHelperTests.CardCollector();
+        final ContactsHelperTests.CardCollector collector =
+                new ContactsHelperTests.CardCollector();
+
+        Debug.startAllocCounting();
+        try {
+            Debug.resetThreadAllocCount();
+            readContactsWithContentValues(legacyCursor, legacyCollector);
+            final int legacyAllocations = Debug.getThreadAllocCount();
+
+            Debug.resetThreadAllocCount();
+            contactsHelper.readContacts(collector);
+            final int allocations = Debug.getThreadAllocCount();
+
+            Log.i(TAG, "Allocations per contact: " + legacyAllocations / CONTACT_COUNT +
+                    " with ContentValues, " + allocations / CONTACT_COUNT + " now");
+            assertEquals(legacyCollector.cards, collector.cards);
+            assertTrue(allocations < legacyAllocations);
+        } finally {
+            Debug.stopAllocCounting();
+        }
+    }
+
+    /**
+     * Reads contacts of a single query result the way they were read before.
+     */
+    private static void readContactsWithContentValues(Cursor cursor,
+            ContactsHelper.Listener listener) {
+        final VCardBuilder builder = new VCardBuilder(VCardConfig.VCARD_TYPE_V30_GENERIC,
+                VCardConfig.DEFAULT_EXPORT_CHARSET);
+        final PhoneNumberNormalizer phoneNumberNormalizer = new PhoneNumberNormalizer(COUNTRY_CODE);
+        final List<ContentValues> names = new ArrayList<>();
+        final List<ContentValues> phones = new ArrayList<>();
+        final List<ContentValues> emails = new ArrayList<>();
+        final int mimeTypeColumnIndex = cursor.getColumnIndex(ContactsContract.Data.MIMETYPE);
+        final int contactIdColumnIndex = cursor.getColumnIndex(ContactsContract.Data.CONTACT_ID);
+        final int lookupKeyColumnIndex = cursor.getColumnIndex(ContactsContract.Contacts
+                .LOOKUP_KEY);
+        long currentContactId = -1;
+        String lookupKey = null;
+        boolean hasRow = cursor.moveToFirst();
+        while (hasRow || lookupKey != null) {
+            final long contactId = hasRow ? cursor.getLong(contactIdColumnIndex) : -1;
+            if (contactId != currentContactId) {
+                if (lookupKey != null) {
+                    builder.clear();
+                    builder.appendNameProperties(names).appendPhones(phones, phoneNumberNormalizer)
+                            .appendEmails(emails);
+                    listener.onContact(lookupKey, builder.toString());
+                }
+                names.clear();
+                phones.clear();
+                emails.clear();
+                currentContactId = contactId;
+                lookupKey = hasRow ? cursor.getString(lookupKeyColumnIndex) : null;
+            }
+            if (!hasRow) {
+                break;
+            }
+
+            final String mimeType = cursor.getString(mimeTypeColumnIndex);
+            final ContentValues cv = new ContentValues();
+            cv.put(ContactsContract.Data.MIMETYPE, mimeType);
+            switch (mimeType) {
+                case Phone.CONTENT_ITEM_TYPE:
+                    DatabaseUtils.cursorIntToContentValuesIfPresent(cursor, cv, Phone.TYPE);
+                    DatabaseUtils.cursorStringToContentValuesIfPresent(cursor, cv, Phone.LABEL);
+                    DatabaseUtils.cursorIntToContentValuesIfPresent(cursor, cv, Phone.IS_PRIMARY);
+                    DatabaseUtils.cursorStringToContentValuesIfPresent(cursor, cv, Phone.NUMBER);
+                    phones.add(cv);
+                    break;
+                case Email.CONTENT_ITEM_TYPE:
+                    DatabaseUtils.cursorStringToContentValuesIfPresent(cursor, cv, Email.DATA);
+                    DatabaseUtils.cursorIntToContentValuesIfPresent(cursor, cv, Email.TYPE);
+                    DatabaseUtils.cursorStringToContentValuesIfPresent(cursor, cv, Email.LABEL);
+                    DatabaseUtils.cursorIntToContentValuesIfPresent(cursor, cv, Email.IS_PRIMARY);
+                    emails.add(cv);
+                    break;
+                default:
+                    DatabaseUtils.cursorStringToContentValuesIfPresent(cursor, cv,
+                            StructuredName.DISPLAY_NAME);
+                    DatabaseUtils.cursorStringToContentValuesIfPresent(cursor, cv,
+                            StructuredName.GIVEN_NAME);
+                    DatabaseUtils.cursorStringToContentValuesIfPresent(cursor, cv,
+                            StructuredName.FAMILY_NAME);
+                    names.add(cv);
+                    break;
+            }
+            hasRow = cursor.moveToNext();
+        }
+    }
+}
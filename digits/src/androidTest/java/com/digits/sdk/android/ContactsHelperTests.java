@@ -28,7 +28,9 @@ import android.test.mock.MockContext;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -37,23 +39,32 @@ import static org.mockito.Mockito.when;
 public class ContactsHelperTests extends DigitsAndroidTestCase {
     // Sample rows for matrix cursor
     private static final String[] COLUMNS = {"data1", "data2", "data3", "lookup", "mimetype",
-            "is_primary"};
+            "is_primary", "contact_id"};
+    private static final int CONTACT_ID_INDEX = 6;
     private static final String[] PHONE_ROW = {"(555)555-5555", "2", "", "1",
-            "vnd.android.cursor.item/phone_v2", "0"};
+            "vnd.android.cursor.item/phone_v2", "0", "1"};
     private static final String[] EMAIL_ROW = {"support@digits.com", "3", "", "1",
-            "vnd.android.cursor.item/email_v2", "1"};
+            "vnd.android.cursor.item/email_v2", "1", "1"};
     private static final String[] NAME_ROW = {"nene goose", "nene", "goose", "1",
-            "vnd.android.cursor.item/name", ""};
+            "vnd.android.cursor.item/name", "", "1"};
+    private static final String[] NO_PHONE_NAME_ROW = {"no phone", "", "", "2",
+            "vnd.android.cursor.item/name", "", "2"};
+    private static final String[] OTHER_PHONE_ROW = {"(555)555-5556", "2", "", "3",
+            "vnd.android.cursor.item/phone_v2", "0", "3"};
+    private static final String[] OTHER_EMAIL_ROW = {"other@digits.com", "1", "", "3",
+            "vnd.android.cursor.item/email_v2", "0", "3"};
 
     // Expected results from sample cursor
+    static final String SAMPLE_LOOKUP_KEY = "1";
     private static final String SAMPLE_CARD = "BEGIN:VCARD\r\nVERSION:3.0\r\nN:goose;nene;;;" +
-            "\r\nFN:nene goose\r\nTEL;TYPE=CELL:555-555-5555\r\nEMAIL;TYPE=PREF:support@digits" +
+            "\r\nFN:nene goose\r\nTEL;TYPE=CELL:5555555555\r\nEMAIL;TYPE=PREF:support@digits" +
             ".com\r\nEND:VCARD\r\n";
 
     private MockContext context;
     private MockContentResolver contentResolver;
     private MockContentProvider provider;
-    private Cursor cursor;
+    private List<String[]> rows;
+    private int queryCount;
 
     @Override
     public void setUp() throws Exception {
@@ -61,16 +72,19 @@ public class ContactsHelperTests extends DigitsAndroidTestCase {
 
         context = mock(MockContext.class);
         contentResolver = new MockContentResolver();
-        cursor = createCursor();
+        rows = new ArrayList<>(Arrays.asList(PHONE_ROW, EMAIL_ROW, NAME_ROW));
+        queryCount = 0;
         provider = new MockContentProvider() {
             @Override
             public Cursor query(Uri uri, String[] projection, String selection,
                                 String[] selectionArgs, String sortOrder) {
                 assertEquals(ContactsContract.AUTHORITY, uri.getAuthority());
                 MoreAsserts.assertContentsInAnyOrder(Arrays.asList(COLUMNS), (Object[]) projection);
-                assertEquals(null, sortOrder);
+                assertEquals(ContactsContract.Data.CONTACT_ID, sortOrder);
 
-                return cursor;
+                queryCount++;
+                return createCursor(rows, Long.parseLong(selectionArgs[3]),
+                        Integer.parseInt(uri.getQueryParameter("limit")));
             }
         };
         contentResolver.addProvider(ContactsContract.AUTHORITY, provider);
@@ -78,35 +92,201 @@ public class ContactsHelperTests extends DigitsAndroidTestCase {
         when(context.getContentResolver()).thenReturn(contentResolver);
     }
 
-    static Cursor createCursor() {
+    /**
+     * Returns rows of contacts with an id greater than afterContactId, like the contacts
+     * provider does for {@link ContactsHelper#getContactsCursor(long)}.
+     */
+    private static Cursor createCursor(List<String[]> rows, long afterContactId, int limit) {
         final MatrixCursor matrixCursor = new MatrixCursor(COLUMNS);
-        matrixCursor.addRow(PHONE_ROW);
-        matrixCursor.addRow(EMAIL_ROW);
-        matrixCursor.addRow(NAME_ROW);
+        for (String[] row : rows) {
+            if (matrixCursor.getCount() < limit &&
+                    Long.parseLong(row[CONTACT_ID_INDEX]) > afterContactId) {
+                matrixCursor.addRow(row);
+            }
+        }
         return matrixCursor;
     }
 
-    static ArrayList<String> createCardList() {
-        final ArrayList<String> vCards = new ArrayList<>();
-        vCards.add(SAMPLE_CARD);
+    static Map<String, String> createCardMap() {
+        final Map<String, String> vCards = new HashMap<>();
+        vCards.put(SAMPLE_LOOKUP_KEY, SAMPLE_CARD);
         return vCards;
     }
 
     public void testGetContactsCursor() {
         final ContactsHelper contactsHelper = new ContactsHelper(context);
-        final Cursor cursor = contactsHelper.getContactsCursor();
+        final Cursor cursor = contactsHelper.getContactsCursor(0);
 
         verify(context).getContentResolver();
 
         assertEquals(COLUMNS, cursor.getColumnNames());
+        assertEquals(3, cursor.getCount());
+    }
+
+    public void testGetContactsCursor_afterContactId() {
+        rows.add(OTHER_PHONE_ROW);
+        final ContactsHelper contactsHelper = new ContactsHelper(context);
+        final Cursor cursor = contactsHelper.getContactsCursor(1);
+
+        assertEquals(1, cursor.getCount());
+    }
+
+    public void testReadContacts() {
+        final ContactsHelper contactsHelper = new ContactsHelper(context);
+        final CardCollector collector = new CardCollector();
+
+        assertEquals(1, contactsHelper.readContacts(collector));
+        assertEquals(createCardMap(), collector.cards);
+        assertEquals(1, queryCount);
     }
 
-    public void testCreateContactList() {
+    public void testReadContacts_multipleContacts() {
+        rows = Arrays.asList(NAME_ROW, PHONE_ROW, NO_PHONE_NAME_ROW, OTHER_PHONE_ROW);
         final ContactsHelper contactsHelper = new ContactsHelper(context);
+        final CardCollector collector = new CardCollector();
+
+        assertEquals(3, contactsHelper.readContacts(collector));
+        assertEquals(2, collector.cards.size());
+        assertTrue(collector.cards.containsKey(SAMPLE_LOOKUP_KEY));
+        assertTrue(collector.cards.containsKey("3"));
+        assertFalse(collector.cards.containsKey("2"));
+    }
+
+    public void testReadContacts_multipleQueries() {
+        rows = Arrays.asList(PHONE_ROW, EMAIL_ROW, NAME_ROW, NO_PHONE_NAME_ROW, OTHER_PHONE_ROW,
+                OTHER_EMAIL_ROW);
+        final ContactsHelper contactsHelper = new ContactsHelper(context, 5);
+        final CardCollector collector = new CardCollector();
+
+        assertEquals(3, contactsHelper.readContacts(collector));
+        assertEquals(2, queryCount);
+        assertEquals(2, collector.cards.size());
+        assertEquals(SAMPLE_CARD, collector.cards.get(SAMPLE_LOOKUP_KEY));
+        // Contact split across queries is read in full.
+        assertTrue(collector.cards.get("3").contains(
+                "TEL;TYPE=CELL:5555555556\r\nEMAIL;TYPE=HOME:other@digits.com"));
+    }
+
+    public void testReadContacts_contactLargerThanQuery() {
+        final ContactsHelper contactsHelper = new ContactsHelper(context, 2);
+        final CardCollector collector = new CardCollector();
+
+        assertEquals(1, contactsHelper.readContacts(collector));
+        assertEquals(2, queryCount);
+        assertEquals(1, collector.cards.size());
+    }
+
+    public void testReadContacts_normalizesPhoneNumbers() {
+        rows.add(new String[]{"+1 555-555-5555", "1", "", "1", "vnd.android.cursor.item/phone_v2",
+                "0", "1"});
+        final ContactsHelper contactsHelper = new ContactsHelper(context) {
+            @Override
+            String getDefaultCountryCode() {
+                return "1";
+            }
+        };
+        final CardCollector collector = new CardCollector();
+
+        contactsHelper.readContacts(collector);
+
+        // Both numbers are the same once normalized.
+        assertEquals(SAMPLE_CARD.replace("5555555555", "+15555555555"),
+                collector.cards.get(SAMPLE_LOOKUP_KEY));
+    }
+
+    public void testReadContacts_parallel() {
+        rows = new ArrayList<>();
+        for (int id = 1; id <= 3 * ContactsHelper.CONTACTS_PER_BATCH + 1; id++) {
+            final String contactId = Integer.toString(id);
+            rows.add(new String[]{"name " + id, "given" + id, "family" + id, contactId,
+                    "vnd.android.cursor.item/name", "", contactId});
+            rows.add(new String[]{"(555)555-" + (1000 + id), "2", "", contactId,
+                    "vnd.android.cursor.item/phone_v2", "0", contactId});
+        }
+        final ContactsHelper contactsHelper = new ContactsHelper(context, 50);
+        final OrderedCardCollector sequentialCollector = new OrderedCardCollector();
+        final OrderedCardCollector parallelCollector = new OrderedCardCollector();
+
+        assertEquals(3 * ContactsHelper.CONTACTS_PER_BATCH + 1,
+                contactsHelper.readContacts(sequentialCollector, 1));
+        assertEquals(3 * ContactsHelper.CONTACTS_PER_BATCH + 1,
+                contactsHelper.readContacts(parallelCollector, 4));
+
+        assertEquals(3 * ContactsHelper.CONTACTS_PER_BATCH + 1,
+                parallelCollector.lookupKeys.size());
+        assertEquals(sequentialCollector.lookupKeys, parallelCollector.lookupKeys);
+        assertEquals(sequentialCollector.cards, parallelCollector.cards);
+    }
+
+    public void testReadContacts_identifiersOnly() {
+        rows.add(new String[]{"555 555 5555", "1", "", "1", "vnd.android.cursor.item/phone_v2",
+                "0", "1"});
+        rows.add(new String[]{" Support@Digits.com", "1", "", "1",
+                "vnd.android.cursor.item/email_v2", "0", "1"});
+        final ContactsHelper contactsHelper = new ContactsHelper(context) {
+            @Override
+            String getDefaultCountryCode() {
+                return "1";
+            }
+        };
+        final CardCollector collector = new CardCollector();
+
+        assertEquals(1, contactsHelper.readContacts(collector, 1, true));
+
+        // Duplicates are dropped once normalized.
+        assertEquals("+15555555555\nsupport@digits.com\n",
+                collector.cards.get(SAMPLE_LOOKUP_KEY));
+    }
+
+    public void testReadContacts_manyPhonesAndEmails() {
+        rows.add(new String[]{"(555)555-5557", "1", "", "1", "vnd.android.cursor.item/phone_v2",
+                "0", "1"});
+        rows.add(new String[]{"(555)555-5558", "3", "", "1", "vnd.android.cursor.item/phone_v2",
+                "0", "1"});
+        rows.add(new String[]{"home@digits.com", "1", "", "1",
+                "vnd.android.cursor.item/email_v2", "0", "1"});
+        rows.add(new String[]{"work@digits.com", "2", "", "1",
+                "vnd.android.cursor.item/email_v2", "0", "1"});
+        final ContactsHelper contactsHelper = new ContactsHelper(context);
+        final CardCollector collector = new CardCollector();
+
+        assertEquals(1, contactsHelper.readContacts(collector));
+
+        final String card = collector.cards.get(SAMPLE_LOOKUP_KEY);
+        assertTrue(card.contains("TEL;TYPE=CELL:5555555555\r\n"));
+        assertTrue(card.contains("TEL;TYPE=HOME:5555555557\r\n"));
+        assertTrue(card.contains("TEL;TYPE=WORK:5555555558\r\n"));
+        assertTrue(card.contains("EMAIL;TYPE=PREF:support@digits.com\r\n"));
+        assertTrue(card.contains("EMAIL;TYPE=HOME:home@digits.com\r\n"));
+        assertTrue(card.contains("EMAIL;TYPE=WORK:work@digits.com\r\n"));
+    }
+
+    public void testReadContacts_emptyCursor() {
+        rows.clear();
+        final ContactsHelper contactsHelper = new ContactsHelper(context);
+        final CardCollector collector = new CardCollector();
+
+        assertEquals(0, contactsHelper.readContacts(collector));
+        assertTrue(collector.cards.isEmpty());
+    }
+
+    static class CardCollector implements ContactsHelper.Listener {
+        final Map<String, String> cards = new HashMap<>();
+
+        @Override
+        public void onContact(String lookupKey, CharSequence vCard) {
+            cards.put(lookupKey, vCard.toString());
+        }
+    }
 
-        final List<String> cards = contactsHelper.createContactList(cursor);
+    static class OrderedCardCollector implements ContactsHelper.Listener {
+        final List<String> lookupKeys = new ArrayList<>();
+        final List<String> cards = new ArrayList<>();
 
-        assertEquals(1, cards.size());
-        MoreAsserts.assertEquals(createCardList().toArray(), cards.toArray());
+        @Override
+        public void onContact(String lookupKey, CharSequence vCard) {
+            lookupKeys.add(lookupKey);
+            cards.add(vCard.toString());
+        }
     }
 }
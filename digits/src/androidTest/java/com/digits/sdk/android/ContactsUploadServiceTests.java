@@ -19,105 +19,306 @@ package com.digits.sdk.android;
 
 import android.content.Context;
 import android.content.Intent;
-import android.database.Cursor;
 
-import io.fabric.sdk.android.services.concurrency.internal.RetryThreadPoolExecutor;
+import io.fabric.sdk.android.services.concurrency.internal.Backoff;
 
+import org.mockito.ArgumentCaptor;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import java.util.ArrayList;
-import java.util.concurrent.TimeUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 public class ContactsUploadServiceTests extends DigitsAndroidTestCase {
-    private Cursor cursor;
+    private static final long USER_ID = 1L;
+    private static final long READ_TIMESTAMP = 1000L;
+    private static final int NO_PHONE_OR_EMAIL_COUNT = 2;
     private ContactsHelper helper;
-    private RetryThreadPoolExecutor executor;
     private ContactsClient contactsClient;
     private ContactsPreferenceManager perfManager;
-    private ArrayList<String> cradList;
+    private Map<String, String> cardMap;
+    private ContactsFingerprintIndex fingerprintIndex;
+    private ContactsUploadCheckpoint checkpoint;
     private StubContractsService service;
 
     @Override
     public void setUp() throws Exception {
         super.setUp();
 
-        executor = mock(RetryThreadPoolExecutor.class);
         perfManager = mock(MockContactsPreferenceManager.class);
         contactsClient = mock(StubContactsClient.class);
-        cursor = ContactsHelperTests.createCursor();
-        cradList = ContactsHelperTests.createCardList();
+        cardMap = ContactsHelperTests.createCardMap();
+        fingerprintIndex = new ContactsFingerprintIndex(getContext());
+        fingerprintIndex.clear();
+        checkpoint = new ContactsUploadCheckpoint(getContext());
+        checkpoint.clear();
 
         helper = mock(StubContactsHelper.class);
-        when(helper.getContactsCursor()).thenReturn(cursor);
-        when(helper.createContactList(cursor)).thenReturn(cradList);
+        stubReadContacts();
 
-        service = new StubContractsService(contactsClient, helper, perfManager, executor);
+        service = new StubContractsService(contactsClient, helper, perfManager,
+                fingerprintIndex, checkpoint);
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        fingerprintIndex.clear();
+        checkpoint.clear();
+        super.tearDown();
     }
 
     public void testOnHandleIntent() throws Exception {
-        when(executor.awaitTermination(anyLong(), any(TimeUnit.class))).thenReturn(true);
-        doAnswer(new Answer() {
-            @Override
-            public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
-                ((Runnable) invocationOnMock.getArguments()[0]).run();
-                return null;
-            }
-        }).when(executor).scheduleWithRetry(any(Runnable.class));
 
         service.onHandleIntent(null);
 
-        verify(helper).getContactsCursor();
-        verify(helper).createContactList(cursor);
-        verify(executor).scheduleWithRetry(any(Runnable.class));
-        verify(executor).shutdown();
-        verify(executor).awaitTermination(anyLong(), any(TimeUnit.class));
+        verify(helper).readContacts(any(ContactsHelper.Listener.class),
+                eq(ContactsUploadOptions.DEFAULT_VCARD_THREADS), eq(false));
+        verify(contactsClient).uploadContacts(any(ContactsUploadBody.class));
+        verify(contactsClient).invalidateContactMatches();
 
         assertTrue(service.sendBroadcastCalled);
         assertEquals(ContactsUploadService.UPLOAD_COMPLETE, service.broadcastIntent.getAction());
 
         verify(perfManager).setContactImportPermissionGranted();
-        verify(perfManager).setContactsUploaded(cradList.size());
+        verify(perfManager).setContactsUploaded(cardMap.size());
         verify(perfManager).setContactsReadTimestamp(anyLong());
 
         final ContactsUploadResult result = service.broadcastIntent
                 .getParcelableExtra(ContactsUploadService.UPLOAD_COMPLETE_EXTRA);
-        assertEquals(cradList.size(), result.successCount);
-        assertEquals(cradList.size(), result.totalCount);
+        assertEquals(cardMap.size(), result.successCount);
+        assertEquals(cardMap.size(), result.totalCount);
+        assertEquals(0, result.skippedCount);
+        assertEquals(cardMap.size() + NO_PHONE_OR_EMAIL_COUNT, result.scannedCount);
+
+        assertEquals(cardMap.size(), fingerprintIndex.size());
+        assertTrue(fingerprintIndex.getFile().exists());
+        assertFalse(checkpoint.getFile().exists());
+    }
+
+    public void testOnHandleIntent_resumedUpload() throws Exception {
+        final String lookupKey = ContactsHelperTests.SAMPLE_LOOKUP_KEY;
+        final ContactsPage page = new ContactsPage(1);
+        page.add(lookupKey, cardMap.get(lookupKey),
+                ContactsFingerprintIndex.fingerprint(cardMap.get(lookupKey)));
+        checkpoint.open(USER_ID, 0);
+        checkpoint.append(page);
+        checkpoint.close();
+
+        service.onHandleIntent(null);
+
+        verify(contactsClient, never()).uploadContacts(any(ContactsUploadBody.class));
+        assertEquals(ContactsUploadService.UPLOAD_COMPLETE, service.broadcastIntent.getAction());
+        verify(perfManager).setContactsUploaded(cardMap.size());
+
+        final ContactsUploadResult result = service.broadcastIntent
+                .getParcelableExtra(ContactsUploadService.UPLOAD_COMPLETE_EXTRA);
+        assertEquals(0, result.successCount);
+        assertEquals(cardMap.size(), result.resumedCount);
+        assertEquals(0, result.skippedCount);
+        assertTrue(fingerprintIndex.isUnchanged(lookupKey,
+                ContactsFingerprintIndex.fingerprint(cardMap.get(lookupKey))));
+        assertFalse(checkpoint.getFile().exists());
+    }
+
+    public void testOnHandleIntent_unchangedContacts() throws Exception {
+        saveFingerprint(ContactsHelperTests.SAMPLE_LOOKUP_KEY,
+                ContactsFingerprintIndex.fingerprint(
+                        cardMap.get(ContactsHelperTests.SAMPLE_LOOKUP_KEY)));
+
+        service.onHandleIntent(null);
+
+        verify(contactsClient, never()).uploadContacts(any(ContactsUploadBody.class));
+        assertEquals(ContactsUploadService.UPLOAD_COMPLETE, service.broadcastIntent.getAction());
+        verify(perfManager).setContactsUploaded(cardMap.size());
+
+        final ContactsUploadResult result = service.broadcastIntent
+                .getParcelableExtra(ContactsUploadService.UPLOAD_COMPLETE_EXTRA);
+        assertEquals(0, result.successCount);
+        assertEquals(cardMap.size(), result.totalCount);
+        assertEquals(cardMap.size(), result.skippedCount);
     }
 
-    public void testOnHandleIntent_uploadTimeout() throws Exception {
-        when(executor.awaitTermination(anyLong(), any(TimeUnit.class))).thenReturn(false);
+    public void testOnHandleIntent_changedContacts() throws Exception {
+        saveFingerprint(ContactsHelperTests.SAMPLE_LOOKUP_KEY, 0L);
 
         service.onHandleIntent(null);
 
-        verify(helper).getContactsCursor();
-        verify(helper).createContactList(cursor);
-        verify(executor).scheduleWithRetry(any(Runnable.class));
-        verify(executor).shutdown();
-        verify(executor).awaitTermination(anyLong(), any(TimeUnit.class));
-        verify(executor).shutdownNow();
+        verify(contactsClient).uploadContacts(any(ContactsUploadBody.class));
+        assertEquals(ContactsUploadService.UPLOAD_COMPLETE, service.broadcastIntent.getAction());
+
+        final ContactsUploadResult result = service.broadcastIntent
+                .getParcelableExtra(ContactsUploadService.UPLOAD_COMPLETE_EXTRA);
+        assertEquals(cardMap.size(), result.successCount);
+        assertEquals(0, result.skippedCount);
+        assertTrue(fingerprintIndex.isUnchanged(ContactsHelperTests.SAMPLE_LOOKUP_KEY,
+                ContactsFingerprintIndex.fingerprint(
+                        cardMap.get(ContactsHelperTests.SAMPLE_LOOKUP_KEY))));
+    }
+
+    public void testOnHandleIntent_indexForDifferentReadTimestamp() throws Exception {
+        saveFingerprint(ContactsHelperTests.SAMPLE_LOOKUP_KEY,
+                ContactsFingerprintIndex.fingerprint(
+                        cardMap.get(ContactsHelperTests.SAMPLE_LOOKUP_KEY)));
+        when(perfManager.getContactsReadTimestamp()).thenReturn(0L);
+
+        service.onHandleIntent(null);
+
+        verify(contactsClient).uploadContacts(any(ContactsUploadBody.class));
+        final ContactsUploadResult result = service.broadcastIntent
+                .getParcelableExtra(ContactsUploadService.UPLOAD_COMPLETE_EXTRA);
+        assertEquals(cardMap.size(), result.successCount);
+        assertEquals(0, result.skippedCount);
+    }
+
+    public void testOnHandleIntent_noContacts() throws Exception {
+        cardMap.clear();
+
+        service.onHandleIntent(null);
+
+        assertEquals(ContactsUploadService.UPLOAD_FAILED, service.broadcastIntent.getAction());
+    }
+
+    public void testOnHandleIntent_uploadFailed() throws Exception {
+        when(contactsClient.uploadContacts(any(ContactsUploadBody.class)))
+                .thenThrow(new IllegalStateException());
+
+        service.onHandleIntent(null);
+
+        verify(helper).readContacts(any(ContactsHelper.Listener.class), anyInt(),
+                anyBoolean());
+        verify(contactsClient).uploadContacts(any(ContactsUploadBody.class));
 
         assertTrue(service.sendBroadcastCalled);
         assertEquals(ContactsUploadService.UPLOAD_FAILED, service.broadcastIntent.getAction());
 
         verify(perfManager).setContactImportPermissionGranted();
+        verify(perfManager).getContactsReadTimestamp();
         verifyNoMoreInteractions(perfManager);
+        assertFalse(fingerprintIndex.getFile().exists());
+    }
+
+    public void testOnHandleIntent_uploadFailedKeepsCheckpoint() throws Exception {
+        final String lookupKey = ContactsHelperTests.SAMPLE_LOOKUP_KEY;
+        final ContactsPage page = new ContactsPage(1);
+        page.add(lookupKey, cardMap.get(lookupKey),
+                ContactsFingerprintIndex.fingerprint(cardMap.get(lookupKey)));
+        checkpoint.open(USER_ID, 0);
+        checkpoint.append(page);
+        checkpoint.close();
+        cardMap.put("2", "card2");
+        when(contactsClient.uploadContacts(any(ContactsUploadBody.class)))
+                .thenThrow(new IllegalStateException());
+
+        service.onHandleIntent(null);
+
+        assertEquals(ContactsUploadService.UPLOAD_FAILED, service.broadcastIntent.getAction());
+        final ContactsUploadCheckpoint loaded = new ContactsUploadCheckpoint(getContext());
+        assertTrue(loaded.load(USER_ID, 0));
+        assertEquals(1, loaded.size());
+        assertTrue(loaded.isUploaded(lookupKey,
+                ContactsFingerprintIndex.fingerprint(cardMap.get(lookupKey))));
+    }
+
+    public void testOnHandleIntent_multiplePages() throws Exception {
+        cardMap.clear();
+        for (int i = 0; i < 2 * ContactsClient.MAX_PAGE_SIZE + 1; i++) {
+            cardMap.put(Integer.toString(i), "card" + i);
+        }
+
+        service.onHandleIntent(null);
+
+        verify(contactsClient, times(3)).uploadContacts(any(ContactsUploadBody.class));
+        final ContactsUploadResult result = service.broadcastIntent
+                .getParcelableExtra(ContactsUploadService.UPLOAD_COMPLETE_EXTRA);
+        assertEquals(cardMap.size(), result.successCount);
+        assertEquals(cardMap.size(), result.totalCount);
+        assertEquals(cardMap.size(), fingerprintIndex.size());
+    }
+
+    public void testOnHandleIntent_pagesBoundedBySize() throws Exception {
+        cardMap.clear();
+        for (int i = 0; i < 3; i++) {
+            cardMap.put(Integer.toString(i), "card" + i);
+        }
+        final Intent intent = new Intent();
+        intent.putExtra(ContactsUploadService.UPLOAD_OPTIONS_EXTRA,
+                new ContactsUploadOptions.Builder().setMaxPageBytes(1).build());
+
+        service.onHandleIntent(intent);
+
+        verify(contactsClient, times(3)).uploadContacts(any(ContactsUploadBody.class));
+        final ContactsUploadResult result = service.broadcastIntent
+                .getParcelableExtra(ContactsUploadService.UPLOAD_COMPLETE_EXTRA);
+        assertEquals(3, result.successCount);
+    }
+
+    public void testOnHandleIntent_gzipEnabled() throws Exception {
+        cardMap.clear();
+        for (int i = 0; i < ContactsClient.MAX_PAGE_SIZE; i++) {
+            cardMap.put(Integer.toString(i), "BEGIN:VCARD\r\nVERSION:3.0\r\n" +
+                    "TEL;TYPE=CELL:555-555-5555\r\nEND:VCARD\r\n");
+        }
+        final Intent intent = new Intent();
+        intent.putExtra(ContactsUploadService.UPLOAD_OPTIONS_EXTRA,
+                new ContactsUploadOptions.Builder().setGzipEnabled(true).build());
+
+        service.onHandleIntent(intent);
+
+        final ContactsUploadResult result = service.broadcastIntent
+                .getParcelableExtra(ContactsUploadService.UPLOAD_COMPLETE_EXTRA);
+        assertEquals(cardMap.size(), result.successCount);
+        assertTrue(result.compressedBytes > 0);
+        assertTrue(result.compressedBytes < result.uncompressedBytes);
     }
 
-    public void testGetNumberOfPages() {
-        assertEquals(1, service.getNumberOfPages(100));
-        assertEquals(1, service.getNumberOfPages(50));
-        assertEquals(2, service.getNumberOfPages(101));
-        assertEquals(2, service.getNumberOfPages(199));
+    public void testOnHandleIntent_hashedIdentifiers() throws Exception {
+        cardMap.clear();
+        for (int i = 0; i < 3; i++) {
+            cardMap.put(Integer.toString(i), "+1555555000" + i + "\nuser" + i + "@digits.com\n");
+        }
+        final Intent intent = new Intent();
+        intent.putExtra(ContactsUploadService.UPLOAD_OPTIONS_EXTRA,
+                new ContactsUploadOptions.Builder().setHashedIdentifiersSalt("salt").build());
+
+        service.onHandleIntent(intent);
+
+        verify(helper).readContacts(any(ContactsHelper.Listener.class), anyInt(), eq(true));
+        final ArgumentCaptor<ContactsUploadBody> body =
+                ArgumentCaptor.forClass(ContactsUploadBody.class);
+        verify(contactsClient).uploadContacts(body.capture());
+        assertTrue(body.getValue().hashed);
+        assertEquals(2 + 3 * (1 + 2 * ContactsUploadBody.HASH_LENGTH),
+                body.getValue().length());
+        final ContactsUploadResult result = service.broadcastIntent
+                .getParcelableExtra(ContactsUploadService.UPLOAD_COMPLETE_EXTRA);
+        assertEquals(3, result.successCount);
+    }
+
+    public void testOnHandleIntent_progress() throws Exception {
+        service.onHandleIntent(null);
+
+        assertEquals(1, service.progressIntents.size());
+        final ContactsUploadProgress progress = service.progressIntents.get(0)
+                .getParcelableExtra(ContactsUploadService.UPLOAD_PROGRESS_EXTRA);
+        assertEquals(1, progress.pagesSent);
+        assertEquals(cardMap.size(), progress.contactsSent);
+        assertTrue(progress.bytesSent > 0);
+        verify(contactsClient).notifyUploadProgress(any(ContactsUploadProgress.class));
     }
 
     public void testSendFailureBroadcast() {
@@ -127,6 +328,16 @@ public class ContactsUploadServiceTests extends DigitsAndroidTestCase {
         assertEquals(ContactsUploadService.UPLOAD_FAILED, service.broadcastIntent.getAction());
     }
 
+    public void testSendProgressBroadcast() {
+        service.sendProgressBroadcast(new ContactsUploadProgress(1, 2, 3, 4));
+
+        assertEquals(1, service.progressIntents.size());
+        final ContactsUploadProgress progress = service.progressIntents.get(0)
+                .getParcelableExtra(ContactsUploadService.UPLOAD_PROGRESS_EXTRA);
+        assertEquals(1, progress.pagesSent);
+        assertEquals(2, progress.contactsSent);
+    }
+
     public void testSendSuccessBroadcast() {
         service.sendSuccessBroadcast(new ContactsUploadResult(1, 1));
 
@@ -138,6 +349,27 @@ public class ContactsUploadServiceTests extends DigitsAndroidTestCase {
         assertEquals(1, result.totalCount);
     }
 
+    private void stubReadContacts() {
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
+                final ContactsHelper.Listener listener =
+                        (ContactsHelper.Listener) invocationOnMock.getArguments()[0];
+                for (Map.Entry<String, String> entry : cardMap.entrySet()) {
+                    listener.onContact(entry.getKey(), entry.getValue());
+                }
+                return cardMap.size() + NO_PHONE_OR_EMAIL_COUNT;
+            }
+        }).when(helper).readContacts(any(ContactsHelper.Listener.class), anyInt(),
+                anyBoolean());
+    }
+
+    private void saveFingerprint(String lookupKey, long fingerprint) {
+        fingerprintIndex.put(lookupKey, fingerprint);
+        fingerprintIndex.save(USER_ID, READ_TIMESTAMP);
+        when(perfManager.getContactsReadTimestamp()).thenReturn(READ_TIMESTAMP);
+    }
+
     public class StubContactsHelper extends ContactsHelper {
 
         public StubContactsHelper(Context context) {
@@ -148,21 +380,44 @@ public class ContactsUploadServiceTests extends DigitsAndroidTestCase {
     public class StubContractsService extends ContactsUploadService {
         boolean sendBroadcastCalled = false;
         Intent broadcastIntent;
+        final List<Intent> progressIntents = new ArrayList<>();
 
         StubContractsService(ContactsClient contactsClient, ContactsHelper helper,
-                ContactsPreferenceManager perfManager, RetryThreadPoolExecutor executor) {
-            super(contactsClient, helper, perfManager, executor);
+                ContactsPreferenceManager perfManager,
+                ContactsFingerprintIndex fingerprintIndex, ContactsUploadCheckpoint checkpoint) {
+            super(contactsClient, helper, perfManager, fingerprintIndex, checkpoint);
+        }
+
+        @Override
+        ContactsPageUploader createUploader(ContactsUploadOptions options,
+                ContactsPageUploader.Listener listener) {
+            return new ContactsPageUploader(contactsClient, options, listener,
+                    new ScheduledThreadPoolExecutor(1), new Backoff() {
+                        @Override
+                        public long getDelayMillis(int retries) {
+                            return 0;
+                        }
+                    });
+        }
+
+        @Override
+        long getActiveUserId() {
+            return USER_ID;
         }
 
         @Override
         public void sendBroadcast(Intent intent) {
             sendBroadcastCalled = true;
-            broadcastIntent = intent;
+            if (ContactsUploadService.UPLOAD_PROGRESS.equals(intent.getAction())) {
+                progressIntents.add(intent);
+            } else {
+                broadcastIntent = intent;
+            }
         }
     }
 
     public class StubContactsClient extends ContactsClient {
-        public UploadResponse uploadContacts(Vcards vcards) {
+        public UploadResponse uploadContacts(ContactsUploadBody body) {
             return null;
         }
     }
@@ -24,6 +24,8 @@ import io.fabric.sdk.android.FabricTestUtils;
 import com.twitter.sdk.android.core.TwitterAuthConfig;
 import com.twitter.sdk.android.core.TwitterCore;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 
 import static org.mockito.Matchers.any;
@@ -85,4 +87,24 @@ public class CountryListSpinnerTests extends DigitsAndroidTestCase {
         spinner.performClick();
         verify(listener).onClick(any(View.class));
     }
+
+    public void testPerformClick_clearsSearchBeforeSelecting() {
+        final CountryListSpinner.DialogPopup dialog = mock(CountryListSpinner.DialogPopup.class);
+        final CountryListAdapter adapter = new CountryListAdapter(getContext());
+        final List<CountryInfo> countries = new ArrayList<>();
+        countries.add(new CountryInfo("Germany", 49, "DE"));
+        countries.add(new CountryInfo("Spain", 34, "ES"));
+        countries.add(new CountryInfo("United States", US_COUNTRY_CODE, "US"));
+        adapter.setData(countries);
+        final CountryListSpinner spinner = new CountryListSpinner(getContext());
+        spinner.setCountryListAdapter(adapter);
+        spinner.setDialogPopup(dialog);
+        spinner.setSelectedForCountry("United States", String.valueOf(US_COUNTRY_CODE));
+        adapter.filter("uni");
+
+        spinner.performClick();
+
+        verify(dialog).show(2);
+        assertEquals(countries.size(), adapter.getCount());
+    }
 }
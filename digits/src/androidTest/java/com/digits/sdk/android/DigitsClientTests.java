@@ -26,6 +26,8 @@ import io.fabric.sdk.android.FabricTestUtils;
 import com.twitter.sdk.android.core.Callback;
 import com.twitter.sdk.android.core.Result;
 import com.twitter.sdk.android.core.SessionManager;
+import com.twitter.sdk.android.core.TwitterApiErrorConstants;
+import com.twitter.sdk.android.core.TwitterApiException;
 import com.twitter.sdk.android.core.TwitterCore;
 import com.twitter.sdk.android.core.TwitterException;
 import com.twitter.sdk.android.core.internal.oauth.OAuth2Service;
@@ -41,6 +43,7 @@ import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -110,24 +113,103 @@ public class DigitsClientTests extends DigitsAndroidTestCase {
     public void testAuthDevice_success() throws Exception {
         final Callback callback = mock(Callback.class);
         final Result<OAuth2Token> result = new Result<>(new OAuth2Token(TYPE, TOKEN), null);
-        final DigitsCallback authCallback = authDevice(callback);
+        final Callback<OAuth2Token> authCallback = authDevice(callback);
         authCallback.success(result);
         verify(sessionManager).setSession(anyLong(), any(DigitsSession.class));
-        verifyNoMoreInteractions(sdkService);
-        assertNotSame(digitsClient.digitsApiProvider, digitsApiProvider);
+        final Result<AuthResponse> authResult = new Result<>(new AuthResponse(), null);
+        captureAuth().success(authResult);
+        verify(callback).success(authResult);
+        assertSame(digitsClient.digitsApiProvider, digitsApiProvider);
     }
 
     public void testAuthDevice_failure() throws Exception {
         final Callback callback = mock(Callback.class);
-        final DigitsCallback authCallback = authDevice(callback);
+        final Callback<OAuth2Token> authCallback = authDevice(callback);
         authCallback.failure(new TwitterException("Exception"));
         verifyNoMoreInteractions(sdkService, deviceService);
         verify(controller).handleError(eq(context), any(DigitsException.class));
     }
 
-    private DigitsCallback authDevice(Callback callback) {
-        final ArgumentCaptor<DigitsCallback> argumentCaptor = ArgumentCaptor.forClass
-                (DigitsCallback.class);
+    public void testAuthDevice_storedGuestSession() throws Exception {
+        final Callback callback = mock(Callback.class);
+        final DigitsSession storedSession = new DigitsSession(new OAuth2Token(TYPE, TOKEN));
+        when(sessionManager.getSession(DigitsSession.LOGGED_OUT_USER_ID))
+                .thenReturn(storedSession);
+
+        digitsClient.authDevice(context, controller, PHONE, callback);
+
+        verifyNoMoreInteractions(authService);
+        verify(sessionManager).setSession(DigitsSession.LOGGED_OUT_USER_ID, storedSession);
+        verify(sdkService).auth(eq(PHONE), any(Callback.class));
+    }
+
+    public void testAuthDevice_invalidStoredGuestSession() throws Exception {
+        final Callback callback = mock(Callback.class);
+        when(sessionManager.getSession(DigitsSession.LOGGED_OUT_USER_ID))
+                .thenReturn(new DigitsSession(new OAuth2Token(TYPE, TOKEN)));
+        digitsClient.authDevice(context, controller, PHONE, callback);
+        final Callback<AuthResponse> authCallback = captureAuth();
+        when(sessionManager.getSession(DigitsSession.LOGGED_OUT_USER_ID)).thenReturn(null);
+
+        authCallback.failure(createApiException(TwitterApiErrorConstants.APP_AUTH_ERROR_CODE));
+
+        verify(sessionManager).clearSession(DigitsSession.LOGGED_OUT_USER_ID);
+        final ArgumentCaptor<Callback> tokenCaptor = ArgumentCaptor.forClass(Callback.class);
+        verify(authService).requestGuestOrAppAuthToken(tokenCaptor.capture());
+        tokenCaptor.getValue().success(new Result<>(new OAuth2Token(TYPE, TOKEN), null));
+        verify(sdkService).auth(PHONE, callback);
+    }
+
+    public void testAuthDevice_otherFailure() throws Exception {
+        final Callback callback = mock(Callback.class);
+        final TwitterApiException exception =
+                createApiException(TwitterApiErrorConstants.RATE_LIMIT_EXCEEDED);
+        authDevice(callback).success(new Result<>(new OAuth2Token(TYPE, TOKEN), null));
+
+        captureAuth().failure(exception);
+
+        verify(callback).failure(exception);
+        verify(sessionManager, never()).clearSession(anyLong());
+    }
+
+    public void testAuthDevice_prefetchInFlight() throws Exception {
+        final Callback callback = mock(Callback.class);
+        final Result<OAuth2Token> result = new Result<>(new OAuth2Token(TYPE, TOKEN), null);
+        digitsClient.prefetchGuestAuth();
+
+        final Callback<OAuth2Token> tokenCallback = authDevice(callback);
+        tokenCallback.success(result);
+
+        verify(sessionManager).setSession(anyLong(), any(DigitsSession.class));
+        verify(sdkService).auth(eq(PHONE), any(Callback.class));
+    }
+
+    public void testPrefetchGuestAuth_storedGuestSession() throws Exception {
+        final ExecutorService executorService = mock(ExecutorService.class);
+        when(digits.getExecutorService()).thenReturn(executorService);
+        when(sessionManager.getSession(DigitsSession.LOGGED_OUT_USER_ID))
+                .thenReturn(new DigitsSession(new OAuth2Token(TYPE, TOKEN)));
+
+        digitsClient.prefetchGuestAuth();
+
+        verifyNoMoreInteractions(authService);
+        verify(executorService).submit(any(Runnable.class));
+    }
+
+    private Callback<AuthResponse> captureAuth() {
+        final ArgumentCaptor<Callback> argumentCaptor = ArgumentCaptor.forClass(Callback.class);
+        verify(sdkService).auth(eq(PHONE), argumentCaptor.capture());
+        return argumentCaptor.getValue();
+    }
+
+    private static TwitterApiException createApiException(int errorCode) {
+        final TwitterApiException exception = mock(TwitterApiException.class);
+        when(exception.getErrorCode()).thenReturn(errorCode);
+        return exception;
+    }
+
+    private Callback<OAuth2Token> authDevice(Callback callback) {
+        final ArgumentCaptor<Callback> argumentCaptor = ArgumentCaptor.forClass(Callback.class);
 
         digitsClient.authDevice(context, controller, PHONE, callback);
         verify(authService).requestGuestOrAppAuthToken(argumentCaptor.capture());
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.provider.ContactsContract.CommonDataKinds.StructuredName;
+
+import com.digits.sdk.vcard.VCardBuilder;
+import com.digits.sdk.vcard.VCardConfig;
+import com.digits.sdk.vcard.VCardUtils;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Benchmarks of the vCard and contacts pipeline over synthetic address books. Each operation is
+ * one contact. Run with ./gradlew :digits:testDebug -Pbenchmarks and read the results in the
+ * standard output of the tests.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, emulateSdk = 21)
+public class ContactsBenchmarks {
+    private static final int[] SIZES = {100, 1000, 10000, 50000};
+
+    @Test
+    public void benchmarkVCardBuilder() {
+        for (int size : SIZES) {
+            final SyntheticAddressBook addressBook = new SyntheticAddressBook(size);
+            final VCardBuilder builder = new VCardBuilder(VCardConfig.VCARD_TYPE_V30_GENERIC,
+                    VCardConfig.DEFAULT_EXPORT_CHARSET);
+            final MicroBenchmark.Result result = MicroBenchmark.run("VCardBuilder/" + size,
+                    new MicroBenchmark.Workload() {
+                        @Override
+                        public void run(MicroBenchmark.Recorder recorder) {
+                            for (SyntheticAddressBook.Contact contact : addressBook.contacts) {
+                                builder.clear();
+                                builder.appendNameProperties(contact.names)
+                                        .appendPhones(contact.phones, null)
+                                        .appendEmails(contact.emails)
+                                        .toString();
+                                recorder.mark();
+                            }
+                        }
+                    });
+            assertEquals(size * MicroBenchmark.MEASUREMENT_ITERATIONS, result.operations);
+        }
+    }
+
+    /**
+     * vCard 2.1 encodes the names that aren't ASCII in quoted-printable.
+     */
+    @Test
+    public void benchmarkVCardBuilderQuotedPrintable() {
+        for (int size : SIZES) {
+            final SyntheticAddressBook addressBook = new SyntheticAddressBook(size);
+            final VCardBuilder builder = new VCardBuilder(VCardConfig.VCARD_TYPE_V21_GENERIC,
+                    VCardConfig.DEFAULT_EXPORT_CHARSET);
+            final MicroBenchmark.Result result = MicroBenchmark.run("VCardBuilder/v21/" + size,
+                    new MicroBenchmark.Workload() {
+                        @Override
+                        public void run(MicroBenchmark.Recorder recorder) {
+                            for (SyntheticAddressBook.Contact contact : addressBook.contacts) {
+                                builder.clear();
+                                builder.appendNameProperties(contact.names).toString();
+                                recorder.mark();
+                            }
+                        }
+                    });
+            assertEquals(size * MicroBenchmark.MEASUREMENT_ITERATIONS, result.operations);
+        }
+    }
+
+    @Test
+    public void benchmarkVCardUtils() {
+        final int nameOrder = VCardConfig.getNameOrderType(VCardConfig.VCARD_TYPE_V30_GENERIC);
+        for (int size : SIZES) {
+            final SyntheticAddressBook addressBook = new SyntheticAddressBook(size);
+            final MicroBenchmark.Result result = MicroBenchmark.run("VCardUtils/" + size,
+                    new MicroBenchmark.Workload() {
+                        @Override
+                        public void run(MicroBenchmark.Recorder recorder) {
+                            for (SyntheticAddressBook.Contact contact : addressBook.contacts) {
+                                final ContentValues name = contact.names.get(0);
+                                final String displayName =
+                                        name.getAsString(StructuredName.DISPLAY_NAME);
+                                final String givenName =
+                                        name.getAsString(StructuredName.GIVEN_NAME);
+                                final String familyName =
+                                        name.getAsString(StructuredName.FAMILY_NAME);
+                                VCardUtils.containsOnlyNonCrLfPrintableAscii(familyName,
+                                        givenName);
+                                VCardUtils.constructNameFromElements(nameOrder, familyName,
+                                        null, givenName);
+                                VCardUtils.toHalfWidthString(displayName);
+                                recorder.mark();
+                            }
+                        }
+                    });
+            assertEquals(size * MicroBenchmark.MEASUREMENT_ITERATIONS, result.operations);
+        }
+    }
+
+    /**
+     * Includes filling the cursors standing in for the contacts provider.
+     */
+    @Test
+    public void benchmarkReadContacts() {
+        benchmarkReadContacts("ContactsHelper/", 1);
+    }
+
+    /**
+     * Same as {@link #benchmarkReadContacts()}, with vCards built on one thread per processor.
+     */
+    @Test
+    public void benchmarkReadContactsParallel() {
+        final int threads = Runtime.getRuntime().availableProcessors();
+        benchmarkReadContacts("ContactsHelper/threads" + threads + "/", threads);
+    }
+
+    private static void benchmarkReadContacts(String name, final int threads) {
+        for (int size : SIZES) {
+            final SyntheticAddressBook addressBook = new SyntheticAddressBook(size);
+            final MicroBenchmark.Result result = MicroBenchmark.run(name + size,
+                    new MicroBenchmark.Workload() {
+                        @Override
+                        public void run(final MicroBenchmark.Recorder recorder) {
+                            final ContactsHelper contactsHelper = new ContactsHelper(null) {
+                                @Override
+                                public Cursor getContactsCursor(long afterContactId) {
+                                    return addressBook.createCursor(afterContactId,
+                                            ContactsHelper.ROWS_PER_QUERY);
+                                }
+
+                                @Override
+                                String getDefaultCountryCode() {
+                                    return "1";
+                                }
+                            };
+                            contactsHelper.readContacts(new ContactsHelper.Listener() {
+                                @Override
+                                public void onContact(String lookupKey,
+                                        CharSequence vCard) {
+                                    recorder.mark();
+                                }
+                            }, threads);
+                        }
+                    });
+            assertEquals(size * MicroBenchmark.MEASUREMENT_ITERATIONS, result.operations);
+        }
+    }
+}
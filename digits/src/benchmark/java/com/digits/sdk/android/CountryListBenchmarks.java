@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Benchmarks of loading and searching the country list shown by {@link CountryListSpinner}.
+ * Each operation is one list load or one search. Run with ./gradlew :digits:testDebug
+ * -Pbenchmarks and read the results in the standard output of the tests.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, emulateSdk = 21)
+public class CountryListBenchmarks {
+    private static final int LOADS = 100;
+    private static final int MIN_WARMUP_LOADS = 1000;
+
+    /**
+     * Names every country, creates its CountryInfo and sorts them, as on a cache miss.
+     */
+    @Test
+    public void benchmarkCreateCountryList() {
+        final MicroBenchmark.Result result = MicroBenchmark.run("CountryList/create",
+                MIN_WARMUP_LOADS, new MicroBenchmark.Workload() {
+                    @Override
+                    public void run(MicroBenchmark.Recorder recorder) {
+                        for (int i = 0; i < LOADS; i++) {
+                            new CountryList(CountryListLoadTask.createCountryList(Locale.US));
+                            recorder.mark();
+                        }
+                    }
+                });
+        assertEquals(LOADS * MicroBenchmark.MEASUREMENT_ITERATIONS, result.operations);
+    }
+
+    /**
+     * Sorts shuffled countries, which only compares their collation keys.
+     */
+    @Test
+    public void benchmarkSortCountryList() {
+        final List<CountryInfo> countries = CountryListLoadTask.createCountryList(Locale.US);
+        final List<CountryInfo> shuffled = new ArrayList<>(countries);
+        final MicroBenchmark.Result result = MicroBenchmark.run("CountryList/sort",
+                MIN_WARMUP_LOADS, new MicroBenchmark.Workload() {
+                    @Override
+                    public void run(MicroBenchmark.Recorder recorder) {
+                        final Random random = new Random(0);
+                        for (int i = 0; i < LOADS; i++) {
+                            Collections.shuffle(shuffled, random);
+                            recorder.start();
+                            Collections.sort(shuffled);
+                            recorder.mark();
+                        }
+                    }
+                });
+        assertEquals(LOADS * MicroBenchmark.MEASUREMENT_ITERATIONS, result.operations);
+        assertEquals(countries, shuffled);
+    }
+
+    /**
+     * Types each query one character at a time, as searched on each keystroke.
+     */
+    @Test
+    public void benchmarkFilterCountryList() {
+        final String[] queries = {"united kingdom", "spain", "+34", "de", "korea", "+1"};
+        int keystrokes = 0;
+        for (String query : queries) {
+            keystrokes += query.length();
+        }
+        final CountryList countryList =
+                new CountryList(CountryListLoadTask.createCountryList(Locale.US));
+        final BitSet matches = new BitSet();
+        final MicroBenchmark.Result result = MicroBenchmark.run("CountryList/filter",
+                new MicroBenchmark.Workload() {
+                    @Override
+                    public void run(MicroBenchmark.Recorder recorder) {
+                        for (String query : queries) {
+                            for (int length = 1; length <= query.length(); length++) {
+                                countryList.filter(query.subSequence(0, length), matches);
+                                recorder.mark();
+                            }
+                        }
+                    }
+                });
+        assertEquals(keystrokes * MicroBenchmark.MEASUREMENT_ITERATIONS, result.operations);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Minimal JMH-style harness: runs warmup iterations of a workload, then measures throughput,
+ * bytes allocated and p99 latency per operation over the measurement iterations.
+ *
+ * The code under test needs the Android framework, which is only available off device through
+ * Robolectric, so benchmarks run as unit tests rather than in forked JMH JVMs.
+ */
+class MicroBenchmark {
+    static final int WARMUP_ITERATIONS = 3;
+    static final int MEASUREMENT_ITERATIONS = 5;
+    // Small workloads are warmed up longer, until the JIT compiled them.
+    private static final int MIN_WARMUP_OPERATIONS = 100000;
+    private static final double P99 = 0.99;
+
+    private MicroBenchmark() {
+    }
+
+    static Result run(String name, Workload workload) {
+        return run(name, MIN_WARMUP_OPERATIONS, workload);
+    }
+
+    /**
+     * @param minWarmupOperations operations to run at least before measuring, lower for
+     *                            workloads where each operation already takes milliseconds.
+     */
+    static Result run(String name, int minWarmupOperations, Workload workload) {
+        final Recorder recorder = new Recorder();
+        for (int i = 0; i < WARMUP_ITERATIONS || recorder.count < minWarmupOperations; i++) {
+            recorder.start();
+            workload.run(recorder);
+        }
+
+        recorder.clear();
+        long elapsedNanos = 0;
+        long allocatedBytes = 0;
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            final long startBytes = getAllocatedBytes();
+            final long startNanos = System.nanoTime();
+            recorder.start();
+            workload.run(recorder);
+            elapsedNanos += System.nanoTime() - startNanos;
+            allocatedBytes += getAllocatedBytes() - startBytes;
+        }
+
+        final Result result = new Result(name, recorder.count, elapsedNanos,
+                getAllocatedBytes() < 0 ? -1 : allocatedBytes, recorder.getPercentile(P99));
+        System.out.println(result);
+        return result;
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread so far, or -1 if the JVM doesn't tell.
+     */
+    private static long getAllocatedBytes() {
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    interface Workload {
+        /**
+         * Runs one iteration, calling {@link Recorder#mark()} once each operation is done.
+         */
+        void run(Recorder recorder);
+    }
+
+    /**
+     * Records the latency of each operation as the time since the previous mark.
+     */
+    static class Recorder {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long lastNanos;
+
+        void start() {
+            lastNanos = System.nanoTime();
+        }
+
+        void mark() {
+            final long now = System.nanoTime();
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = now - lastNanos;
+            lastNanos = now;
+        }
+
+        void clear() {
+            count = 0;
+        }
+
+        long getPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            final long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+        }
+    }
+
+    static class Result {
+        final String name;
+        final int operations;
+        final double operationsPerSecond;
+        final double bytesPerOperation;
+        final long p99Nanos;
+
+        Result(String name, int operations, long elapsedNanos, long allocatedBytes,
+                long p99Nanos) {
+            this.name = name;
+            this.operations = operations;
+            this.operationsPerSecond = elapsedNanos == 0 ? 0 :
+                    operations * 1e9 / elapsedNanos;
+            this.bytesPerOperation = allocatedBytes < 0 || operations == 0 ? -1 :
+                    (double) allocatedBytes / operations;
+            this.p99Nanos = p99Nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%-32s %12.0f ops/s %10.0f B/op %10.2f us p99",
+                    name, operationsPerSecond, bytesPerOperation, p99Nanos / 1000.0);
+        }
+    }
+}
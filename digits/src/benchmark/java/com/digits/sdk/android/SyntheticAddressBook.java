@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.provider.ContactsContract.CommonDataKinds.Email;
+import android.provider.ContactsContract.CommonDataKinds.Phone;
+import android.provider.ContactsContract.CommonDataKinds.StructuredName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Address book generated from a fixed seed, with ASCII, accented, CJK and emoji names, one to
+ * three phones and up to two emails per contact. Holds both the rows of the contacts provider
+ * and the ContentValues read from them.
+ */
+class SyntheticAddressBook {
+    private static final long SEED = 42;
+    private static final String[] COLUMNS = {"data1", "data2", "data3", "lookup", "mimetype",
+            "is_primary", "contact_id"};
+    private static final int CONTACT_ID_INDEX = 6;
+    // Given name, family name and display name.
+    private static final String[][] ASCII_NAMES = {{"Nene", "Goose", "Nene Goose"},
+            {"Spruce", "Grouse", "Spruce Grouse"}, {"Ada", "Lovelace", "Ada Lovelace"}};
+    private static final String[][] ACCENTED_NAMES = {
+            {"Jos\u00E9", "N\u00FA\u00F1ez", "Jos\u00E9 N\u00FA\u00F1ez"},
+            {"Zo\u00EB", "M\u00FCller", "Zo\u00EB M\u00FCller"}};
+    // Family name first in the display name, as in Chinese and Japanese.
+    private static final String[][] CJK_NAMES = {
+            {"\u592A\u90CE", "\u5C71\u7530", "\u5C71\u7530\u592A\u90CE"},
+            {"\u5C0F\u9F99", "\u674E", "\u674E\u5C0F\u9F99"},
+            {"\u30CF\u30CA\u30B3", "\u30B5\u30C8\u30A6",
+                    "\u30B5\u30C8\u30A6 \u30CF\u30CA\u30B3"}};
+    private static final String[][] EMOJI_NAMES = {
+            {"\uD83D\uDE00 Party", "\uD83C\uDF89", "\uD83D\uDE00 Party \uD83C\uDF89"},
+            {"Sun", "\u2600\uFE0F", "Sun \u2600\uFE0F"}};
+    private static final int[] PHONE_TYPES = {Phone.TYPE_MOBILE, Phone.TYPE_HOME,
+            Phone.TYPE_WORK};
+    private static final int[] EMAIL_TYPES = {Email.TYPE_HOME, Email.TYPE_WORK,
+            Email.TYPE_OTHER};
+
+    final List<Contact> contacts;
+    private final List<Object[]> rows;
+
+    SyntheticAddressBook(int size) {
+        contacts = new ArrayList<>(size);
+        rows = new ArrayList<>(size * 4);
+
+        final Random random = new Random(SEED);
+        for (long contactId = 1; contactId <= size; contactId++) {
+            final String lookupKey = Long.toString(contactId);
+            final Contact contact = new Contact(lookupKey);
+            final String[] name = pickName(random);
+            addRow(contact.names, contactId, lookupKey, StructuredName.CONTENT_ITEM_TYPE,
+                    name[2], name[0], name[1], 0);
+
+            final int phoneCount = 1 + random.nextInt(3);
+            for (int i = 0; i < phoneCount; i++) {
+                final String number = String.format(Locale.US, "+1 (415) 555-%04d",
+                        random.nextInt(10000));
+                addRow(contact.phones, contactId, lookupKey, Phone.CONTENT_ITEM_TYPE, number,
+                        PHONE_TYPES[random.nextInt(PHONE_TYPES.length)], null, i == 0 ? 1 : 0);
+            }
+
+            final int emailCount = random.nextInt(3);
+            for (int i = 0; i < emailCount; i++) {
+                final String address = "contact" + contactId + "." + i + "@digits.com";
+                addRow(contact.emails, contactId, lookupKey, Email.CONTENT_ITEM_TYPE, address,
+                        EMAIL_TYPES[random.nextInt(EMAIL_TYPES.length)], null, 0);
+            }
+            contacts.add(contact);
+        }
+    }
+
+    /**
+     * Picks 60% of ASCII names, 15% of accented, 15% of CJK and 10% of emoji names.
+     */
+    private static String[] pickName(Random random) {
+        final int bucket = random.nextInt(100);
+        final String[][] names;
+        if (bucket < 60) {
+            names = ASCII_NAMES;
+        } else if (bucket < 75) {
+            names = ACCENTED_NAMES;
+        } else if (bucket < 90) {
+            names = CJK_NAMES;
+        } else {
+            names = EMOJI_NAMES;
+        }
+        return names[random.nextInt(names.length)];
+    }
+
+    private void addRow(List<ContentValues> group, long contactId, String lookupKey,
+            String mimeType, String data1, Object data2, Object data3, int isPrimary) {
+        rows.add(new Object[]{data1, data2, data3, lookupKey, mimeType, isPrimary, contactId});
+
+        final ContentValues cv = new ContentValues();
+        if (StructuredName.CONTENT_ITEM_TYPE.equals(mimeType)) {
+            cv.put(StructuredName.DISPLAY_NAME, data1);
+            cv.put(StructuredName.GIVEN_NAME, (String) data2);
+            cv.put(StructuredName.FAMILY_NAME, (String) data3);
+        } else if (Phone.CONTENT_ITEM_TYPE.equals(mimeType)) {
+            cv.put(Phone.NUMBER, data1);
+            cv.put(Phone.TYPE, (Integer) data2);
+            cv.put(Phone.LABEL, (String) data3);
+            cv.put(Phone.IS_PRIMARY, isPrimary);
+        } else {
+            cv.put(Email.DATA, data1);
+            cv.put(Email.TYPE, (Integer) data2);
+            cv.put(Email.LABEL, (String) data3);
+            cv.put(Email.IS_PRIMARY, isPrimary);
+        }
+        group.add(cv);
+    }
+
+    /**
+     * Returns up to limit rows of contacts with an id greater than afterContactId, like the
+     * contacts provider does for {@link ContactsHelper#getContactsCursor(long)}.
+     */
+    Cursor createCursor(long afterContactId, int limit) {
+        final MatrixCursor cursor = new MatrixCursor(COLUMNS, limit);
+        for (int i = findFirstRow(afterContactId); i < rows.size() && cursor.getCount() < limit;
+                i++) {
+            cursor.addRow(rows.get(i));
+        }
+        return cursor;
+    }
+
+    private int findFirstRow(long afterContactId) {
+        int low = 0;
+        int high = rows.size();
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if ((Long) rows.get(mid)[CONTACT_ID_INDEX] <= afterContactId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    static class Contact {
+        final String lookupKey;
+        final List<ContentValues> names = new ArrayList<>(1);
+        final List<ContentValues> phones = new ArrayList<>(3);
+        final List<ContentValues> emails = new ArrayList<>(2);
+
+        Contact(String lookupKey) {
+            this.lookupKey = lookupKey;
+        }
+    }
+}
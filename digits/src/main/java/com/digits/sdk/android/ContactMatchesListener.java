@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import com.twitter.sdk.android.core.TwitterException;
+
+import java.util.List;
+
+/**
+ * Listener of the matched users fetched by
+ * {@link ContactsClient#fetchAllContactMatches(int, ContactMatchesListener)}. Methods are called
+ * on the UI thread, and no longer once the fetch is cancelled.
+ */
+public interface ContactMatchesListener {
+    /**
+     * Called with the users of each page, in order, as soon as the page is fetched.
+     */
+    void onMatches(List<DigitsUser> users);
+
+    /**
+     * Called once every page was fetched, or the maximum number of users was reached.
+     *
+     * @param userCount number of users passed to {@link #onMatches(List)}.
+     */
+    void onComplete(int userCount);
+
+    /**
+     * Called when a page could not be fetched. No other method is called afterwards.
+     */
+    void onFailure(TwitterException exception);
+}
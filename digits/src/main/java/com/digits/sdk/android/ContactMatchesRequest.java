@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+/**
+ * Fetch of matched users started by
+ * {@link ContactsClient#fetchAllContactMatches(int, ContactMatchesListener)}.
+ */
+public class ContactMatchesRequest {
+    private volatile boolean cancelled;
+
+    ContactMatchesRequest() {
+    }
+
+    /**
+     * Stops fetching pages. The listener isn't called anymore, even for a page already fetched.
+     * Must be called on the UI thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
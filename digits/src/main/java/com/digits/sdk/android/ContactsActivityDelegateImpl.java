@@ -18,6 +18,7 @@
 package com.digits.sdk.android;
 
 import android.app.Activity;
+import android.content.Intent;
 import android.view.View;
 import android.widget.Button;
 import android.widget.TextView;
@@ -66,6 +67,13 @@ class ContactsActivityDelegateImpl implements ContactsActivityDelegate {
         return activity.getString(R.string.dgts__upload_contacts, getApplicationName());
     }
 
+    protected ContactsUploadOptions getUploadOptions() {
+        final Intent intent = activity.getIntent();
+        return intent == null ? null :
+                intent.<ContactsUploadOptions>getParcelableExtra(
+                        ContactsUploadService.UPLOAD_OPTIONS_EXTRA);
+    }
+
     protected void setUpNotNowButton(Button button) {
         button.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -79,7 +87,7 @@ class ContactsActivityDelegateImpl implements ContactsActivityDelegate {
         button.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
-                controller.startUploadService(activity);
+                controller.startUploadService(activity, getUploadOptions());
                 activity.finish();
             }
         });
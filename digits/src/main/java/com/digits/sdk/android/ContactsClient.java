@@ -19,23 +19,42 @@ package com.digits.sdk.android;
 
 import android.content.Context;
 import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
 
-import com.twitter.sdk.android.core.AuthenticatedClient;
+import com.twitter.sdk.android.core.Result;
+import com.twitter.sdk.android.core.TwitterApiException;
 import com.twitter.sdk.android.core.TwitterCore;
 
-import retrofit.RestAdapter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+import retrofit.RetrofitError;
 import retrofit.client.Response;
 import retrofit.http.Body;
 import retrofit.http.GET;
+import retrofit.http.Header;
 import retrofit.http.POST;
 import retrofit.http.Query;
+import retrofit.mime.TypedOutput;
 
 public class ContactsClient {
     public static final int MAX_PAGE_SIZE = 100;
+    static final int MAX_MATCHES_PAGE_SIZE = 100;
     private final TwitterCore twitterCore;
     private final ContactsPreferenceManager prefManager;
+    private final List<ContactsUploadProgressListener> progressListeners =
+            new CopyOnWriteArrayList<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     private ContactsService contactsService;
     private ActivityClassManagerFactory activityClassManagerFactory;
+    private ContactsMatchesStore matchesStore;
+    private Executor executor;
 
     ContactsClient() {
         this(TwitterCore.getInstance(), new ContactsPreferenceManager(),
@@ -60,6 +79,18 @@ public class ContactsClient {
         this.contactsService = contactsService;
     }
 
+    /*
+     * Testing only
+     */
+    ContactsClient(TwitterCore twitterCore, ContactsPreferenceManager prefManager,
+            ActivityClassManagerFactory activityClassManagerFactory,
+            ContactsService contactsService, ContactsMatchesStore matchesStore,
+            Executor executor) {
+        this(twitterCore, prefManager, activityClassManagerFactory, contactsService);
+        this.matchesStore = matchesStore;
+        this.executor = executor;
+    }
+
     /**
      * First checks if user previously gave permission to upload contacts. If not, shows
      * dialog requesting permission to upload users contacts. If permission granted start
@@ -81,6 +112,32 @@ public class ContactsClient {
         startContactsUpload(twitterCore.getContext(), themeResId);
     }
 
+    /**
+     * First checks if user previously gave permission to upload contacts. If not, shows
+     * dialog requesting permission to upload users contacts. If permission granted start
+     * background service to upload contacts. Otherwise, do nothing.
+     *
+     * @param options Options of the upload, such as how many pages are uploaded concurrently
+     */
+    public void startContactsUpload(ContactsUploadOptions options) {
+        startContactsUpload(R.style.Digits_default, options);
+    }
+
+    /**
+     * First checks if user previously gave permission to upload contacts. If not, shows
+     * dialog requesting permission to upload users contacts. If permission granted start
+     * background service to upload contacts. Otherwise, do nothing.
+     *
+     * @param themeResId Resource id of theme
+     * @param options    Options of the upload, such as how many pages are uploaded concurrently
+     */
+    public void startContactsUpload(int themeResId, ContactsUploadOptions options) {
+        if (options == null) {
+            throw new IllegalArgumentException("options must not be null");
+        }
+        startContactsUpload(twitterCore.getContext(), themeResId, options);
+    }
+
     /**
      * Returns true if user has previously granted contacts upload permission. Otherwise, returns
      * false.
@@ -90,48 +147,75 @@ public class ContactsClient {
     }
 
     protected void startContactsUpload(Context context, int themeResId) {
+        startContactsUpload(context, themeResId, new ContactsUploadOptions.Builder().build());
+    }
+
+    protected void startContactsUpload(Context context, int themeResId,
+            ContactsUploadOptions options) {
         if (!hasUserGrantedPermission()) {
-            startContactsActivity(context, themeResId);
+            startContactsActivity(context, themeResId, options);
         } else {
-            startContactsService(context);
+            startContactsService(context, options);
         }
     }
 
-    private void startContactsActivity(Context context, int themeResId) {
+    private void startContactsActivity(Context context, int themeResId,
+            ContactsUploadOptions options) {
         final ActivityClassManager activityClassManager =
                 activityClassManagerFactory.createActivityClassManager(context, themeResId);
         final Intent intent = new Intent(context, activityClassManager.getContactsActivity());
         intent.putExtra(ThemeUtils.THEME_RESOURCE_ID, themeResId);
+        intent.putExtra(ContactsUploadService.UPLOAD_OPTIONS_EXTRA, options);
         intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
         context.startActivity(intent);
     }
 
-    private void startContactsService(Context context) {
-        context.startService(new Intent(context, ContactsUploadService.class));
+    private void startContactsService(Context context, ContactsUploadOptions options) {
+        final Intent intent = new Intent(context, ContactsUploadService.class);
+        intent.putExtra(ContactsUploadService.UPLOAD_OPTIONS_EXTRA, options);
+        context.startService(intent);
     }
 
+    /**
+     * Unless one was given for testing, the service comes from the transport shared with the
+     * login flow, which signs each request with the session active at that time.
+     */
     private ContactsService getContactsService() {
         if (contactsService != null) {
             return contactsService;
         }
+        return Digits.getInstance().getTransport().getService(ContactsService.class);
+    }
 
-        final RestAdapter adapter = new RestAdapter.Builder()
-                .setEndpoint(new DigitsApi().getBaseHostUrl())
-                .setClient(new AuthenticatedClient(twitterCore.getAuthConfig(),
-                        Digits.getSessionManager().getActiveSession(),
-                        twitterCore.getSSLSocketFactory()))
-                .build();
+    private synchronized ContactsMatchesStore getMatchesStore() {
+        if (matchesStore == null) {
+            matchesStore = new ContactsMatchesStore(twitterCore.getContext());
+        }
+        return matchesStore;
+    }
 
-        contactsService = adapter.create(ContactsService.class);
-        return contactsService;
+    private synchronized Executor getExecutor() {
+        if (executor == null) {
+            executor = Digits.getInstance().getExecutorService();
+        }
+        return executor;
     }
 
     /**
-     * Deletes all uploaded contacts.
+     * Deletes all uploaded contacts. The next contacts upload sends every contact again.
      *
      * @param callback to be executed on UI thread with HTTP response.
      */
     public void deleteAllUploadedContacts(final ContactsCallback<Response> callback) {
+        // Invalidates the fingerprints of uploaded contacts, see ContactsFingerprintIndex.
+        prefManager.clearContactsReadTimestamp();
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                new ContactsUploadCheckpoint(twitterCore.getContext()).clear();
+                invalidateContactMatches();
+            }
+        });
         getContactsService().deleteAll(callback);
     }
 
@@ -145,20 +229,272 @@ public class ContactsClient {
      */
     public void lookupContactMatches(final String nextCursor, final Integer count,
             final ContactsCallback<Contacts> callback) {
-        if (count == null || count < 1 || count > 100) {
-            getContactsService().usersAndUploadedBy(nextCursor, null, callback);
-        } else {
-            getContactsService().usersAndUploadedBy(nextCursor, count, callback);
+        getContactsService().usersAndUploadedBy(nextCursor, getMatchesCount(count), callback);
+    }
+
+    /**
+     * Lookup matched contacts, served from the matches stored on the device when they were
+     * looked up before. Stored matches older than a day are still served, and refreshed in the
+     * background for the next lookup. While the matches are displayed the next page is
+     * prefetched, so that scrolling through them doesn't wait for the server either.
+     *
+     * @param nextCursor reference to next set of results. If null returns the first 100 users.
+     * @param count      number of results to return. Min value is 1. Max value is 100. Default
+     *                   value is 50. Values out of range will return default.
+     * @param callback   to be executed on UI thread with matched users.
+     */
+    public void lookupCachedContactMatches(final String nextCursor, final Integer count,
+            final ContactsCallback<Contacts> callback) {
+        final Integer matchesCount = getMatchesCount(count);
+        final long userId = getActiveUserId();
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final ContactsMatchesStore store = getMatchesStore();
+                final ContactsMatchesStore.Page page = store.get(userId, nextCursor,
+                        matchesCount);
+                Contacts contacts = null;
+                if (page != null) {
+                    contacts = page.contacts;
+                    postSuccess(callback, contacts);
+                }
+                if (store.isStale(page, System.currentTimeMillis())) {
+                    try {
+                        final Contacts fetched = fetchContactMatches(userId, nextCursor,
+                                matchesCount);
+                        if (contacts == null) {
+                            postSuccess(callback, fetched);
+                        }
+                        // The refreshed page's cursor is the one the next lookup gets.
+                        contacts = fetched;
+                    } catch (RetrofitError e) {
+                        if (contacts == null) {
+                            postFailure(callback, e);
+                            return;
+                        }
+                    }
+                }
+                prefetchContactMatches(userId, contacts.nextCursor, matchesCount);
+            }
+        });
+    }
+
+    /**
+     * Fetches every matched user on a background thread, 100 users at a time. The next page is
+     * requested as soon as the cursor of the previous one arrives, without waiting for the UI
+     * thread, and pages are passed to the listener as they arrive. Fetched pages are also
+     * stored for {@link #lookupCachedContactMatches(String, Integer, ContactsCallback)}, all at
+     * once when the fetch ends.
+     *
+     * @param maxUsers maximum number of users to fetch, or 0 to fetch all of them.
+     * @param listener to be notified on UI thread of the fetched users.
+     * @return the fetch, to cancel it.
+     */
+    public ContactMatchesRequest fetchAllContactMatches(final int maxUsers,
+            final ContactMatchesListener listener) {
+        if (maxUsers < 0) {
+            throw new IllegalArgumentException("maxUsers must not be negative");
+        }
+        if (listener == null) {
+            throw new IllegalArgumentException("listener must not be null");
+        }
+
+        final ContactMatchesRequest request = new ContactMatchesRequest();
+        final long userId = getActiveUserId();
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                // Storing each page would write the whole store again for every page.
+                final Map<String, Contacts> fetchedPages = new HashMap<>();
+                final long fetchedAtMillis = System.currentTimeMillis();
+                final int userCount = fetchAll(fetchedPages);
+                if (!fetchedPages.isEmpty()) {
+                    getMatchesStore().putAll(userId, MAX_MATCHES_PAGE_SIZE, fetchedPages,
+                            fetchedAtMillis);
+                }
+                if (userCount >= 0) {
+                    postMatchesComplete(request, listener, userCount);
+                }
+            }
+
+            /**
+             * Returns the number of users fetched, or -1 if the fetch failed or was cancelled.
+             */
+            private int fetchAll(Map<String, Contacts> fetchedPages) {
+                int userCount = 0;
+                String cursor = null;
+                do {
+                    if (request.isCancelled()) {
+                        return -1;
+                    }
+                    final Contacts contacts;
+                    try {
+                        contacts = getContactsService().usersAndUploadedBy(cursor,
+                                MAX_MATCHES_PAGE_SIZE);
+                    } catch (RetrofitError e) {
+                        postMatchesFailure(request, listener, e);
+                        return -1;
+                    }
+                    fetchedPages.put(cursor, contacts);
+
+                    List<DigitsUser> users = contacts.users == null ?
+                            Collections.<DigitsUser>emptyList() : contacts.users;
+                    if (maxUsers > 0 && userCount + users.size() > maxUsers) {
+                        users = new ArrayList<>(users.subList(0, maxUsers - userCount));
+                    }
+                    userCount += users.size();
+                    if (!users.isEmpty()) {
+                        postMatches(request, listener, users);
+                    }
+                    // A cursor returned again would never end.
+                    cursor = contacts.nextCursor == null ||
+                            contacts.nextCursor.equals(cursor) ? null : contacts.nextCursor;
+                } while (cursor != null && (maxUsers == 0 || userCount < maxUsers));
+                return userCount;
+            }
+        });
+        return request;
+    }
+
+    /**
+     * Drops the stored matches, since contacts uploaded or deleted change them.
+     */
+    void invalidateContactMatches() {
+        getMatchesStore().clear();
+    }
+
+    private Contacts fetchContactMatches(long userId, String nextCursor, Integer count) {
+        final Contacts contacts = getContactsService().usersAndUploadedBy(nextCursor, count);
+        getMatchesStore().put(userId, nextCursor, count, contacts, System.currentTimeMillis());
+        return contacts;
+    }
+
+    private void prefetchContactMatches(long userId, String nextCursor, Integer count) {
+        if (nextCursor == null) {
+            return;
+        }
+        final ContactsMatchesStore store = getMatchesStore();
+        if (!store.isStale(store.get(userId, nextCursor, count), System.currentTimeMillis())) {
+            return;
+        }
+        try {
+            fetchContactMatches(userId, nextCursor, count);
+        } catch (RetrofitError e) {
+            // Fetched again when the page is looked up.
+        }
+    }
+
+    private void postSuccess(final ContactsCallback<Contacts> callback,
+            final Contacts contacts) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                callback.success(new Result<>(contacts, null));
+            }
+        });
+    }
+
+    private void postFailure(final ContactsCallback<Contacts> callback,
+            final RetrofitError error) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                callback.failure(new TwitterApiException(error));
+            }
+        });
+    }
+
+    private void postMatches(final ContactMatchesRequest request,
+            final ContactMatchesListener listener, final List<DigitsUser> users) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!request.isCancelled()) {
+                    listener.onMatches(users);
+                }
+            }
+        });
+    }
+
+    private void postMatchesComplete(final ContactMatchesRequest request,
+            final ContactMatchesListener listener, final int userCount) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!request.isCancelled()) {
+                    listener.onComplete(userCount);
+                }
+            }
+        });
+    }
+
+    private void postMatchesFailure(final ContactMatchesRequest request,
+            final ContactMatchesListener listener, final RetrofitError error) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!request.isCancelled()) {
+                    listener.onFailure(new TwitterApiException(error));
+                }
+            }
+        });
+    }
+
+    private static Integer getMatchesCount(Integer count) {
+        return count == null || count < 1 || count > MAX_MATCHES_PAGE_SIZE ? null : count;
+    }
+
+    long getActiveUserId() {
+        final DigitsSession session = Digits.getSessionManager().getActiveSession();
+        return session == null ? DigitsSession.UNKNOWN_USER_ID : session.getId();
+    }
+
+    /**
+     * Registers a listener notified of the progress of contacts uploads on the UI thread.
+     * Progress is also broadcast with the {@link ContactsUploadService#UPLOAD_PROGRESS} action.
+     *
+     * @param listener to be notified until removed.
+     */
+    public void addUploadProgressListener(ContactsUploadProgressListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("listener must not be null");
         }
+        progressListeners.add(listener);
+    }
+
+    public void removeUploadProgressListener(ContactsUploadProgressListener listener) {
+        progressListeners.remove(listener);
     }
 
-    UploadResponse uploadContacts(Vcards vcards) {
-        return getContactsService().upload(vcards);
+    void notifyUploadProgress(final ContactsUploadProgress progress) {
+        if (progressListeners.isEmpty()) {
+            return;
+        }
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                for (ContactsUploadProgressListener listener : progressListeners) {
+                    listener.onProgress(progress);
+                }
+            }
+        });
+    }
+
+    UploadResponse uploadContacts(ContactsUploadBody body) {
+        if (body.hashed) {
+            return getContactsService().uploadHashed(body.getContentEncoding(), body);
+        }
+        return getContactsService().upload(body.getContentEncoding(), body);
     }
 
     interface ContactsService {
         @POST("/1.1/contacts/upload.json")
-        UploadResponse upload(@Body Vcards vcards);
+        UploadResponse upload(@Header("Content-Encoding") String contentEncoding,
+                @Body TypedOutput body);
+
+        @POST("/1.1/contacts/upload_hashed.json")
+        UploadResponse uploadHashed(@Header("Content-Encoding") String contentEncoding,
+                @Body TypedOutput body);
 
         @POST("/1.1/contacts/destroy/all.json")
         void deleteAll(ContactsCallback<Response> cb);
@@ -166,6 +502,10 @@ public class ContactsClient {
         @GET("/1.1/contacts/users_and_uploaded_by.json")
         void usersAndUploadedBy(@Query("next_cursor") String nextCursor,
                 @Query("count") Integer count, ContactsCallback<Contacts> cb);
+
+        @GET("/1.1/contacts/users_and_uploaded_by.json")
+        Contacts usersAndUploadedBy(@Query("next_cursor") String nextCursor,
+                @Query("count") Integer count);
     }
 
 }
@@ -20,5 +20,5 @@ package com.digits.sdk.android;
 import android.content.Context;
 
 interface ContactsController {
-    void startUploadService(Context context);
+    void startUploadService(Context context, ContactsUploadOptions options);
 }
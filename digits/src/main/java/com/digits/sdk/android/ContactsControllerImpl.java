@@ -21,7 +21,9 @@ import android.content.Context;
 import android.content.Intent;
 
 class ContactsControllerImpl implements ContactsController {
-    public void startUploadService(Context context) {
-        context.startService(new Intent(context, ContactsUploadService.class));
+    public void startUploadService(Context context, ContactsUploadOptions options) {
+        final Intent intent = new Intent(context, ContactsUploadService.class);
+        intent.putExtra(ContactsUploadService.UPLOAD_OPTIONS_EXTRA, options);
+        context.startService(intent);
     }
 }
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import android.content.Context;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import io.fabric.sdk.android.Fabric;
+import io.fabric.sdk.android.services.common.CommonUtils;
+
+/**
+ * Fingerprints of the vCards acknowledged by the server, keyed by contact lookup key. Used to
+ * upload only the contacts that were added or changed since the last upload.
+ *
+ * The index is only trusted when it was written for the same user and the same contacts read
+ * timestamp that is currently persisted, otherwise every contact is uploaded again.
+ */
+class ContactsFingerprintIndex {
+    static final String FILE_NAME = "com.digits.sdk.android.contacts_fingerprints";
+    private static final int MAGIC = 0x44434649;
+    private static final int VERSION = 1;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Context context;
+    private final Map<String, Long> fingerprints = new HashMap<>();
+
+    ContactsFingerprintIndex(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Returns 64-bit FNV-1a hash of the vCard.
+     */
+    static long fingerprint(CharSequence vCard) {
+        return fingerprint(FNV_OFFSET_BASIS, vCard);
+    }
+
+    /**
+     * Returns 64-bit FNV-1a hash of the contact followed by the salt its identifiers are hashed
+     * with, so that changing the salt uploads every contact again. Without a salt it's the hash
+     * of the vCard alone.
+     */
+    static long fingerprint(CharSequence contact, String hashedIdentifiersSalt) {
+        long hash = fingerprint(FNV_OFFSET_BASIS, contact);
+        if (hashedIdentifiersSalt != null) {
+            // Separates the salt from the contact, an empty salt still changes the hash.
+            hash *= FNV_PRIME;
+            hash = fingerprint(hash, hashedIdentifiersSalt);
+        }
+        return hash;
+    }
+
+    private static long fingerprint(long hash, CharSequence text) {
+        final int length = text.length();
+        for (int i = 0; i < length; i++) {
+            hash ^= text.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Replaces the content of the index with the persisted one.
+     *
+     * @return false if the index is missing, corrupt or was written for a different user or
+     * read timestamp. The index is left empty in that case.
+     */
+    synchronized boolean load(long userId, long readTimestamp) {
+        fingerprints.clear();
+
+        final File file = getFile();
+        if (!file.exists()) {
+            return false;
+        }
+
+        DataInputStream in = null;
+        try {
+            final CheckedInputStream checkedIn = new CheckedInputStream(
+                    new BufferedInputStream(new FileInputStream(file)), new CRC32());
+            in = new DataInputStream(checkedIn);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != userId ||
+                    in.readLong() != readTimestamp) {
+                return false;
+            }
+
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                final String lookupKey = in.readUTF();
+                fingerprints.put(lookupKey, in.readLong());
+            }
+
+            final long checksum = checkedIn.getChecksum().getValue();
+            if (in.readLong() != checksum) {
+                fingerprints.clear();
+                return false;
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            Fabric.getLogger().w(Digits.TAG, "Contacts fingerprints could not be read", e);
+            fingerprints.clear();
+            return false;
+        } finally {
+            CommonUtils.closeOrLog(in, "Failed to close contacts fingerprints");
+        }
+    }
+
+    /**
+     * Writes the index, replacing the persisted one only once it's completely written.
+     */
+    synchronized boolean save(long userId, long readTimestamp) {
+        final File file = getFile();
+        final File tempFile = new File(file.getPath() + ".tmp");
+
+        DataOutputStream out = null;
+        try {
+            final CheckedOutputStream checkedOut = new CheckedOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tempFile)), new CRC32());
+            out = new DataOutputStream(checkedOut);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(userId);
+            out.writeLong(readTimestamp);
+            out.writeInt(fingerprints.size());
+            for (Map.Entry<String, Long> entry : fingerprints.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+            out.writeLong(checkedOut.getChecksum().getValue());
+            out.close();
+            out = null;
+
+            if (tempFile.renameTo(file)) {
+                return true;
+            }
+        } catch (IOException e) {
+            Fabric.getLogger().w(Digits.TAG, "Contacts fingerprints could not be written", e);
+        } finally {
+            CommonUtils.closeOrLog(out, "Failed to close contacts fingerprints");
+        }
+
+        tempFile.delete();
+        return false;
+    }
+
+    /**
+     * Removes all fingerprints, including the persisted ones.
+     */
+    synchronized void clear() {
+        fingerprints.clear();
+        getFile().delete();
+    }
+
+    /**
+     * Returns true if the contact was previously uploaded with the same fingerprint.
+     */
+    synchronized boolean isUnchanged(String lookupKey, long fingerprint) {
+        final Long previous = fingerprints.get(lookupKey);
+        return previous != null && previous == fingerprint;
+    }
+
+    synchronized void put(String lookupKey, long fingerprint) {
+        fingerprints.put(lookupKey, fingerprint);
+    }
+
+    /**
+     * Drops the fingerprints of contacts which no longer exist.
+     */
+    synchronized void retainAll(Collection<String> lookupKeys) {
+        fingerprints.keySet().retainAll(lookupKeys);
+    }
+
+    synchronized int size() {
+        return fingerprints.size();
+    }
+
+    File getFile() {
+        return new File(context.getFilesDir(), FILE_NAME);
+    }
+}
@@ -17,147 +17,683 @@
 
 package com.digits.sdk.android;
 
-import android.content.ContentValues;
 import android.content.Context;
+import android.database.CharArrayBuffer;
 import android.database.Cursor;
-import android.database.DatabaseUtils;
 import android.net.Uri;
 import android.provider.ContactsContract;
 import android.provider.ContactsContract.CommonDataKinds.Phone;
 import android.provider.ContactsContract.CommonDataKinds.Email;
 import android.provider.ContactsContract.CommonDataKinds.StructuredName;
+import android.text.TextUtils;
 
 import com.digits.sdk.vcard.VCardBuilder;
 import com.digits.sdk.vcard.VCardConfig;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
+import java.util.LinkedList;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 class ContactsHelper {
-    private static final int MAX_CONTACTS = 2500;
+    static final int ROWS_PER_QUERY = 1000;
+    static final int CONTACTS_PER_BATCH = 64;
     private static final String[] allProjectionColumns = new String[]{
             ContactsContract.Data.MIMETYPE,
+            ContactsContract.Data.CONTACT_ID,
             ContactsContract.Contacts.LOOKUP_KEY,
             Phone.TYPE, Phone.LABEL, Phone.IS_PRIMARY, Phone.NUMBER,
             Email.DATA, Email.TYPE, Email.LABEL, Email.IS_PRIMARY,
             StructuredName.DISPLAY_NAME, StructuredName.GIVEN_NAME, StructuredName.FAMILY_NAME
     };
-    private static final String selectionQuery = ContactsContract.Data.MIMETYPE + "=? OR " +
+    private static final char[] PHONE_MIME_TYPE = Phone.CONTENT_ITEM_TYPE.toCharArray();
+    private static final char[] EMAIL_MIME_TYPE = Email.CONTENT_ITEM_TYPE.toCharArray();
+    private static final char[] NAME_MIME_TYPE = StructuredName.CONTENT_ITEM_TYPE.toCharArray();
+    private static final String selectionQuery = "(" + ContactsContract.Data.MIMETYPE + "=? OR " +
             ContactsContract.Data.MIMETYPE + "=? OR " +
-            ContactsContract.Data.MIMETYPE + "=?";
-    private static final String[] selectionArgs = new String[]{Phone.CONTENT_ITEM_TYPE,
-            Email.CONTENT_ITEM_TYPE,
-            StructuredName.CONTENT_ITEM_TYPE};
+            ContactsContract.Data.MIMETYPE + "=?) AND " +
+            ContactsContract.Data.CONTACT_ID + ">?";
 
     private final Context context;
+    private final int rowsPerQuery;
 
     ContactsHelper(Context context) {
+        this(context, ROWS_PER_QUERY);
+    }
+
+    /*
+     * Testing only
+     */
+    ContactsHelper(Context context, int rowsPerQuery) {
         this.context = context;
+        this.rowsPerQuery = rowsPerQuery;
     }
 
-    public Cursor getContactsCursor() {
+    /**
+     * Returns the number of contacts in the address book, including the ones without phone or
+     * email, or -1 if they can't be queried.
+     */
+    public int getContactCount() {
+        final Cursor cursor = context.getContentResolver().query(
+                ContactsContract.Contacts.CONTENT_URI,
+                new String[]{ContactsContract.Contacts._ID}, null, null, null);
+        if (cursor == null) {
+            return -1;
+        }
+        try {
+            return cursor.getCount();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Returns up to rowsPerQuery rows of contacts with an id greater than afterContactId, sorted
+     * by contact id so that the rows of a contact are adjacent.
+     */
+    public Cursor getContactsCursor(long afterContactId) {
         // Get unique values from allProjectionColumns
         final HashSet<String> tempSet = new HashSet<>(Arrays.asList(allProjectionColumns));
         final String[] projectionColumns = tempSet.toArray(new String[tempSet.size()]);
 
         final Uri uri = ContactsContract.Data.CONTENT_URI.buildUpon()
-                .appendQueryParameter("limit", Integer.toString(MAX_CONTACTS)).build();
+                .appendQueryParameter("limit", Integer.toString(rowsPerQuery)).build();
+        final String[] selectionArgs = new String[]{Phone.CONTENT_ITEM_TYPE,
+                Email.CONTENT_ITEM_TYPE,
+                StructuredName.CONTENT_ITEM_TYPE,
+                Long.toString(afterContactId)};
 
         return context.getContentResolver().query(uri, projectionColumns, selectionQuery,
-                selectionArgs, null);
+                selectionArgs, ContactsContract.Data.CONTACT_ID);
+    }
+
+    /**
+     * Reads the whole address book, one query of rowsPerQuery rows at a time, and passes the
+     * vCard of each contact having a phone or email to the listener. Only the rows of the
+     * current contact are held in memory.
+     *
+     * @return number of contacts scanned, including the ones without phone or email.
+     */
+    public int readContacts(Listener listener) {
+        return readContacts(listener, 1);
+    }
+
+    /**
+     * Same as {@link #readContacts(Listener)}, with the vCards built by threads threads. Rows
+     * are still read on the calling thread, and handed to the pool in batches of
+     * {@link #CONTACTS_PER_BATCH} contacts, each thread building them with its own
+     * {@link VCardBuilder}. The listener is called on the calling thread, in the order the
+     * contacts are read, as soon as the vCards of a batch are built.
+     *
+     * @param threads number of threads building vCards. With 1 they are built on the calling
+     *                thread.
+     */
+    public int readContacts(Listener listener, int threads) {
+        return readContacts(listener, threads, false);
+    }
+
+    /**
+     * Same as {@link #readContacts(Listener, int)}. With identifiersOnly, the listener receives
+     * the identifiers of each contact instead of its vCard: its normalized phone numbers, then
+     * its lower-cased emails, without duplicates and each followed by a line feed.
+     */
+    public int readContacts(Listener listener, int threads, boolean identifiersOnly) {
+        final String defaultCountryCode = getDefaultCountryCode();
+        final CardSink sink = threads > 1 ?
+                new ParallelCardSink(listener, threads, defaultCountryCode, identifiersOnly) :
+                new SequentialCardSink(listener,
+                        new CardWriter(defaultCountryCode, identifiersOnly));
+        try {
+            final ContactRows contact = new ContactRows();
+            final ScanState state = new ScanState();
+            boolean hasMoreRows = true;
+            while (hasMoreRows) {
+                Cursor cursor = null;
+                try {
+                    cursor = getContactsCursor(state.lastContactId);
+                    hasMoreRows = readContacts(cursor, contact, state, sink);
+                } finally {
+                    if (cursor != null) {
+                        cursor.close();
+                    }
+                }
+            }
+            sink.flush();
+
+            return state.scannedCount;
+        } finally {
+            sink.close();
+        }
+    }
+
+    /**
+     * Returns the country code that phone numbers without an international prefix take.
+     */
+    String getDefaultCountryCode() {
+        return new PhoneNumberUtils(SimManager.createSimManager(context)).getCountryCode();
     }
 
-    public List<String> createContactList(Cursor cursor) {
+    /**
+     * Reads one query result. When the result is full its last contact may be incomplete, so
+     * it's left to the next query, unless it's the only contact of the result.
+     *
+     * Rows are read straight into the reusable holders of the contact, with column indices
+     * resolved once per result and the mime type compared in place, so reading a row allocates
+     * nothing but the strings of its values.
+     *
+     * @return true if there may be more rows after this result.
+     */
+    private boolean readContacts(Cursor cursor, ContactRows contact, ScanState state,
+            CardSink sink) {
         if (cursor == null || cursor.getCount() == 0) {
-            return Collections.<String>emptyList();
+            return false;
         }
 
-        final int mimeTypeColumnIndex = cursor.getColumnIndex(ContactsContract.Data.MIMETYPE);
-        final int lookupKeyColumnIndex = cursor.getColumnIndex(ContactsContract.Contacts
-                .LOOKUP_KEY);
-        final Map<String, List<ContentValues>> mapContactsData = new HashMap<>();
+        final boolean isFull = cursor.getCount() >= rowsPerQuery;
+        final long afterContactId = state.lastContactId;
+        final ColumnIndices columns = new ColumnIndices(cursor);
+        contact.reset(afterContactId, null);
         while (cursor.moveToNext()) {
-            final String mimeType = cursor.getString(mimeTypeColumnIndex);
-            final ContentValues cv = new ContentValues();
-            cv.put(ContactsContract.Data.MIMETYPE, mimeType);
-            switch (mimeType) {
-                case Phone.CONTENT_ITEM_TYPE:
-                    DatabaseUtils.cursorIntToContentValuesIfPresent(cursor, cv, Phone.TYPE);
-                    DatabaseUtils.cursorStringToContentValuesIfPresent(cursor, cv, Phone.LABEL);
-                    DatabaseUtils.cursorIntToContentValuesIfPresent(cursor, cv, Phone.IS_PRIMARY);
-                    DatabaseUtils.cursorStringToContentValuesIfPresent(cursor, cv, Phone.NUMBER);
-                    break;
-                case Email.CONTENT_ITEM_TYPE:
-                    DatabaseUtils.cursorStringToContentValuesIfPresent(cursor, cv, Email.DATA);
-                    DatabaseUtils.cursorIntToContentValuesIfPresent(cursor, cv, Email.TYPE);
-                    DatabaseUtils.cursorStringToContentValuesIfPresent(cursor, cv, Email.LABEL);
-                    DatabaseUtils.cursorIntToContentValuesIfPresent(cursor, cv, Email.IS_PRIMARY);
-                    break;
-                case StructuredName.CONTENT_ITEM_TYPE:
-                    DatabaseUtils.cursorStringToContentValuesIfPresent(cursor, cv,
-                            StructuredName.DISPLAY_NAME);
-                    DatabaseUtils.cursorStringToContentValuesIfPresent(cursor, cv,
-                            StructuredName.GIVEN_NAME);
-                    DatabaseUtils.cursorStringToContentValuesIfPresent(cursor, cv,
-                            StructuredName.FAMILY_NAME);
-                    break;
-                default:
-                    continue;
-            }
-            // Aggregate contacts based on their lookup key.
-            final String lookupKey = cursor.getString(lookupKeyColumnIndex);
-            List<ContentValues> contactDetails = mapContactsData.get(lookupKey);
-            if (contactDetails == null) {
-                contactDetails = new ArrayList<>();
-                mapContactsData.put(lookupKey, contactDetails);
-            }
-            contactDetails.add(cv);
-        }
-
-        return processContactsMap(mapContactsData);
-    }
-
-    private List<String> processContactsMap(Map<String, List<ContentValues>> mapContactsData) {
-        final List<String> vCards = new ArrayList<>();
-        final Map<String, List<ContentValues>> contactMimeTypeMap = new HashMap<>();
+            cursor.copyStringToBuffer(columns.mimeType, state.mimeType);
+            final boolean isPhone = equals(state.mimeType, PHONE_MIME_TYPE);
+            final boolean isEmail = !isPhone && equals(state.mimeType, EMAIL_MIME_TYPE);
+            if (!isPhone && !isEmail && !equals(state.mimeType, NAME_MIME_TYPE)) {
+                continue;
+            }
+
+            // Aggregate contacts based on their contact id.
+            final long contactId = cursor.getLong(columns.contactId);
+            if (contactId != contact.contactId) {
+                emitContact(contact, state, sink);
+                contact.reset(contactId, cursor.getString(columns.lookupKey));
+            }
+
+            if (isPhone) {
+                contact.phones.add(getInt(cursor, columns.phoneType,
+                                VCardBuilder.DEFAULT_PHONE_TYPE),
+                        getString(cursor, columns.phoneLabel),
+                        getString(cursor, columns.phoneNumber),
+                        getInt(cursor, columns.phoneIsPrimary, 0) > 0);
+            } else if (isEmail) {
+                contact.emails.add(getInt(cursor, columns.emailType,
+                                VCardBuilder.DEFAULT_EMAIL_TYPE),
+                        getString(cursor, columns.emailLabel),
+                        getString(cursor, columns.emailAddress),
+                        getInt(cursor, columns.emailIsPrimary, 0) > 0);
+            } else {
+                contact.addName(getString(cursor, columns.displayName),
+                        getString(cursor, columns.givenName),
+                        getString(cursor, columns.familyName));
+            }
+        }
+
+        if (!isFull || state.lastContactId == afterContactId) {
+            emitContact(contact, state, sink);
+        }
+
+        return isFull;
+    }
+
+    private void emitContact(ContactRows contact, ScanState state, CardSink sink) {
+        if (contact.isEmpty()) {
+            return;
+        }
+
+        state.lastContactId = contact.contactId;
+        state.scannedCount++;
+        if (contact.lookupKey == null || (contact.phones.count == 0 &&
+                contact.emails.count == 0)) {
+            return; // Contact does not have a phone or email id.
+        }
+
+        sink.add(contact);
+    }
+
+    private static boolean equals(CharArrayBuffer buffer, char[] value) {
+        if (buffer.sizeCopied != value.length) {
+            return false;
+        }
+        for (int i = value.length - 1; i >= 0; i--) {
+            if (buffer.data[i] != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int getInt(Cursor cursor, int columnIndex, int defaultValue) {
+        return columnIndex == -1 || cursor.isNull(columnIndex) ? defaultValue :
+                cursor.getInt(columnIndex);
+    }
+
+    private static String getString(Cursor cursor, int columnIndex) {
+        return columnIndex == -1 ? null : cursor.getString(columnIndex);
+    }
+
+    interface Listener {
+        /**
+         * @param vCard reused for the next contact, so only valid during the call. Unchanged
+         *              contacts are thereby skipped without copying their vCard. Holds the
+         *              identifiers of the contact instead when they are read alone.
+         */
+        void onContact(String lookupKey, CharSequence vCard);
+    }
+
+    /**
+     * Rows of the contact being read, grouped by mime type. Reused for every contact.
+     */
+    private static class ContactRows {
+        final DataRows phones = new DataRows();
+        final DataRows emails = new DataRows();
+        long contactId;
+        String lookupKey;
+        boolean hasNameRow;
+        // First non empty name, as picked by VCardBuilder when names aren't primary.
+        String displayName;
+        String givenName;
+        String familyName;
+
+        void reset(long contactId, String lookupKey) {
+            this.contactId = contactId;
+            this.lookupKey = lookupKey;
+            hasNameRow = false;
+            displayName = null;
+            givenName = null;
+            familyName = null;
+            phones.clear();
+            emails.clear();
+        }
+
+        void addName(String displayName, String givenName, String familyName) {
+            hasNameRow = true;
+            final boolean hasName = !TextUtils.isEmpty(this.displayName) ||
+                    !TextUtils.isEmpty(this.givenName) || !TextUtils.isEmpty(this.familyName);
+            if (!hasName) {
+                this.displayName = displayName;
+                this.givenName = givenName;
+                this.familyName = familyName;
+            }
+        }
+
+        boolean isEmpty() {
+            return !hasNameRow && phones.count == 0 && emails.count == 0;
+        }
+
+        void copyFrom(ContactRows contact) {
+            contactId = contact.contactId;
+            lookupKey = contact.lookupKey;
+            hasNameRow = contact.hasNameRow;
+            displayName = contact.displayName;
+            givenName = contact.givenName;
+            familyName = contact.familyName;
+            phones.copyFrom(contact.phones);
+            emails.copyFrom(contact.emails);
+        }
+    }
+
+    /**
+     * Phones or emails of a contact, in parallel arrays which only grow.
+     */
+    private static class DataRows {
+        int count;
+        int[] types = new int[2];
+        String[] labels = new String[2];
+        String[] values = new String[2];
+        boolean[] isPrimary = new boolean[2];
+
+        void add(int type, String label, String value, boolean primary) {
+            if (count == types.length) {
+                // Arrays.copyOf is only available from API 9.
+                final int capacity = count * 2;
+                final int[] newTypes = new int[capacity];
+                final String[] newLabels = new String[capacity];
+                final String[] newValues = new String[capacity];
+                final boolean[] newIsPrimary = new boolean[capacity];
+                System.arraycopy(types, 0, newTypes, 0, count);
+                System.arraycopy(labels, 0, newLabels, 0, count);
+                System.arraycopy(values, 0, newValues, 0, count);
+                System.arraycopy(isPrimary, 0, newIsPrimary, 0, count);
+                types = newTypes;
+                labels = newLabels;
+                values = newValues;
+                isPrimary = newIsPrimary;
+            }
+            types[count] = type;
+            labels[count] = label;
+            values[count] = value;
+            isPrimary[count] = primary;
+            count++;
+        }
+
+        void clear() {
+            Arrays.fill(labels, 0, count, null);
+            Arrays.fill(values, 0, count, null);
+            count = 0;
+        }
+
+        void copyFrom(DataRows rows) {
+            clear();
+            for (int i = 0; i < rows.count; i++) {
+                add(rows.types[i], rows.labels[i], rows.values[i], rows.isPrimary[i]);
+            }
+        }
+    }
+
+    private static class ColumnIndices {
+        final int mimeType;
+        final int contactId;
+        final int lookupKey;
+        final int phoneType;
+        final int phoneLabel;
+        final int phoneIsPrimary;
+        final int phoneNumber;
+        final int emailAddress;
+        final int emailType;
+        final int emailLabel;
+        final int emailIsPrimary;
+        final int displayName;
+        final int givenName;
+        final int familyName;
+
+        ColumnIndices(Cursor cursor) {
+            mimeType = cursor.getColumnIndex(ContactsContract.Data.MIMETYPE);
+            contactId = cursor.getColumnIndex(ContactsContract.Data.CONTACT_ID);
+            lookupKey = cursor.getColumnIndex(ContactsContract.Contacts.LOOKUP_KEY);
+            phoneType = cursor.getColumnIndex(Phone.TYPE);
+            phoneLabel = cursor.getColumnIndex(Phone.LABEL);
+            phoneIsPrimary = cursor.getColumnIndex(Phone.IS_PRIMARY);
+            phoneNumber = cursor.getColumnIndex(Phone.NUMBER);
+            emailAddress = cursor.getColumnIndex(Email.DATA);
+            emailType = cursor.getColumnIndex(Email.TYPE);
+            emailLabel = cursor.getColumnIndex(Email.LABEL);
+            emailIsPrimary = cursor.getColumnIndex(Email.IS_PRIMARY);
+            displayName = cursor.getColumnIndex(StructuredName.DISPLAY_NAME);
+            givenName = cursor.getColumnIndex(StructuredName.GIVEN_NAME);
+            familyName = cursor.getColumnIndex(StructuredName.FAMILY_NAME);
+        }
+    }
+
+    /**
+     * Builds the vCard or the identifiers of a contact, with its own builder and phone number
+     * normalizer, so one writer is needed per thread.
+     */
+    private static class CardWriter {
         final VCardBuilder builder = new VCardBuilder(VCardConfig.VCARD_TYPE_V30_GENERIC,
                 VCardConfig.DEFAULT_EXPORT_CHARSET);
-        for (String key : mapContactsData.keySet()) {
-            final List<ContentValues> contentValuesList = mapContactsData.get(key);
-            boolean hasPhoneOrEmail = false;
-            contactMimeTypeMap.clear();
+        final PhoneNumberNormalizer phoneNumberNormalizer;
+        final boolean identifiersOnly;
+        final StringBuilder identifiers = new StringBuilder();
+        final ArrayList<String> writtenIdentifiers = new ArrayList<>();
+
+        CardWriter(String defaultCountryCode, boolean identifiersOnly) {
+            phoneNumberNormalizer = new PhoneNumberNormalizer(defaultCountryCode);
+            this.identifiersOnly = identifiersOnly;
+        }
+
+        /**
+         * @return the vCard or the identifiers, valid until the next call.
+         */
+        CharSequence write(ContactRows contact) {
+            if (identifiersOnly) {
+                return writeIdentifiers(contact);
+            }
+
+            final DataRows phones = contact.phones;
+            final DataRows emails = contact.emails;
             builder.clear();
-            for (ContentValues cv : contentValuesList) {
-                final String mimeType = cv.getAsString(ContactsContract.Data.MIMETYPE);
-                if (Phone.CONTENT_ITEM_TYPE.equals(mimeType) ||
-                        Email.CONTENT_ITEM_TYPE.equals(mimeType)) {
-                    hasPhoneOrEmail = true;
+            builder.appendNameProperties(contact.familyName, contact.givenName,
+                    contact.displayName)
+                    .appendPhones(phones.count, phones.types, phones.labels, phones.values,
+                            phones.isPrimary, phoneNumberNormalizer)
+                    .appendEmails(emails.count, emails.types, emails.labels, emails.values,
+                            emails.isPrimary);
+            return builder.toCharSequence();
+        }
+
+        private CharSequence writeIdentifiers(ContactRows contact) {
+            identifiers.setLength(0);
+            writtenIdentifiers.clear();
+            final DataRows phones = contact.phones;
+            for (int i = 0; i < phones.count; i++) {
+                if (phones.values[i] != null) {
+                    appendIdentifier(phoneNumberNormalizer.onValueReceived(phones.values[i],
+                            phones.types[i], phones.labels[i], phones.isPrimary[i]));
+                }
+            }
+            final DataRows emails = contact.emails;
+            for (int i = 0; i < emails.count; i++) {
+                if (emails.values[i] != null) {
+                    appendIdentifier(emails.values[i].trim().toLowerCase(Locale.US));
+                }
+            }
+            return identifiers;
+        }
+
+        private void appendIdentifier(String identifier) {
+            if (identifier.length() == 0 || writtenIdentifiers.contains(identifier)) {
+                return;
+            }
+            writtenIdentifiers.add(identifier);
+            identifiers.append(identifier).append('\n');
+        }
+    }
+
+    /**
+     * Receives the contacts having a phone or email, in the order they are read.
+     */
+    private interface CardSink {
+        /**
+         * @param contact reused for the next contact, so only valid during the call.
+         */
+        void add(ContactRows contact);
+
+        /**
+         * Passes the contacts still pending to the listener.
+         */
+        void flush();
+
+        void close();
+    }
+
+    private static class SequentialCardSink implements CardSink {
+        private final Listener listener;
+        private final CardWriter writer;
+
+        SequentialCardSink(Listener listener, CardWriter writer) {
+            this.listener = listener;
+            this.writer = writer;
+        }
+
+        @Override
+        public void add(ContactRows contact) {
+            listener.onContact(contact.lookupKey, writer.write(contact));
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Copies the contacts into batches built by a pool of threads, and passes the built batches
+     * to the listener in order. At most two batches per thread are pending, so that reading
+     * can't get far ahead of building, and batches are recycled once passed to the listener.
+     */
+    private static class ParallelCardSink implements CardSink {
+        private final Listener listener;
+        private final ExecutorService executor;
+        private final ThreadLocal<CardWriter> writers;
+        private final int maxPendingBatches;
+        private final LinkedList<Future<CardBatch>> pendingBatches = new LinkedList<>();
+        private final LinkedList<CardBatch> freeBatches = new LinkedList<>();
+        private final CardSlice slice = new CardSlice();
+        private CardBatch batch;
+
+        ParallelCardSink(Listener listener, int threads, final String defaultCountryCode,
+                final boolean identifiersOnly) {
+            this.listener = listener;
+            executor = Executors.newFixedThreadPool(threads);
+            writers = new ThreadLocal<CardWriter>() {
+                @Override
+                protected CardWriter initialValue() {
+                    return new CardWriter(defaultCountryCode, identifiersOnly);
                 }
-                List<ContentValues> group = contactMimeTypeMap.get(mimeType);
-                if (group == null) {
-                    group = new ArrayList<>();
-                    contactMimeTypeMap.put(mimeType, group);
+            };
+            maxPendingBatches = threads * 2;
+            batch = new CardBatch(writers);
+        }
+
+        @Override
+        public void add(ContactRows contact) {
+            batch.add(contact);
+            if (batch.count == CONTACTS_PER_BATCH) {
+                submitBatch();
+            }
+        }
+
+        @Override
+        public void flush() {
+            if (batch.count > 0) {
+                submitBatch();
+            }
+            while (!pendingBatches.isEmpty()) {
+                emitBatch(pendingBatches.removeFirst());
+            }
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+        }
+
+        private void submitBatch() {
+            pendingBatches.addLast(executor.submit(batch));
+            batch = freeBatches.isEmpty() ? new CardBatch(writers) :
+                    freeBatches.removeFirst();
+
+            while (pendingBatches.size() > maxPendingBatches ||
+                    (!pendingBatches.isEmpty() && pendingBatches.getFirst().isDone())) {
+                emitBatch(pendingBatches.removeFirst());
+            }
+        }
+
+        private void emitBatch(Future<CardBatch> future) {
+            final CardBatch builtBatch;
+            try {
+                builtBatch = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while building vCards", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
                 }
-                group.add(cv);
+                throw new IllegalStateException(e.getCause());
+            }
+
+            int start = 0;
+            for (int i = 0; i < builtBatch.count; i++) {
+                slice.set(builtBatch.cards, start, builtBatch.cardEnds[i]);
+                listener.onContact(builtBatch.contacts[i].lookupKey, slice);
+                start = builtBatch.cardEnds[i];
+            }
+            builtBatch.clear();
+            freeBatches.addLast(builtBatch);
+        }
+    }
+
+    /**
+     * Copies of up to CONTACTS_PER_BATCH contacts, and their vCards concatenated once built.
+     */
+    private static class CardBatch implements Callable<CardBatch> {
+        final ContactRows[] contacts = new ContactRows[CONTACTS_PER_BATCH];
+        final int[] cardEnds = new int[CONTACTS_PER_BATCH];
+        final StringBuilder cards = new StringBuilder();
+        private final ThreadLocal<CardWriter> writers;
+        int count;
+
+        CardBatch(ThreadLocal<CardWriter> writers) {
+            this.writers = writers;
+            for (int i = 0; i < CONTACTS_PER_BATCH; i++) {
+                contacts[i] = new ContactRows();
+            }
+        }
+
+        void add(ContactRows contact) {
+            contacts[count++].copyFrom(contact);
+        }
+
+        void clear() {
+            for (int i = 0; i < count; i++) {
+                contacts[i].reset(0, null);
             }
-            if (!hasPhoneOrEmail) {
-                continue; // Contact does not have a phone or email id.
+            cards.setLength(0);
+            count = 0;
+        }
+
+        @Override
+        public CardBatch call() {
+            final CardWriter writer = writers.get();
+            for (int i = 0; i < count; i++) {
+                cards.append(writer.write(contacts[i]));
+                cardEnds[i] = cards.length();
+            }
+            return this;
+        }
+    }
+
+    /**
+     * One vCard of a built batch, passed to the listener without copying it.
+     */
+    private static class CardSlice implements CharSequence {
+        private StringBuilder cards;
+        private int start;
+        private int end;
+
+        void set(StringBuilder cards, int start, int end) {
+            this.cards = cards;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException("index: " + index);
             }
+            return cards.charAt(start + index);
+        }
 
-            builder.appendNameProperties(contactMimeTypeMap.get(
-                    StructuredName.CONTENT_ITEM_TYPE))
-                    .appendPhones(contactMimeTypeMap.get(Phone.CONTENT_ITEM_TYPE), null)
-                    .appendEmails(contactMimeTypeMap.get(Email.CONTENT_ITEM_TYPE));
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return cards.subSequence(start + from, start + to);
+        }
 
-            final String vcard = builder.toString();
-            vCards.add(vcard);
+        @Override
+        public String toString() {
+            return cards.substring(start, end);
         }
+    }
 
-        return vCards;
+    private static class ScanState {
+        // Mime type of the current row, copied without allocating a string.
+        final CharArrayBuffer mimeType = new CharArrayBuffer(64);
+        long lastContactId;
+        int scannedCount;
     }
 }
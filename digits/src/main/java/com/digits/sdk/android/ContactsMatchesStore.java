@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import android.content.Context;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import io.fabric.sdk.android.Fabric;
+import io.fabric.sdk.android.services.common.CommonUtils;
+
+/**
+ * Pages of matched contacts, keyed by the cursor and count they were looked up with, so that
+ * they can be displayed without waiting for the server. Each page keeps the time it was
+ * fetched, pages older than the time to live are still served but should be refreshed.
+ *
+ * Like {@link ContactsFingerprintIndex} the store is only trusted when it was written for the
+ * same user, it's loaded on first use and written again on every change.
+ */
+class ContactsMatchesStore {
+    static final String FILE_NAME = "com.digits.sdk.android.contacts_matches";
+    static final long DEFAULT_TTL_MILLIS = 24 * 60 * 60 * 1000L;
+    private static final int MAGIC = 0x44434d53;
+    private static final int VERSION = 1;
+
+    private final Context context;
+    private final long ttlMillis;
+    private final Map<String, Page> pages = new HashMap<>();
+    private boolean loaded;
+    private long userId;
+
+    ContactsMatchesStore(Context context) {
+        this(context, DEFAULT_TTL_MILLIS);
+    }
+
+    ContactsMatchesStore(Context context, long ttlMillis) {
+        this.context = context;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Returns the stored page, or null if it was never fetched for this user.
+     */
+    synchronized Page get(long userId, String cursor, Integer count) {
+        ensureLoaded(userId);
+        return pages.get(getKey(cursor, count));
+    }
+
+    /**
+     * Stores a page fetched at fetchedAtMillis, replacing the one with the same cursor and
+     * count.
+     */
+    synchronized void put(long userId, String cursor, Integer count, Contacts contacts,
+            long fetchedAtMillis) {
+        ensureLoaded(userId);
+        pages.put(getKey(cursor, count), new Page(contacts, fetchedAtMillis));
+        save();
+    }
+
+    /**
+     * Stores pages looked up with the same count, keyed by their cursor, writing the store only
+     * once.
+     */
+    synchronized void putAll(long userId, Integer count, Map<String, Contacts> pagesByCursor,
+            long fetchedAtMillis) {
+        ensureLoaded(userId);
+        for (Map.Entry<String, Contacts> entry : pagesByCursor.entrySet()) {
+            pages.put(getKey(entry.getKey(), count), new Page(entry.getValue(), fetchedAtMillis));
+        }
+        save();
+    }
+
+    /**
+     * Removes all pages, including the persisted ones. Called when matches may have changed.
+     */
+    synchronized void clear() {
+        pages.clear();
+        getFile().delete();
+    }
+
+    /**
+     * Returns true if the page is missing or older than the time to live.
+     */
+    boolean isStale(Page page, long nowMillis) {
+        return page == null || nowMillis - page.fetchedAtMillis >= ttlMillis;
+    }
+
+    synchronized int size() {
+        return pages.size();
+    }
+
+    File getFile() {
+        return new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    private static String getKey(String cursor, Integer count) {
+        return (count == null ? "" : count.toString()) + '/' + (cursor == null ? "" : cursor);
+    }
+
+    private void ensureLoaded(long userId) {
+        if (loaded && this.userId == userId) {
+            return;
+        }
+        this.userId = userId;
+        loaded = true;
+        load();
+    }
+
+    private void load() {
+        pages.clear();
+
+        final File file = getFile();
+        if (!file.exists()) {
+            return;
+        }
+
+        DataInputStream in = null;
+        try {
+            final CheckedInputStream checkedIn = new CheckedInputStream(
+                    new BufferedInputStream(new FileInputStream(file)), new CRC32());
+            in = new DataInputStream(checkedIn);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != userId) {
+                return;
+            }
+
+            final int pageCount = in.readInt();
+            for (int i = 0; i < pageCount; i++) {
+                final String key = in.readUTF();
+                final long fetchedAtMillis = in.readLong();
+                final Contacts contacts = new Contacts();
+                contacts.nextCursor = in.readBoolean() ? in.readUTF() : null;
+                final int userCount = in.readInt();
+                if (userCount >= 0) {
+                    contacts.users = new ArrayList<>(userCount);
+                    for (int j = 0; j < userCount; j++) {
+                        final long id = in.readLong();
+                        contacts.users.add(new DigitsUser(id, in.readUTF()));
+                    }
+                }
+                pages.put(key, new Page(contacts, fetchedAtMillis));
+            }
+
+            final long checksum = checkedIn.getChecksum().getValue();
+            if (in.readLong() != checksum) {
+                pages.clear();
+            }
+        } catch (IOException | RuntimeException e) {
+            Fabric.getLogger().w(Digits.TAG, "Contacts matches could not be read", e);
+            pages.clear();
+        } finally {
+            CommonUtils.closeOrLog(in, "Failed to close contacts matches");
+        }
+    }
+
+    /**
+     * Writes the store, replacing the persisted one only once it's completely written.
+     */
+    private void save() {
+        final File file = getFile();
+        final File tempFile = new File(file.getPath() + ".tmp");
+
+        DataOutputStream out = null;
+        try {
+            final CheckedOutputStream checkedOut = new CheckedOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tempFile)), new CRC32());
+            out = new DataOutputStream(checkedOut);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(userId);
+            out.writeInt(pages.size());
+            for (Map.Entry<String, Page> entry : pages.entrySet()) {
+                final Contacts contacts = entry.getValue().contacts;
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().fetchedAtMillis);
+                out.writeBoolean(contacts.nextCursor != null);
+                if (contacts.nextCursor != null) {
+                    out.writeUTF(contacts.nextCursor);
+                }
+                if (contacts.users == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(contacts.users.size());
+                    for (DigitsUser user : contacts.users) {
+                        out.writeLong(user.id);
+                        out.writeUTF(user.idStr == null ? Long.toString(user.id) : user.idStr);
+                    }
+                }
+            }
+            out.writeLong(checkedOut.getChecksum().getValue());
+            out.close();
+            out = null;
+
+            if (tempFile.renameTo(file)) {
+                return;
+            }
+        } catch (IOException e) {
+            Fabric.getLogger().w(Digits.TAG, "Contacts matches could not be written", e);
+        } finally {
+            CommonUtils.closeOrLog(out, "Failed to close contacts matches");
+        }
+
+        tempFile.delete();
+    }
+
+    static class Page {
+        final Contacts contacts;
+        final long fetchedAtMillis;
+
+        Page(Contacts contacts, long fetchedAtMillis) {
+            this.contacts = contacts;
+            this.fetchedAtMillis = fetchedAtMillis;
+        }
+    }
+}
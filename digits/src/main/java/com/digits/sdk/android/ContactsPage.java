@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * vCards sent in a single upload request, along with the lookup key and fingerprint of each
+ * contact. A page is bounded by a number of vCards and by their size in the request body, but
+ * always accepts a first vCard, however large.
+ */
+class ContactsPage {
+    // Opening and closing quotes, and the separating comma.
+    private static final int JSON_STRING_OVERHEAD = 3;
+    // Gson escapes HTML characters, and control characters without a short escape, in 6 bytes.
+    private static final int JSON_UNICODE_ESCAPE_LENGTH = 6;
+
+    final List<String> lookupKeys;
+    final List<String> cards;
+    final long[] fingerprints;
+    private final int capacity;
+    private final int maxBytes;
+    private int byteCount;
+
+    ContactsPage(int capacity) {
+        this(capacity, Integer.MAX_VALUE);
+    }
+
+    ContactsPage(int capacity, int maxBytes) {
+        this.capacity = capacity;
+        this.maxBytes = maxBytes;
+        this.lookupKeys = new ArrayList<>(capacity);
+        this.cards = new ArrayList<>(capacity);
+        this.fingerprints = new long[capacity];
+    }
+
+    /**
+     * Returns the number of UTF-8 bytes the vCard takes in the JSON request body.
+     */
+    static int jsonLength(CharSequence card) {
+        int length = JSON_STRING_OVERHEAD;
+        final int count = card.length();
+        for (int i = 0; i < count; i++) {
+            final char c = card.charAt(i);
+            if (c < 0x80) {
+                switch (c) {
+                    case '"':
+                    case '\\':
+                    case '\t':
+                    case '\b':
+                    case '\n':
+                    case '\r':
+                    case '\f':
+                        length += 2;
+                        break;
+                    case '<':
+                    case '>':
+                    case '&':
+                    case '=':
+                    case '\'':
+                        length += JSON_UNICODE_ESCAPE_LENGTH;
+                        break;
+                    default:
+                        length += c < 0x20 ? JSON_UNICODE_ESCAPE_LENGTH : 1;
+                }
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                // A surrogate pair takes 4 bytes.
+                length += 2;
+            } else if (c == '\u2028' || c == '\u2029') {
+                length += JSON_UNICODE_ESCAPE_LENGTH;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    void add(String lookupKey, String card, long fingerprint) {
+        add(lookupKey, card, fingerprint, jsonLength(card));
+    }
+
+    /**
+     * @param length size of the vCard in the request body, see
+     *               {@link #jsonLength(CharSequence)}.
+     */
+    void add(String lookupKey, String card, long fingerprint, int length) {
+        if (!canAdd(length)) {
+            throw new IllegalStateException("page is full");
+        }
+        fingerprints[cards.size()] = fingerprint;
+        lookupKeys.add(lookupKey);
+        cards.add(card);
+        byteCount += length;
+    }
+
+    /**
+     * Returns true if a vCard of the given size fits in the page.
+     */
+    boolean canAdd(int length) {
+        return isEmpty() || (cards.size() < capacity && byteCount + length <= maxBytes);
+    }
+
+    int getByteCount() {
+        return byteCount;
+    }
+
+    int size() {
+        return cards.size();
+    }
+
+    boolean isEmpty() {
+        return cards.isEmpty();
+    }
+
+    boolean isFull() {
+        return cards.size() >= capacity || byteCount >= maxBytes;
+    }
+
+    Vcards toVcards() {
+        return new Vcards(cards);
+    }
+}
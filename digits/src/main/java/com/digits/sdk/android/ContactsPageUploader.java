@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import io.fabric.sdk.android.services.concurrency.internal.Backoff;
+import io.fabric.sdk.android.services.concurrency.internal.ExponentialBackoff;
+import retrofit.RetrofitError;
+
+/**
+ * Uploads pages of contacts concurrently. The number of pages in flight is adjusted with
+ * additive increase and multiplicative decrease: it grows by one once as many pages as the
+ * current limit completed within the target latency, and is halved when a page is slower or
+ * the server responds with HTTP 429 or 5xx. {@link #upload(ContactsPage)} blocks while the limit
+ * is reached.
+ */
+class ContactsPageUploader {
+    private static final int INITIAL_BACKOFF_MS = 1000;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int HTTP_SERVER_ERROR = 500;
+
+    private final ContactsClient contactsClient;
+    private final ContactsUploadOptions options;
+    private final ScheduledExecutorService executor;
+    private final Backoff backoff;
+    private final Listener listener;
+    private final Object lock = new Object();
+
+    private int limit;
+    private int inFlight;
+    private int completedSinceIncrease;
+    private int decreaseCount;
+    private int successCount;
+    private int failureCount;
+    private long uncompressedBytes;
+    private long compressedBytes;
+
+    ContactsPageUploader(ContactsClient contactsClient, ContactsUploadOptions options,
+            Listener listener) {
+        this(contactsClient, options, listener,
+                new ScheduledThreadPoolExecutor(options.maxConcurrentPages),
+                new ExponentialBackoff(INITIAL_BACKOFF_MS));
+    }
+
+    /*
+     * Testing only
+     */
+    ContactsPageUploader(ContactsClient contactsClient, ContactsUploadOptions options,
+            Listener listener, ScheduledExecutorService executor, Backoff backoff) {
+        this.contactsClient = contactsClient;
+        this.options = options;
+        this.listener = listener;
+        this.executor = executor;
+        this.backoff = backoff;
+        this.limit = options.initialConcurrentPages;
+    }
+
+    /**
+     * Schedules the upload of a page, waiting until fewer pages than the current limit are in
+     * flight.
+     */
+    void upload(ContactsPage page) throws InterruptedException {
+        synchronized (lock) {
+            while (inFlight >= limit) {
+                lock.wait();
+            }
+            inFlight++;
+        }
+        executor.execute(new PageTask(page, getDecreaseCount()));
+    }
+
+    /**
+     * Waits until every scheduled page was either uploaded or failed after retrying.
+     */
+    void awaitCompletion() throws InterruptedException {
+        synchronized (lock) {
+            while (inFlight > 0) {
+                lock.wait();
+            }
+        }
+    }
+
+    /**
+     * Stops the upload threads, dropping pages not uploaded yet.
+     */
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    int getSuccessCount() {
+        synchronized (lock) {
+            return successCount;
+        }
+    }
+
+    int getFailureCount() {
+        synchronized (lock) {
+            return failureCount;
+        }
+    }
+
+    /**
+     * Returns the size of the request bodies of uploaded pages before compression.
+     */
+    long getUncompressedBytes() {
+        synchronized (lock) {
+            return uncompressedBytes;
+        }
+    }
+
+    /**
+     * Returns the size of the request bodies of uploaded pages as sent, equal to
+     * {@link #getUncompressedBytes()} when compression is disabled.
+     */
+    long getCompressedBytes() {
+        synchronized (lock) {
+            return compressedBytes;
+        }
+    }
+
+    int getLimit() {
+        synchronized (lock) {
+            return limit;
+        }
+    }
+
+    private int getDecreaseCount() {
+        synchronized (lock) {
+            return decreaseCount;
+        }
+    }
+
+    /**
+     * @param body request body of the uploaded page, or null if the page failed.
+     */
+    private void onPageComplete(int pageSize, ContactsUploadBody body) {
+        synchronized (lock) {
+            inFlight--;
+            if (body != null) {
+                successCount += pageSize;
+                uncompressedBytes += body.uncompressedLength;
+                compressedBytes += body.length();
+            } else {
+                failureCount += pageSize;
+            }
+            lock.notifyAll();
+        }
+    }
+
+    private void increase() {
+        synchronized (lock) {
+            completedSinceIncrease++;
+            if (completedSinceIncrease >= limit && limit < options.maxConcurrentPages) {
+                limit++;
+                completedSinceIncrease = 0;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Halves the limit, once per round of pages: pages started before the last decrease
+     * don't decrease it again.
+     */
+    private void decrease(int decreaseCountAtStart) {
+        synchronized (lock) {
+            if (decreaseCountAtStart == decreaseCount) {
+                limit = Math.max(1, limit / 2);
+                completedSinceIncrease = 0;
+                decreaseCount++;
+            }
+        }
+    }
+
+    static boolean isOverloaded(RetrofitError error) {
+        if (error.getKind() != RetrofitError.Kind.HTTP || error.getResponse() == null) {
+            return false;
+        }
+        final int status = error.getResponse().getStatus();
+        return status == HTTP_TOO_MANY_REQUESTS || status >= HTTP_SERVER_ERROR;
+    }
+
+    static boolean isRetryable(RetrofitError error) {
+        return error.getKind() == RetrofitError.Kind.NETWORK || isOverloaded(error);
+    }
+
+    interface Listener {
+        /**
+         * Called on an upload thread once the server acknowledged the page.
+         */
+        void onPageUploaded(ContactsPage page, ContactsUploadBody body);
+    }
+
+    private class PageTask implements Runnable {
+        final ContactsPage page;
+        ContactsUploadBody body;
+        int decreaseCountAtStart;
+        int retries;
+
+        PageTask(ContactsPage page, int decreaseCountAtStart) {
+            this.page = page;
+            this.decreaseCountAtStart = decreaseCountAtStart;
+        }
+
+        @Override
+        public void run() {
+            final long startTime = System.nanoTime();
+            try {
+                if (body == null) {
+                    // Serialized on the upload thread, once for all attempts.
+                    body = options.hashedIdentifiersSalt == null ?
+                            ContactsUploadBody.create(page.toVcards(), options.gzipEnabled) :
+                            ContactsUploadBody.createHashed(page.cards,
+                                    options.hashedIdentifiersSalt, options.gzipEnabled);
+                }
+                contactsClient.uploadContacts(body);
+            } catch (RetrofitError e) {
+                onFailure(isRetryable(e), isOverloaded(e));
+                return;
+            } catch (IOException | RuntimeException e) {
+                onPageComplete(page.size(), null);
+                return;
+            }
+
+            final long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() -
+                    startTime);
+            if (latencyMillis > options.targetLatencyMillis) {
+                decrease(decreaseCountAtStart);
+            } else {
+                increase();
+            }
+
+            try {
+                listener.onPageUploaded(page, body);
+            } finally {
+                onPageComplete(page.size(), body);
+            }
+        }
+
+        private void onFailure(boolean retryable, boolean overloaded) {
+            if (overloaded) {
+                decrease(decreaseCountAtStart);
+            }
+            if (!retryable || retries >= options.maxRetries) {
+                onPageComplete(page.size(), null);
+                return;
+            }
+
+            retries++;
+            decreaseCountAtStart = getDecreaseCount();
+            executor.schedule(this, backoff.getDelayMillis(retries), TimeUnit.MILLISECONDS);
+        }
+    }
+}
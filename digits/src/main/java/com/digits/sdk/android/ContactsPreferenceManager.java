@@ -54,6 +54,16 @@ class ContactsPreferenceManager {
         prefStore.save(prefStore.edit().putLong(KEY_CONTACTS_READ_TIMESTAMP, timestamp));
     }
 
+    @SuppressLint("CommitPrefEdits")
+    protected long getContactsReadTimestamp() {
+        return prefStore.get().getLong(KEY_CONTACTS_READ_TIMESTAMP, 0);
+    }
+
+    @SuppressLint("CommitPrefEdits")
+    protected void clearContactsReadTimestamp() {
+        prefStore.save(prefStore.edit().remove(KEY_CONTACTS_READ_TIMESTAMP));
+    }
+
     @SuppressLint("CommitPrefEdits")
     protected void setContactsUploaded(int count) {
         prefStore.save(prefStore.edit().putInt(KEY_CONTACTS_UPLOADED, count));
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import com.google.gson.Gson;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import retrofit.mime.TypedOutput;
+
+/**
+ * Request body of a contacts upload, serialized once so that retries don't serialize it
+ * again, and optionally gzip compressed.
+ *
+ * The body is either JSON with the vCards of the contacts, or hashed identifiers in binary: a
+ * version byte and the hash length in bytes, then for each contact the number of its
+ * identifiers in a byte followed by their hashes. A hash is the first {@link #HASH_LENGTH}
+ * bytes of the SHA-256 of the UTF-8 salt followed by the UTF-8 identifier.
+ */
+class ContactsUploadBody implements TypedOutput {
+    static final String GZIP_ENCODING = "gzip";
+    static final int HASHED_VERSION = 1;
+    static final int HASH_LENGTH = 8;
+    static final int MAX_HASHED_IDENTIFIERS = 0xFF;
+    private static final String MIME_TYPE = "application/json; charset=UTF-8";
+    private static final String HASHED_MIME_TYPE = "application/octet-stream";
+    private static final String CHARSET = "UTF-8";
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final Gson GSON = new Gson();
+
+    final boolean compressed;
+    final boolean hashed;
+    final int uncompressedLength;
+    private final byte[] bytes;
+
+    ContactsUploadBody(byte[] bytes, int uncompressedLength, boolean compressed) {
+        this(bytes, uncompressedLength, compressed, false);
+    }
+
+    ContactsUploadBody(byte[] bytes, int uncompressedLength, boolean compressed,
+            boolean hashed) {
+        this.bytes = bytes;
+        this.uncompressedLength = uncompressedLength;
+        this.compressed = compressed;
+        this.hashed = hashed;
+    }
+
+    static ContactsUploadBody create(Vcards vcards, boolean compress) throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final CountingOutputStream counter = new CountingOutputStream(
+                compress ? new GZIPOutputStream(buffer) : buffer);
+        final Writer writer = new OutputStreamWriter(counter, CHARSET);
+        GSON.toJson(vcards, Vcards.class, writer);
+        writer.close();
+        return new ContactsUploadBody(buffer.toByteArray(), counter.count, compress);
+    }
+
+    /**
+     * @param identifiers identifiers of each contact, each followed by a line feed, see
+     *                    {@link ContactsHelper#readContacts(ContactsHelper.Listener, int,
+     *                    boolean)}. Identifiers past {@link #MAX_HASHED_IDENTIFIERS} are
+     *                    dropped.
+     */
+    static ContactsUploadBody createHashed(List<String> identifiers, String salt,
+            boolean compress) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final byte[] saltBytes = salt.getBytes(CHARSET);
+
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final CountingOutputStream counter = new CountingOutputStream(
+                compress ? new GZIPOutputStream(buffer) : buffer);
+        counter.write(HASHED_VERSION);
+        counter.write(HASH_LENGTH);
+        for (String contactIdentifiers : identifiers) {
+            final int count = getHashedIdentifierCount(contactIdentifiers);
+            counter.write(count);
+            int start = 0;
+            for (int i = 0; i < count; i++) {
+                final int end = contactIdentifiers.indexOf('\n', start);
+                digest.update(saltBytes);
+                digest.update(contactIdentifiers.substring(start, end).getBytes(CHARSET));
+                counter.write(digest.digest(), 0, HASH_LENGTH);
+                start = end + 1;
+            }
+        }
+        counter.close();
+        return new ContactsUploadBody(buffer.toByteArray(), counter.count, compress, true);
+    }
+
+    /**
+     * Returns the number of bytes the identifiers of a contact take in the hashed request body.
+     */
+    static int hashedLength(CharSequence identifiers) {
+        return 1 + getHashedIdentifierCount(identifiers) * HASH_LENGTH;
+    }
+
+    private static int getHashedIdentifierCount(CharSequence identifiers) {
+        int count = 0;
+        final int length = identifiers.length();
+        for (int i = 0; i < length && count < MAX_HASHED_IDENTIFIERS; i++) {
+            if (identifiers.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the value of the Content-Encoding header, or null if the body isn't compressed.
+     */
+    String getContentEncoding() {
+        return compressed ? GZIP_ENCODING : null;
+    }
+
+    @Override
+    public String fileName() {
+        return null;
+    }
+
+    @Override
+    public String mimeType() {
+        return hashed ? HASHED_MIME_TYPE : MIME_TYPE;
+    }
+
+    @Override
+    public long length() {
+        return bytes.length;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes);
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        int count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import android.content.Context;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import io.fabric.sdk.android.Fabric;
+import io.fabric.sdk.android.services.common.CommonUtils;
+
+/**
+ * Journal of the contacts acknowledged by the server during an upload which did not complete
+ * yet. Every acknowledged page is appended as a checksummed record, so when the upload service
+ * is restarted after its process was killed, contacts already sent are not sent again.
+ *
+ * Like {@link ContactsFingerprintIndex} the journal is only trusted when it was written for
+ * the same user and contacts read timestamp. A torn last record is ignored.
+ */
+class ContactsUploadCheckpoint {
+    static final String FILE_NAME = "com.digits.sdk.android.contacts_upload_checkpoint";
+    private static final int MAGIC = 0x44435550;
+    private static final int VERSION = 1;
+
+    private final Context context;
+    private final Map<String, Long> fingerprints = new HashMap<>();
+    private DataOutputStream out;
+
+    ContactsUploadCheckpoint(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Replaces the content of the checkpoint with the persisted one.
+     *
+     * @return false if the checkpoint is missing, unreadable or was written for a different user
+     * or read timestamp. The checkpoint is left empty in that case.
+     */
+    synchronized boolean load(long userId, long readTimestamp) {
+        fingerprints.clear();
+
+        final File file = getFile();
+        if (!file.exists()) {
+            return false;
+        }
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != userId ||
+                    in.readLong() != readTimestamp) {
+                return false;
+            }
+
+            final Map<String, Long> record = new HashMap<>();
+            while (readRecord(in, record)) {
+                fingerprints.putAll(record);
+                record.clear();
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            Fabric.getLogger().w(Digits.TAG, "Contacts upload checkpoint could not be read", e);
+            fingerprints.clear();
+            return false;
+        } finally {
+            CommonUtils.closeOrLog(in, "Failed to close contacts upload checkpoint");
+        }
+    }
+
+    /**
+     * Returns false once the end of the journal or a torn record is reached.
+     */
+    private static boolean readRecord(DataInputStream in, Map<String, Long> record)
+            throws IOException {
+        final CRC32 crc = new CRC32();
+        try {
+            final int count = in.readInt();
+            if (count < 0) {
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                final String lookupKey = in.readUTF();
+                final long fingerprint = in.readLong();
+                record.put(lookupKey, fingerprint);
+                updateChecksum(crc, lookupKey, fingerprint);
+            }
+            return in.readLong() == crc.getValue();
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Rewrites the journal with the loaded contacts, dropping a torn last record, and keeps it
+     * open for {@link #append(ContactsPage)}.
+     */
+    synchronized boolean open(long userId, long readTimestamp) {
+        close();
+
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(getFile())));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(userId);
+            out.writeLong(readTimestamp);
+
+            final CRC32 crc = new CRC32();
+            out.writeInt(fingerprints.size());
+            for (Map.Entry<String, Long> entry : fingerprints.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+                updateChecksum(crc, entry.getKey(), entry.getValue());
+            }
+            out.writeLong(crc.getValue());
+            out.flush();
+            return true;
+        } catch (IOException e) {
+            Fabric.getLogger().w(Digits.TAG, "Contacts upload checkpoint could not be written",
+                    e);
+            close();
+            return false;
+        }
+    }
+
+    /**
+     * Records the contacts of an acknowledged page. Does nothing if the journal isn't open.
+     */
+    synchronized void append(ContactsPage page) {
+        for (int i = 0; i < page.size(); i++) {
+            fingerprints.put(page.lookupKeys.get(i), page.fingerprints[i]);
+        }
+        if (out == null) {
+            return;
+        }
+
+        try {
+            final CRC32 crc = new CRC32();
+            out.writeInt(page.size());
+            for (int i = 0; i < page.size(); i++) {
+                out.writeUTF(page.lookupKeys.get(i));
+                out.writeLong(page.fingerprints[i]);
+                updateChecksum(crc, page.lookupKeys.get(i), page.fingerprints[i]);
+            }
+            out.writeLong(crc.getValue());
+            out.flush();
+        } catch (IOException e) {
+            Fabric.getLogger().w(Digits.TAG, "Contacts upload checkpoint could not be written",
+                    e);
+            close();
+        }
+    }
+
+    synchronized void close() {
+        CommonUtils.closeOrLog(out, "Failed to close contacts upload checkpoint");
+        out = null;
+    }
+
+    /**
+     * Removes all contacts, including the persisted ones. Called once the upload completed.
+     */
+    synchronized void clear() {
+        close();
+        fingerprints.clear();
+        getFile().delete();
+    }
+
+    /**
+     * Returns true if the contact was acknowledged with the same fingerprint during the
+     * interrupted upload.
+     */
+    synchronized boolean isUploaded(String lookupKey, long fingerprint) {
+        final Long uploaded = fingerprints.get(lookupKey);
+        return uploaded != null && uploaded == fingerprint;
+    }
+
+    synchronized int size() {
+        return fingerprints.size();
+    }
+
+    File getFile() {
+        return new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    private static void updateChecksum(CRC32 crc, String lookupKey, long fingerprint) {
+        final int length = lookupKey.length();
+        for (int i = 0; i < length; i++) {
+            final char c = lookupKey.charAt(i);
+            crc.update(c >>> 8);
+            crc.update(c);
+        }
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (fingerprint >>> shift));
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+/**
+ * Options of contacts upload. Pages of contacts are uploaded concurrently. The number of pages
+ * in flight starts at {@link #initialConcurrentPages}, grows by one while requests complete
+ * faster than {@link #targetLatencyMillis}, and is halved on slow requests or when the server
+ * responds with HTTP 429 or 5xx.
+ *
+ * A page holds up to {@link ContactsClient#MAX_PAGE_SIZE} contacts, and is cut earlier once its
+ * request body reaches {@link #maxPageBytes}.
+ *
+ * Contacts are read on the upload thread. Their vCards are built there too, or by a pool of
+ * {@link #vCardThreads} threads for large address books on multi-core devices. Contacts are
+ * uploaded in the same order either way.
+ *
+ * With a {@link #hashedIdentifiersSalt}, only the phone numbers and emails of contacts are
+ * uploaded, as salted hashes in a compact binary body, instead of their full vCards.
+ */
+public class ContactsUploadOptions implements Parcelable {
+    static final int DEFAULT_MAX_CONCURRENT_PAGES = 4;
+    static final int DEFAULT_INITIAL_CONCURRENT_PAGES = 2;
+    static final int DEFAULT_MAX_RETRIES = 3;
+    static final long DEFAULT_TARGET_LATENCY_MILLIS = 5000;
+    static final int DEFAULT_MAX_PAGE_BYTES = 64 * 1024;
+    static final int DEFAULT_VCARD_THREADS = 1;
+
+    /**
+     * Maximum number of pages uploaded at the same time.
+     */
+    public final int maxConcurrentPages;
+    /**
+     * Number of pages uploaded at the same time when the upload starts.
+     */
+    public final int initialConcurrentPages;
+    /**
+     * Number of times a page is retried after a network error, HTTP 429 or 5xx.
+     */
+    public final int maxRetries;
+    /**
+     * Upload time of a page above which fewer pages are uploaded at the same time.
+     */
+    public final long targetLatencyMillis;
+    /**
+     * Size of the uncompressed request body above which a page is cut. A contact larger than
+     * that is sent alone.
+     */
+    public final int maxPageBytes;
+    /**
+     * Whether request bodies are gzip compressed.
+     */
+    public final boolean gzipEnabled;
+    /**
+     * Number of threads building vCards. With 1 they are built on the upload thread.
+     */
+    public final int vCardThreads;
+    /**
+     * Salt of the hashes of phone numbers and emails uploaded instead of vCards, or null if
+     * vCards are uploaded.
+     */
+    public final String hashedIdentifiersSalt;
+
+    ContactsUploadOptions(int maxConcurrentPages, int initialConcurrentPages, int maxRetries,
+            long targetLatencyMillis, int maxPageBytes, boolean gzipEnabled, int vCardThreads,
+            String hashedIdentifiersSalt) {
+        this.maxConcurrentPages = maxConcurrentPages;
+        this.initialConcurrentPages = initialConcurrentPages;
+        this.maxRetries = maxRetries;
+        this.targetLatencyMillis = targetLatencyMillis;
+        this.maxPageBytes = maxPageBytes;
+        this.gzipEnabled = gzipEnabled;
+        this.vCardThreads = vCardThreads;
+        this.hashedIdentifiersSalt = hashedIdentifiersSalt;
+    }
+
+    ContactsUploadOptions(Parcel parcel) {
+        this.maxConcurrentPages = parcel.readInt();
+        this.initialConcurrentPages = parcel.readInt();
+        this.maxRetries = parcel.readInt();
+        this.targetLatencyMillis = parcel.readLong();
+        this.maxPageBytes = parcel.readInt();
+        this.gzipEnabled = parcel.readByte() != 0;
+        this.vCardThreads = parcel.readInt();
+        this.hashedIdentifiersSalt = parcel.readString();
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel parcel, int flags) {
+        parcel.writeInt(maxConcurrentPages);
+        parcel.writeInt(initialConcurrentPages);
+        parcel.writeInt(maxRetries);
+        parcel.writeLong(targetLatencyMillis);
+        parcel.writeInt(maxPageBytes);
+        parcel.writeByte((byte) (gzipEnabled ? 1 : 0));
+        parcel.writeInt(vCardThreads);
+        parcel.writeString(hashedIdentifiersSalt);
+    }
+
+    public static final Parcelable.Creator<ContactsUploadOptions> CREATOR
+            = new Parcelable.Creator<ContactsUploadOptions>() {
+        public ContactsUploadOptions createFromParcel(Parcel in) {
+            return new ContactsUploadOptions(in);
+        }
+
+        public ContactsUploadOptions[] newArray(int size) {
+            return new ContactsUploadOptions[size];
+        }
+    };
+
+    /**
+     * Builds {@link ContactsUploadOptions}, unset options keep their default value.
+     */
+    public static class Builder {
+        private int maxConcurrentPages = DEFAULT_MAX_CONCURRENT_PAGES;
+        private int initialConcurrentPages = DEFAULT_INITIAL_CONCURRENT_PAGES;
+        private int maxRetries = DEFAULT_MAX_RETRIES;
+        private long targetLatencyMillis = DEFAULT_TARGET_LATENCY_MILLIS;
+        private int maxPageBytes = DEFAULT_MAX_PAGE_BYTES;
+        private boolean gzipEnabled;
+        private int vCardThreads = DEFAULT_VCARD_THREADS;
+        private String hashedIdentifiersSalt;
+
+        /**
+         * @param maxConcurrentPages maximum number of pages uploaded at the same time. Min
+         *                           value is 1. Default value is 4.
+         */
+        public Builder setMaxConcurrentPages(int maxConcurrentPages) {
+            if (maxConcurrentPages < 1) {
+                throw new IllegalArgumentException("maxConcurrentPages must be at least 1");
+            }
+            this.maxConcurrentPages = maxConcurrentPages;
+            return this;
+        }
+
+        /**
+         * @param initialConcurrentPages number of pages uploaded at the same time when the upload
+         *                               starts. Min value is 1. Default value is 2. Values above
+         *                               the maximum number of pages are capped.
+         */
+        public Builder setInitialConcurrentPages(int initialConcurrentPages) {
+            if (initialConcurrentPages < 1) {
+                throw new IllegalArgumentException("initialConcurrentPages must be at least 1");
+            }
+            this.initialConcurrentPages = initialConcurrentPages;
+            return this;
+        }
+
+        /**
+         * @param maxRetries number of times a page is retried. Min value is 0. Default value is 3.
+         */
+        public Builder setMaxRetries(int maxRetries) {
+            if (maxRetries < 0) {
+                throw new IllegalArgumentException("maxRetries must not be negative");
+            }
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /**
+         * @param targetLatencyMillis upload time of a page above which fewer pages are uploaded
+         *                            at the same time. Default value is 5000.
+         */
+        public Builder setTargetLatencyMillis(long targetLatencyMillis) {
+            if (targetLatencyMillis <= 0) {
+                throw new IllegalArgumentException("targetLatencyMillis must be positive");
+            }
+            this.targetLatencyMillis = targetLatencyMillis;
+            return this;
+        }
+
+        /**
+         * @param maxPageBytes size of the uncompressed request body above which a page is cut.
+         *                     Min value is 1. Default value is 65536.
+         */
+        public Builder setMaxPageBytes(int maxPageBytes) {
+            if (maxPageBytes < 1) {
+                throw new IllegalArgumentException("maxPageBytes must be at least 1");
+            }
+            this.maxPageBytes = maxPageBytes;
+            return this;
+        }
+
+        /**
+         * @param gzipEnabled whether request bodies are gzip compressed. Default value is false.
+         */
+        public Builder setGzipEnabled(boolean gzipEnabled) {
+            this.gzipEnabled = gzipEnabled;
+            return this;
+        }
+
+        /**
+         * @param vCardThreads number of threads building vCards, e.g. the number of available
+         *                     processors. Min value is 1. Default value is 1, vCards are built
+         *                     on the upload thread.
+         */
+        public Builder setVCardThreads(int vCardThreads) {
+            if (vCardThreads < 1) {
+                throw new IllegalArgumentException("vCardThreads must be at least 1");
+            }
+            this.vCardThreads = vCardThreads;
+            return this;
+        }
+
+        /**
+         * @param hashedIdentifiersSalt salt of the hashes of phone numbers and emails uploaded
+         *                              instead of vCards, shared by every install of the app
+         *                              so that contacts can be matched. Default value is null,
+         *                              vCards are uploaded.
+         */
+        public Builder setHashedIdentifiersSalt(String hashedIdentifiersSalt) {
+            if (hashedIdentifiersSalt != null && hashedIdentifiersSalt.length() == 0) {
+                throw new IllegalArgumentException("hashedIdentifiersSalt must not be empty");
+            }
+            this.hashedIdentifiersSalt = hashedIdentifiersSalt;
+            return this;
+        }
+
+        public ContactsUploadOptions build() {
+            return new ContactsUploadOptions(maxConcurrentPages,
+                    Math.min(initialConcurrentPages, maxConcurrentPages), maxRetries,
+                    targetLatencyMillis, maxPageBytes, gzipEnabled, vCardThreads,
+                    hashedIdentifiersSalt);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+/**
+ * Progress of a running contacts upload.
+ */
+public class ContactsUploadProgress implements Parcelable {
+    public static final long UNKNOWN_REMAINING_TIME = -1;
+
+    /**
+     * Number of pages acknowledged by the server.
+     */
+    public final int pagesSent;
+    /**
+     * Number of contacts acknowledged by the server.
+     */
+    public final int contactsSent;
+    /**
+     * Size of the request bodies acknowledged by the server, as sent.
+     */
+    public final long bytesSent;
+    /**
+     * Estimated time until the upload completes, or {@link #UNKNOWN_REMAINING_TIME}.
+     */
+    public final long estimatedRemainingMillis;
+
+    ContactsUploadProgress(int pagesSent, int contactsSent, long bytesSent,
+            long estimatedRemainingMillis) {
+        this.pagesSent = pagesSent;
+        this.contactsSent = contactsSent;
+        this.bytesSent = bytesSent;
+        this.estimatedRemainingMillis = estimatedRemainingMillis;
+    }
+
+    ContactsUploadProgress(Parcel parcel) {
+        this.pagesSent = parcel.readInt();
+        this.contactsSent = parcel.readInt();
+        this.bytesSent = parcel.readLong();
+        this.estimatedRemainingMillis = parcel.readLong();
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel parcel, int flags) {
+        parcel.writeInt(pagesSent);
+        parcel.writeInt(contactsSent);
+        parcel.writeLong(bytesSent);
+        parcel.writeLong(estimatedRemainingMillis);
+    }
+
+    public static final Parcelable.Creator<ContactsUploadProgress> CREATOR
+            = new Parcelable.Creator<ContactsUploadProgress>() {
+        public ContactsUploadProgress createFromParcel(Parcel in) {
+            return new ContactsUploadProgress(in);
+        }
+
+        public ContactsUploadProgress[] newArray(int size) {
+            return new ContactsUploadProgress[size];
+        }
+    };
+}
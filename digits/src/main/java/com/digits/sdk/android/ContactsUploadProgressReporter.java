@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accumulates the progress of a contacts upload and publishes it at most once per interval.
+ * Updates received in between are coalesced into the next published progress.
+ */
+class ContactsUploadProgressReporter {
+    private final Publisher publisher;
+    private final long intervalNanos;
+    private final int estimatedTotalCount;
+    private final long startTime;
+
+    private long lastPublishTime;
+    private boolean published;
+    private boolean pending;
+    private int pagesSent;
+    private int contactsSent;
+    private int contactsSkipped;
+    private long bytesSent;
+
+    /**
+     * @param estimatedTotalCount number of contacts expected to be uploaded or skipped, used to
+     *                            estimate the remaining time. Unknown if not positive.
+     */
+    ContactsUploadProgressReporter(Publisher publisher, long intervalMillis,
+            int estimatedTotalCount) {
+        this.publisher = publisher;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.estimatedTotalCount = estimatedTotalCount;
+        this.startTime = System.nanoTime();
+    }
+
+    /**
+     * Records contacts which didn't need to be sent.
+     */
+    synchronized void onContactsSkipped(int count) {
+        contactsSkipped += count;
+        onUpdate();
+    }
+
+    synchronized void onPageUploaded(int contactCount, long bytes) {
+        pagesSent++;
+        contactsSent += contactCount;
+        bytesSent += bytes;
+        onUpdate();
+    }
+
+    /**
+     * Publishes the progress if updates were coalesced since the last one was published.
+     */
+    synchronized void flush() {
+        if (pending) {
+            publish(System.nanoTime());
+        }
+    }
+
+    private void onUpdate() {
+        final long now = System.nanoTime();
+        if (!published || now - lastPublishTime >= intervalNanos) {
+            publish(now);
+        } else {
+            pending = true;
+        }
+    }
+
+    private void publish(long now) {
+        published = true;
+        pending = false;
+        lastPublishTime = now;
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(now - startTime);
+        publisher.publish(new ContactsUploadProgress(pagesSent, contactsSent, bytesSent,
+                estimateRemainingMillis(elapsedMillis, contactsSent + contactsSkipped,
+                        estimatedTotalCount)));
+    }
+
+    /**
+     * Extrapolates the time spent on the contacts done so far to the remaining ones.
+     */
+    static long estimateRemainingMillis(long elapsedMillis, int doneCount, int totalCount) {
+        if (doneCount <= 0 || totalCount <= 0) {
+            return ContactsUploadProgress.UNKNOWN_REMAINING_TIME;
+        }
+        final int remainingCount = Math.max(0, totalCount - doneCount);
+        return elapsedMillis * remainingCount / doneCount;
+    }
+
+    interface Publisher {
+        void publish(ContactsUploadProgress progress);
+    }
+}
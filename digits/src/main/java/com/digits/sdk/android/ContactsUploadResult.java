@@ -26,15 +26,53 @@ import android.os.Parcelable;
 public class ContactsUploadResult implements Parcelable {
     public final int successCount;
     public final int totalCount;
+    /**
+     * Number of contacts not sent because they did not change since the last upload.
+     */
+    public final int skippedCount;
+    /**
+     * Number of contacts read from the address book, including the ones without phone or email.
+     */
+    public final int scannedCount;
+    /**
+     * Number of contacts not sent because they were already uploaded by an upload which was
+     * interrupted, for example when the app process was killed. Contacts sent by this upload are
+     * counted in {@link #successCount}.
+     */
+    public final int resumedCount;
+    /**
+     * Size of the uploaded request bodies before compression.
+     */
+    public final long uncompressedBytes;
+    /**
+     * Size of the uploaded request bodies as sent, equal to {@link #uncompressedBytes} when
+     * compression is disabled in {@link ContactsUploadOptions}.
+     */
+    public final long compressedBytes;
 
     ContactsUploadResult(int successCount, int totalCount) {
+        this(successCount, totalCount, 0, totalCount, 0, 0, 0);
+    }
+
+    ContactsUploadResult(int successCount, int totalCount, int skippedCount, int scannedCount,
+            int resumedCount, long uncompressedBytes, long compressedBytes) {
         this.successCount = successCount;
         this.totalCount = totalCount;
+        this.skippedCount = skippedCount;
+        this.scannedCount = scannedCount;
+        this.resumedCount = resumedCount;
+        this.uncompressedBytes = uncompressedBytes;
+        this.compressedBytes = compressedBytes;
     }
 
     ContactsUploadResult(Parcel parcel) {
         this.successCount = parcel.readInt();
         this.totalCount = parcel.readInt();
+        this.skippedCount = parcel.readInt();
+        this.scannedCount = parcel.readInt();
+        this.resumedCount = parcel.readInt();
+        this.uncompressedBytes = parcel.readLong();
+        this.compressedBytes = parcel.readLong();
     }
 
     @Override
@@ -46,6 +84,11 @@ public class ContactsUploadResult implements Parcelable {
     public void writeToParcel(Parcel parcel, int flags) {
         parcel.writeInt(successCount);
         parcel.writeInt(totalCount);
+        parcel.writeInt(skippedCount);
+        parcel.writeInt(scannedCount);
+        parcel.writeInt(resumedCount);
+        parcel.writeLong(uncompressedBytes);
+        parcel.writeLong(compressedBytes);
     }
 
     public static final Parcelable.Creator<ContactsUploadResult> CREATOR
@@ -19,57 +19,57 @@ package com.digits.sdk.android;
 
 import android.app.IntentService;
 import android.content.Intent;
-import android.database.Cursor;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
-
-import io.fabric.sdk.android.services.concurrency.internal.DefaultRetryPolicy;
-import io.fabric.sdk.android.services.concurrency.internal.ExponentialBackoff;
-import io.fabric.sdk.android.services.concurrency.internal.RetryThreadPoolExecutor;
+import java.util.HashSet;
+import java.util.Set;
 
 public class ContactsUploadService extends IntentService {
     private static final String THREAD_NAME = "UPLOAD_WORKER";
-    private static final int TIMEOUT_IN_SECONDS = 300;
     public static final String UPLOAD_COMPLETE = "com.digits.sdk.android.UPLOAD_COMPLETE";
     public static final String UPLOAD_COMPLETE_EXTRA = "com.digits.sdk.android.UPLOAD_COMPLETE_EXTRA";
     public static final String UPLOAD_FAILED = "com.digits.sdk.android.UPLOAD_FAILED";
-    private static final int MAX_RETRIES = 1;
-    private static final int CORE_THREAD_POOL_SIZE = 2;
-    private static final int INITIAL_BACKOFF_MS = 1000;
+    public static final String UPLOAD_PROGRESS = "com.digits.sdk.android.UPLOAD_PROGRESS";
+    public static final String UPLOAD_PROGRESS_EXTRA =
+            "com.digits.sdk.android.UPLOAD_PROGRESS_EXTRA";
+    /**
+     * Minimum time between two progress broadcasts, progress in between is coalesced.
+     */
+    public static final long PROGRESS_INTERVAL_MILLIS = 500;
+    static final String UPLOAD_OPTIONS_EXTRA = "com.digits.sdk.android.UPLOAD_OPTIONS_EXTRA";
     private ContactsClient contactsClient;
     private ContactsHelper helper;
     private ContactsPreferenceManager prefManager;
-    private RetryThreadPoolExecutor executor;
+    private ContactsFingerprintIndex fingerprintIndex;
+    private ContactsUploadCheckpoint checkpoint;
 
     public ContactsUploadService() {
         super(THREAD_NAME);
 
         init(Digits.getInstance().getContactsClient(), new ContactsHelper(this),
-                new ContactsPreferenceManager(),
-                new RetryThreadPoolExecutor(CORE_THREAD_POOL_SIZE,
-                        new DefaultRetryPolicy(MAX_RETRIES),
-                        new ExponentialBackoff(INITIAL_BACKOFF_MS)));
+                new ContactsPreferenceManager(), new ContactsFingerprintIndex(this),
+                new ContactsUploadCheckpoint(this));
     }
 
     /*
      * Testing only
      */
     ContactsUploadService(ContactsClient contactsClient, ContactsHelper helper,
-                          ContactsPreferenceManager prefManager, RetryThreadPoolExecutor executor) {
+                          ContactsPreferenceManager prefManager,
+                          ContactsFingerprintIndex fingerprintIndex,
+                          ContactsUploadCheckpoint checkpoint) {
         super(THREAD_NAME);
 
-        init(contactsClient, helper, prefManager, executor);
+        init(contactsClient, helper, prefManager, fingerprintIndex, checkpoint);
     }
 
     private void init(ContactsClient contactsClient, ContactsHelper helper,
-              ContactsPreferenceManager prefManager, RetryThreadPoolExecutor executor) {
+              ContactsPreferenceManager prefManager, ContactsFingerprintIndex fingerprintIndex,
+              ContactsUploadCheckpoint checkpoint) {
         this.contactsClient = contactsClient;
         this.helper = helper;
         this.prefManager = prefManager;
-        this.executor = executor;
+        this.fingerprintIndex = fingerprintIndex;
+        this.checkpoint = checkpoint;
 
         setIntentRedelivery(true);
     }
@@ -80,63 +80,72 @@ public class ContactsUploadService extends IntentService {
 
         //noinspection TryWithIdenticalCatches
         try {
-            final List<String> allCards = getAllCards();
-            final int totalCount = allCards.size();
-            final int pages = getNumberOfPages(totalCount);
-            final AtomicInteger successCount = new AtomicInteger(0);
-
-            for (int i = 0; i < pages; i++) {
-                final int startIndex = i * ContactsClient.MAX_PAGE_SIZE;
-                final int endIndex = Math.min(totalCount, startIndex +
-                        ContactsClient.MAX_PAGE_SIZE);
-
-                final List<String> subList = allCards.subList(startIndex, endIndex);
-                final Vcards vCards = new Vcards(subList);
-                executor.scheduleWithRetry(new Runnable() {
-                    @Override
-                    public void run() {
-                        contactsClient.uploadContacts(vCards);
-                        successCount.addAndGet(vCards.vcards.size());
-                    }
-                });
-            }
+            final long userId = getActiveUserId();
+            final long previousReadTimestamp = prefManager.getContactsReadTimestamp();
 
-            executor.shutdown();
-            final boolean success = executor.awaitTermination(TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+            // Only contacts added or changed since the last upload are sent. If the index
+            // can't be loaded it's empty, so every contact is sent.
+            fingerprintIndex.load(userId, previousReadTimestamp);
+            // Contacts acknowledged before the process running an interrupted upload of the
+            // same user was killed aren't sent again either.
+            checkpoint.load(userId, previousReadTimestamp);
+            checkpoint.open(userId, previousReadTimestamp);
 
-            if (!success) {
-                executor.shutdownNow();
-                sendFailureBroadcast();
-            } else if (successCount.get() == 0) {
+            final ContactsUploadOptions options = getUploadOptions(intent);
+            final ContactsUploadProgressReporter progressReporter =
+                    new ContactsUploadProgressReporter(new ProgressPublisher(),
+                            PROGRESS_INTERVAL_MILLIS, helper.getContactCount());
+            final boolean hashed = options.hashedIdentifiersSalt != null;
+            final PageScheduler scheduler = new PageScheduler(
+                    createUploader(options, new FingerprintRecorder(progressReporter)),
+                    options.maxPageBytes, options.hashedIdentifiersSalt, progressReporter);
+            final int scannedCount;
+            try {
+                scannedCount = helper.readContacts(scheduler, options.vCardThreads, hashed);
+                scheduler.flush();
+                scheduler.uploader.awaitCompletion();
+            } finally {
+                scheduler.uploader.shutdown();
+                checkpoint.close();
+            }
+
+            final int successCount = scheduler.uploader.getSuccessCount();
+            if (successCount == 0 && (scheduler.changedCount > 0 || scheduler.totalCount == 0)) {
                 sendFailureBroadcast();
             } else {
-                prefManager.setContactsReadTimestamp(System.currentTimeMillis());
-                prefManager.setContactsUploaded(successCount.get());
-                sendSuccessBroadcast(new ContactsUploadResult(successCount.get(), totalCount));
+                final long readTimestamp = System.currentTimeMillis();
+                prefManager.setContactsReadTimestamp(readTimestamp);
+                prefManager.setContactsUploaded(successCount + scheduler.skippedCount +
+                        scheduler.resumedCount);
+                fingerprintIndex.retainAll(scheduler.lookupKeys);
+                fingerprintIndex.save(userId, readTimestamp);
+                checkpoint.clear();
+                contactsClient.invalidateContactMatches();
+                progressReporter.flush();
+                sendSuccessBroadcast(new ContactsUploadResult(successCount,
+                        scheduler.totalCount, scheduler.skippedCount, scannedCount,
+                        scheduler.resumedCount, scheduler.uploader.getUncompressedBytes(),
+                        scheduler.uploader.getCompressedBytes()));
             }
         } catch (Exception ex) {
             sendFailureBroadcast();
         }
     }
 
-    int getNumberOfPages(int numCards) {
-        return (numCards + ContactsClient.MAX_PAGE_SIZE - 1) / ContactsClient.MAX_PAGE_SIZE;
+    ContactsPageUploader createUploader(ContactsUploadOptions options,
+            ContactsPageUploader.Listener listener) {
+        return new ContactsPageUploader(contactsClient, options, listener);
     }
 
-    private List<String> getAllCards() {
-        Cursor cursor = null;
-        List<String> allCards = Collections.<String>emptyList();
-
-        try {
-            cursor = helper.getContactsCursor();
-            allCards = helper.createContactList(cursor);
-        } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
-        }
+    private ContactsUploadOptions getUploadOptions(Intent intent) {
+        final ContactsUploadOptions options = intent == null ? null :
+                intent.<ContactsUploadOptions>getParcelableExtra(UPLOAD_OPTIONS_EXTRA);
+        return options == null ? new ContactsUploadOptions.Builder().build() : options;
+    }
 
-        return allCards;
+    long getActiveUserId() {
+        final DigitsSession session = Digits.getSessionManager().getActiveSession();
+        return session == null ? DigitsSession.UNKNOWN_USER_ID : session.getId();
     }
 
     void sendFailureBroadcast() {
@@ -144,9 +153,123 @@ public class ContactsUploadService extends IntentService {
         sendBroadcast(localIntent);
     }
 
+    void sendProgressBroadcast(ContactsUploadProgress extra) {
+        final Intent localIntent = new Intent(UPLOAD_PROGRESS);
+        localIntent.putExtra(UPLOAD_PROGRESS_EXTRA, extra);
+        sendBroadcast(localIntent);
+    }
+
     void sendSuccessBroadcast(ContactsUploadResult extra) {
         final Intent localIntent = new Intent(UPLOAD_COMPLETE);
         localIntent.putExtra(UPLOAD_COMPLETE_EXTRA, extra);
         sendBroadcast(localIntent);
     }
+
+    /**
+     * Records the fingerprints of acknowledged contacts, and checkpoints them in case the upload
+     * is interrupted.
+     */
+    private class FingerprintRecorder implements ContactsPageUploader.Listener {
+        final ContactsUploadProgressReporter progressReporter;
+
+        FingerprintRecorder(ContactsUploadProgressReporter progressReporter) {
+            this.progressReporter = progressReporter;
+        }
+
+        @Override
+        public void onPageUploaded(ContactsPage page, ContactsUploadBody body) {
+            for (int i = 0; i < page.size(); i++) {
+                fingerprintIndex.put(page.lookupKeys.get(i), page.fingerprints[i]);
+            }
+            checkpoint.append(page);
+            progressReporter.onPageUploaded(page.size(), body.length());
+        }
+    }
+
+    /**
+     * Broadcasts progress and hands it to the listeners registered on {@link ContactsClient}.
+     */
+    private class ProgressPublisher implements ContactsUploadProgressReporter.Publisher {
+        @Override
+        public void publish(ContactsUploadProgress progress) {
+            sendProgressBroadcast(progress);
+            contactsClient.notifyUploadProgress(progress);
+        }
+    }
+
+    /**
+     * Collects changed contacts into pages bounded by count and size, and hands them to the
+     * uploader, which blocks while too many pages are in flight. Contacts are read as vCards,
+     * or as identifiers when they are uploaded hashed.
+     */
+    private class PageScheduler implements ContactsHelper.Listener {
+        final Set<String> lookupKeys = new HashSet<>();
+        final ContactsPageUploader uploader;
+        final int maxPageBytes;
+        final String hashedIdentifiersSalt;
+        final boolean hashed;
+        final ContactsUploadProgressReporter progressReporter;
+        ContactsPage page;
+        int totalCount;
+        int changedCount;
+        int skippedCount;
+        int resumedCount;
+
+        PageScheduler(ContactsPageUploader uploader, int maxPageBytes,
+                String hashedIdentifiersSalt, ContactsUploadProgressReporter progressReporter) {
+            this.uploader = uploader;
+            this.maxPageBytes = maxPageBytes;
+            this.hashedIdentifiersSalt = hashedIdentifiersSalt;
+            this.hashed = hashedIdentifiersSalt != null;
+            this.progressReporter = progressReporter;
+            this.page = new ContactsPage(ContactsClient.MAX_PAGE_SIZE, maxPageBytes);
+        }
+
+        @Override
+        public void onContact(String lookupKey, CharSequence vCard) {
+            totalCount++;
+            lookupKeys.add(lookupKey);
+
+            // The salt is part of the fingerprint, so that contacts whose hashes were uploaded
+            // with another salt are uploaded again.
+            final long fingerprint =
+                    ContactsFingerprintIndex.fingerprint(vCard, hashedIdentifiersSalt);
+            if (checkpoint.isUploaded(lookupKey, fingerprint)) {
+                resumedCount++;
+                fingerprintIndex.put(lookupKey, fingerprint);
+                progressReporter.onContactsSkipped(1);
+                return;
+            }
+            if (fingerprintIndex.isUnchanged(lookupKey, fingerprint)) {
+                skippedCount++;
+                progressReporter.onContactsSkipped(1);
+                return;
+            }
+
+            changedCount++;
+            final int length = hashed ? ContactsUploadBody.hashedLength(vCard) :
+                    ContactsPage.jsonLength(vCard);
+            if (!page.canAdd(length)) {
+                flush();
+            }
+            page.add(lookupKey, vCard.toString(), fingerprint, length);
+            if (page.isFull()) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (page.isEmpty()) {
+                return;
+            }
+
+            try {
+                uploader.upload(page);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            page = new ContactsPage(ContactsClient.MAX_PAGE_SIZE, maxPageBytes);
+        }
+    }
 }
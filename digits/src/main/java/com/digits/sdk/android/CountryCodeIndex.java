@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import java.util.Arrays;
+
+/**
+ * Calling codes indexed by ISO code, and the main {@link CountryMetadata} entry by calling code,
+ * built once per process on first use. The tables are arrays indexed by the letters of the ISO
+ * code and by the calling code, so lookups are a few array reads that don't allocate and are
+ * safe on the UI thread.
+ */
+final class CountryCodeIndex {
+    static final int MAX_CALLING_CODE_LENGTH = 3;
+    private static final int MAX_CALLING_CODE = 999;
+    private static final int LETTERS = 26;
+
+    private final CountryMetadata metadata;
+    private final int[] callingCodeByIso = new int[LETTERS * LETTERS];
+    private final int[] mainEntryByCallingCode = new int[MAX_CALLING_CODE + 1];
+
+    static CountryCodeIndex getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    CountryCodeIndex(CountryMetadata metadata) {
+        this.metadata = metadata;
+        Arrays.fill(mainEntryByCallingCode, -1);
+        for (int entry = 0; entry < metadata.size(); entry++) {
+            final int callingCode = metadata.getCallingCode(entry);
+            final int index = getIsoIndex(metadata.getRegion(entry));
+            if (index >= 0) {
+                callingCodeByIso[index] = callingCode;
+            }
+            if (metadata.isMainRegion(entry) && callingCode > 0 &&
+                    callingCode <= MAX_CALLING_CODE) {
+                mainEntryByCallingCode[callingCode] = entry;
+            }
+        }
+    }
+
+    /**
+     * Returns the calling code of the two letter ISO code, in any case, or 0 if unknown.
+     */
+    int getCallingCode(String countryIso) {
+        final int index = getIsoIndex(countryIso);
+        return index < 0 ? 0 : callingCodeByIso[index];
+    }
+
+    /**
+     * Returns the main region of the calling code, e.g. US for 1, or null if unknown.
+     */
+    String getMainRegion(int callingCode) {
+        final int entry = getMainEntry(callingCode);
+        return entry < 0 ? null : metadata.getRegion(entry);
+    }
+
+    /**
+     * Returns the {@link CountryMetadata} entry of the main region of the calling code, or -1 if
+     * unknown.
+     */
+    int getMainEntry(int callingCode) {
+        if (callingCode <= 0 || callingCode > MAX_CALLING_CODE) {
+            return -1;
+        }
+        return mainEntryByCallingCode[callingCode];
+    }
+
+    CountryMetadata getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Returns the longest calling code the digits at start are prefixed with, or 0 if none.
+     * Each digit read moves one level down the tree of calling codes, so at most
+     * {@link #MAX_CALLING_CODE_LENGTH} table reads are done.
+     */
+    int findCallingCode(CharSequence phoneNumber, int start) {
+        int prefix = 0;
+        int callingCode = 0;
+        final int end = Math.min(phoneNumber.length(), start + MAX_CALLING_CODE_LENGTH);
+        for (int i = start; i < end; i++) {
+            final char c = phoneNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            prefix = prefix * 10 + c - '0';
+            if (mainEntryByCallingCode[prefix] >= 0) {
+                callingCode = prefix;
+            }
+        }
+        return callingCode;
+    }
+
+    private static int getIsoIndex(String countryIso) {
+        if (countryIso == null || countryIso.length() != 2) {
+            return -1;
+        }
+        final int first = getLetterIndex(countryIso.charAt(0));
+        final int second = getLetterIndex(countryIso.charAt(1));
+        return first < 0 || second < 0 ? -1 : first * LETTERS + second;
+    }
+
+    private static int getLetterIndex(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        return -1;
+    }
+
+    private static class Holder {
+        static final CountryCodeIndex INSTANCE =
+                new CountryCodeIndex(CountryMetadata.getInstance());
+    }
+}
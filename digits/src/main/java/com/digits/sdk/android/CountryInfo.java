@@ -17,20 +17,45 @@
 
 package com.digits.sdk.android;
 
+import java.text.CollationKey;
 import java.text.Collator;
 import java.util.Locale;
 
 class CountryInfo implements Comparable<CountryInfo> {
-    private final Collator collator;
+    private static Locale collatorLocale;
+    private static Collator collator;
+
+    private final CollationKey collationKey;
     public final String country;
     public final int countryCode;
+    /**
+     * ISO 3166-1 two-letter code of the country, or null if unknown.
+     */
+    final String region;
 
     public CountryInfo(String country, int countryCode) {
-        collator = Collator.getInstance(Locale.getDefault());
-        collator.setStrength(Collator.PRIMARY);
+        this(country, countryCode, null);
+    }
 
+    CountryInfo(String country, int countryCode, String region) {
+        this.collationKey = getCollationKey(country);
         this.country = country;
         this.countryCode = countryCode;
+        this.region = region;
+    }
+
+    /**
+     * Keys are made by one collator of the default locale shared by all instances, and compare
+     * as bytes, so sorting doesn't collate the names again on each comparison.
+     */
+    private static synchronized CollationKey getCollationKey(String country) {
+        final Locale locale = Locale.getDefault();
+        if (collator == null || !locale.equals(collatorLocale)) {
+            collator = Collator.getInstance(locale);
+            collator.setStrength(Collator.PRIMARY);
+            collatorLocale = locale;
+        }
+        return collator.getCollationKey(country == null ? "" : country);
     }
 
     @Override
@@ -61,6 +86,6 @@ class CountryInfo implements Comparable<CountryInfo> {
 
     @Override
     public int compareTo(CountryInfo info) {
-        return collator.compare(country, info.country);
+        return collationKey.compareTo(info.collationKey);
     }
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A sorted list of countries with its alphabetic sections and search index, computed once so
+ * that it can be shown as soon as it's needed.
+ */
+final class CountryList {
+    private final List<CountryInfo> countries;
+    private final String[] sections;
+    private final int[] sectionPositions;
+    private final Map<String, Integer> positionByCountry;
+    /**
+     * Search keys sorted so that the keys starting with a prefix are contiguous, with the
+     * position of their country at the same index.
+     */
+    private final String[] searchKeys;
+    private final int[] searchPositions;
+
+    /**
+     * @param countries sorted using locale-sensitive string comparison
+     */
+    CountryList(List<CountryInfo> countries) {
+        this.countries = Collections.unmodifiableList(new ArrayList<>(countries));
+        this.positionByCountry = new HashMap<>(countries.size() * 2);
+
+        final Map<String, Integer> alphaIndex = new LinkedHashMap<>();
+        int index = 0;
+        for (CountryInfo countryInfo : countries) {
+            final String key = countryInfo.country.substring(0, 1).toUpperCase(Locale.getDefault());
+            if (!alphaIndex.containsKey(key)) {
+                alphaIndex.put(key, index);
+            }
+            positionByCountry.put(countryInfo.country, index);
+            index++;
+        }
+
+        sections = new String[alphaIndex.size()];
+        sectionPositions = new int[alphaIndex.size()];
+        int section = 0;
+        for (Map.Entry<String, Integer> entry : alphaIndex.entrySet()) {
+            sections[section] = entry.getKey();
+            sectionPositions[section] = entry.getValue();
+            section++;
+        }
+
+        final List<SearchKey> keys = createSearchKeys(countries);
+        searchKeys = new String[keys.size()];
+        searchPositions = new int[keys.size()];
+        for (int i = 0; i < searchKeys.length; i++) {
+            searchKeys[i] = keys.get(i).key;
+            searchPositions[i] = keys.get(i).position;
+        }
+    }
+
+    /**
+     * Indexes each country by its name, each word of its name, its ISO code and its calling
+     * code as "+1", all in lower case.
+     */
+    private static List<SearchKey> createSearchKeys(List<CountryInfo> countries) {
+        final Locale locale = Locale.getDefault();
+        final List<SearchKey> keys = new ArrayList<>(countries.size() * 4);
+        for (int position = 0; position < countries.size(); position++) {
+            final CountryInfo countryInfo = countries.get(position);
+            final String name = countryInfo.country.toLowerCase(locale);
+            keys.add(new SearchKey(name, position));
+            for (int i = 1; i < name.length(); i++) {
+                if (!Character.isLetterOrDigit(name.charAt(i - 1))
+                        && Character.isLetterOrDigit(name.charAt(i))) {
+                    keys.add(new SearchKey(name.substring(i), position));
+                }
+            }
+            if (countryInfo.region != null) {
+                keys.add(new SearchKey(countryInfo.region.toLowerCase(Locale.US), position));
+            }
+            keys.add(new SearchKey("+" + countryInfo.countryCode, position));
+        }
+        Collections.sort(keys);
+        return keys;
+    }
+
+    List<CountryInfo> getCountries() {
+        return countries;
+    }
+
+    String[] getSections() {
+        return sections;
+    }
+
+    int getPositionForSection(int section) {
+        if (section <= 0 || sections.length == 0) {
+            return 0;
+        }
+        return sectionPositions[Math.min(section, sections.length - 1)];
+    }
+
+    /**
+     * Returns the section of the country at this position, the last one starting at or before
+     * it.
+     */
+    int getSectionForPosition(int position) {
+        final int section = Arrays.binarySearch(sectionPositions, position);
+        return section >= 0 ? section : Math.max(0, -section - 2);
+    }
+
+    /**
+     * Sets the positions of the countries whose name, one of the words of their name, ISO code
+     * or calling code starts with the query, ignoring case. A query starting with a digit is
+     * matched as a calling code.
+     *
+     * @return false if the query is blank, matches is then left empty.
+     */
+    boolean filter(CharSequence query, BitSet matches) {
+        matches.clear();
+        final String prefix = getSearchPrefix(query);
+        if (prefix == null) {
+            return false;
+        }
+
+        for (int i = lowerBound(prefix); i < searchKeys.length
+                && searchKeys[i].startsWith(prefix); i++) {
+            matches.set(searchPositions[i]);
+        }
+        return true;
+    }
+
+    private static String getSearchPrefix(CharSequence query) {
+        if (query == null) {
+            return null;
+        }
+        final String prefix = query.toString().trim().toLowerCase(Locale.getDefault());
+        if (prefix.length() == 0) {
+            return null;
+        }
+        return Character.isDigit(prefix.charAt(0)) ? "+" + prefix : prefix;
+    }
+
+    /**
+     * Returns the index of the first search key not less than the prefix.
+     */
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = searchKeys.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (searchKeys[middle].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the position of the country with this name, or 0 if it isn't listed.
+     */
+    int getPositionForCountry(String country) {
+        final Integer position = positionByCountry.get(country);
+        return position == null ? 0 : position;
+    }
+
+    private static class SearchKey implements Comparable<SearchKey> {
+        final String key;
+        final int position;
+
+        SearchKey(String key, int position) {
+            this.key = key;
+            this.position = position;
+        }
+
+        @Override
+        public int compareTo(SearchKey other) {
+            return key.compareTo(other.key);
+        }
+    }
+}
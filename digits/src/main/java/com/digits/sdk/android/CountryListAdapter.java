@@ -21,18 +21,20 @@ import android.content.Context;
 import android.widget.ArrayAdapter;
 import android.widget.SectionIndexer;
 
-import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Locale;
 
 /*
- * Array adapter used to display a list of countries with section indies.
+ * Array adapter used to display a list of countries with section indies. While filtered it
+ * shows the matching countries through their positions in the whole list, and all positions it
+ * takes and returns are in the filtered list.
  */
 class CountryListAdapter extends ArrayAdapter<CountryInfo> implements SectionIndexer {
-    final private HashMap<String, Integer> alphaIndex = new LinkedHashMap<>();
-    final private HashMap<String, Integer> countryPosition = new LinkedHashMap<>();
-    private String[] sections;
+    private final BitSet matches = new BitSet();
+    private CountryList countryList;
+    private int[] filteredPositions = new int[0];
+    // -1 while not filtered
+    private int filteredCount = -1;
 
     public CountryListAdapter(Context context) {
         super(context, R.layout.dgts__country_row, android.R.id.text1);
@@ -40,56 +42,100 @@ class CountryListAdapter extends ArrayAdapter<CountryInfo> implements SectionInd
 
     // The list of countries should be sorted using locale-sensitive string comparison
     public void setData(List<CountryInfo> countries) {
-        // Create index and add entries to adapter
-        int index = 0;
-        for (CountryInfo countryInfo : countries) {
-            final String key = countryInfo.country.substring(0, 1).toUpperCase(Locale.getDefault());
-
-            if (!alphaIndex.containsKey(key)) {
-                alphaIndex.put(key, index);
-            }
-            countryPosition.put(countryInfo.country, index);
+        setData(new CountryList(countries));
+    }
 
-            index++;
+    /**
+     * Shows the countries of the list, reusing its precomputed sections.
+     */
+    public void setData(CountryList countryList) {
+        this.countryList = countryList;
+        filteredPositions = new int[countryList.getCountries().size()];
+        filteredCount = -1;
+
+        setNotifyOnChange(false);
+        clear();
+        for (CountryInfo countryInfo : countryList.getCountries()) {
             add(countryInfo);
         }
 
-        sections = new String[alphaIndex.size()];
-        alphaIndex.keySet().toArray(sections);
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Shows only the countries matching the query, see {@link CountryList#filter}, or all of
+     * them if it's blank.
+     */
+    public void filter(CharSequence query) {
+        if (countryList == null) {
+            return;
+        }
 
+        if (countryList.filter(query, matches)) {
+            int count = 0;
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                filteredPositions[count++] = i;
+            }
+            filteredCount = count;
+        } else {
+            filteredCount = -1;
+        }
         notifyDataSetChanged();
     }
 
     @Override
-    public Object[] getSections() {
-        return sections;
+    public int getCount() {
+        return filteredCount < 0 ? super.getCount() : filteredCount;
     }
 
     @Override
-    public int getPositionForSection(int index) {
-        if (sections == null) {
-            return 0;
-        }
+    public CountryInfo getItem(int position) {
+        return super.getItem(filteredCount < 0 ? position : filteredPositions[position]);
+    }
 
-        // Check index bounds
-        if (index <= 0) {
-            return 0;
-        }
-        if (index >= sections.length) {
-            index = sections.length - 1;
-        }
+    @Override
+    public Object[] getSections() {
+        return countryList == null ? null : countryList.getSections();
+    }
 
-        // Return the position
-        return alphaIndex.get(sections[index]);
+    @Override
+    public int getPositionForSection(int index) {
+        return countryList == null ? 0 : toFilteredPosition(
+                countryList.getPositionForSection(index));
     }
 
     @Override
     public int getSectionForPosition(int position) {
-        return 0;
+        if (countryList == null || position < 0 || position >= getCount()) {
+            return 0;
+        }
+        return countryList.getSectionForPosition(
+                filteredCount < 0 ? position : filteredPositions[position]);
     }
 
     public int getPositionForCountry(String country) {
-        final Integer position = countryPosition.get(country);
-        return position == null ? 0 : position;
+        return countryList == null ? 0 : toFilteredPosition(
+                countryList.getPositionForCountry(country));
+    }
+
+    /**
+     * Returns the first shown position at or after this position in the whole list.
+     */
+    private int toFilteredPosition(int position) {
+        if (filteredCount < 0) {
+            return position;
+        }
+
+        int low = 0;
+        int high = filteredCount;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (filteredPositions[middle] < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return Math.min(low, Math.max(0, filteredCount - 1));
     }
 }
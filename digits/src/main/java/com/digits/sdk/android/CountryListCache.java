@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The country list of the current locale, built at most once per process and locale. It's
+ * prefetched when the phone number screen opens so that the country popup opens right away, and
+ * built again when the locale changed since.
+ */
+final class CountryListCache {
+    private static final CountryListCache INSTANCE = new CountryListCache();
+
+    private Locale locale;
+    private CountryList countryList;
+
+    static CountryListCache getInstance() {
+        return INSTANCE;
+    }
+
+    /*
+     * Testing only
+     */
+    CountryListCache() {
+    }
+
+    /**
+     * Returns the list built for locale, or null if it has to be loaded.
+     */
+    synchronized CountryList get(Locale locale) {
+        return locale.equals(this.locale) ? countryList : null;
+    }
+
+    /**
+     * Returns the list of locale, building it if needed. Blocks, so it must not be called on the
+     * main thread.
+     */
+    synchronized CountryList load(Locale locale) {
+        if (!locale.equals(this.locale)) {
+            countryList = new CountryList(CountryListLoadTask.createCountryList(locale));
+            this.locale = locale;
+        }
+        return countryList;
+    }
+
+    /**
+     * Loads the list of the default locale on executorService, unless it's already loaded.
+     */
+    void prefetch(ExecutorService executorService) {
+        if (get(Locale.getDefault()) == null) {
+            new CountryListLoadTask(null, this).executeOnExecutor(executorService);
+        }
+    }
+}
@@ -20,15 +20,18 @@ package com.digits.sdk.android;
 import android.app.AlertDialog;
 import android.content.Context;
 import android.content.DialogInterface;
+import android.text.Editable;
 import android.text.TextUtils;
+import android.text.TextWatcher;
 import android.util.AttributeSet;
 import android.view.View;
+import android.view.WindowManager;
+import android.widget.EditText;
 import android.widget.ListView;
 import android.widget.TextView;
 
 import io.fabric.sdk.android.services.common.CommonUtils;
 
-import java.util.List;
 import java.util.Locale;
 
 public class CountryListSpinner extends TextView implements View.OnClickListener,
@@ -60,6 +63,13 @@ public class CountryListSpinner extends TextView implements View.OnClickListener
         this.dialogPopup = dialog;
     }
 
+    /**
+     * Only for Testing
+     */
+    void setCountryListAdapter(CountryListAdapter adapter) {
+        this.countryListAdapter = adapter;
+    }
+
     private void init() {
         super.setOnClickListener(this);
 
@@ -102,9 +112,15 @@ public class CountryListSpinner extends TextView implements View.OnClickListener
     @Override
     public void onClick(View view) {
         if (countryListAdapter.getCount() == 0) {
-            loadCountryList();
+            final CountryList countryList =
+                    CountryListCache.getInstance().get(Locale.getDefault());
+            if (countryList == null) {
+                loadCountryList();
+            } else {
+                onLoadComplete(countryList);
+            }
         } else {
-            dialogPopup.show(countryListAdapter.getPositionForCountry(selectedCountryName));
+            showDialogPopup();
         }
         CommonUtils.hideKeyboard(getContext(), CountryListSpinner.this);
         executeUserClickListener(view);
@@ -123,12 +139,18 @@ public class CountryListSpinner extends TextView implements View.OnClickListener
     }
 
     @Override
-    public void onLoadComplete(List<CountryInfo> result) {
+    public void onLoadComplete(CountryList result) {
         countryListAdapter.setData(result);
+        showDialogPopup();
+    }
+
+    private void showDialogPopup() {
+        // Clears the previous search first, so that the selection is a position in the whole list
+        countryListAdapter.filter(null);
         dialogPopup.show(countryListAdapter.getPositionForCountry(selectedCountryName));
     }
 
-    public class DialogPopup implements DialogInterface.OnClickListener {
+    public class DialogPopup implements DialogInterface.OnClickListener, TextWatcher {
         //Delay for postDelayed to set selection without showing the scroll animation
         private static final long DELAY_MILLIS = 10L;
         private final CountryListAdapter listAdapter;
@@ -154,8 +176,14 @@ public class CountryListSpinner extends TextView implements View.OnClickListener
                 return;
             }
 
+            final EditText searchView = new EditText(getContext());
+            searchView.setHint(R.string.dgts__country_search_hint);
+            searchView.setSingleLine();
+            searchView.addTextChangedListener(this);
+
             final AlertDialog.Builder builder = new AlertDialog.Builder(getContext());
-            dialog = builder.setSingleChoiceItems(listAdapter, 0, this).create();
+            dialog = builder.setCustomTitle(searchView)
+                    .setSingleChoiceItems(listAdapter, 0, this).create();
             dialog.setCanceledOnTouchOutside(true);
             final ListView listView = dialog.getListView();
             listView.setFastScrollEnabled(true);
@@ -166,6 +194,8 @@ public class CountryListSpinner extends TextView implements View.OnClickListener
                 }
             }, DELAY_MILLIS);
             dialog.show();
+            // Dialogs without a text field in their content don't show the keyboard
+            dialog.getWindow().clearFlags(WindowManager.LayoutParams.FLAG_ALT_FOCUSABLE_IM);
         }
 
         @Override
@@ -175,5 +205,20 @@ public class CountryListSpinner extends TextView implements View.OnClickListener
             setSpinnerText(countryInfo.countryCode, countryInfo.country);
             dismiss();
         }
+
+        @Override
+        public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            //Nothing to do
+        }
+
+        @Override
+        public void onTextChanged(CharSequence s, int start, int before, int count) {
+            //Nothing to do
+        }
+
+        @Override
+        public void afterTextChanged(Editable s) {
+            listAdapter.filter(s);
+        }
     }
 }
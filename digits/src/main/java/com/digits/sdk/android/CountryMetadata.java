@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+/**
+ * The countries of src/main/metadata/countries.txt, read once per process from
+ * {@link CountryMetadataTable}, which is generated from it at build time. Entries keep the order
+ * of the table.
+ */
+final class CountryMetadata {
+    static final char NO_NATIONAL_PREFIX = 0;
+    private static final String NONE = "-";
+    private static final int COLUMNS = 6;
+
+    private final String[] regions;
+    private final int[] callingCodes;
+    private final boolean[] mainRegions;
+    private final boolean[] hidden;
+    private final char[] nationalPrefixes;
+    private final int[] minNationalLengths;
+    private final int[] maxNationalLengths;
+
+    static CountryMetadata getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * @param data one line per country, with the columns of countries.txt separated by a space
+     */
+    CountryMetadata(String data) {
+        final String[] rows = data.split("\n");
+        final int size = rows.length;
+        regions = new String[size];
+        callingCodes = new int[size];
+        mainRegions = new boolean[size];
+        hidden = new boolean[size];
+        nationalPrefixes = new char[size];
+        minNationalLengths = new int[size];
+        maxNationalLengths = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            final String[] columns = rows[i].split(" ");
+            if (columns.length != COLUMNS) {
+                throw new IllegalArgumentException("Invalid country metadata: " + rows[i]);
+            }
+            regions[i] = columns[0];
+            callingCodes[i] = Integer.parseInt(columns[1]);
+            mainRegions[i] = columns[2].indexOf('m') >= 0;
+            hidden[i] = columns[2].indexOf('h') >= 0;
+            nationalPrefixes[i] = NONE.equals(columns[3]) ? NO_NATIONAL_PREFIX :
+                    columns[3].charAt(0);
+            minNationalLengths[i] = Integer.parseInt(columns[4]);
+            maxNationalLengths[i] = Integer.parseInt(columns[5]);
+        }
+    }
+
+    int size() {
+        return regions.length;
+    }
+
+    /**
+     * Returns the ISO code of the entry, or 001 for the non-geographic calling codes.
+     */
+    String getRegion(int entry) {
+        return regions[entry];
+    }
+
+    int getCallingCode(int entry) {
+        return callingCodes[entry];
+    }
+
+    /**
+     * Returns true if the entry is the region numbers with its calling code are attributed to,
+     * e.g. US for 1.
+     */
+    boolean isMainRegion(int entry) {
+        return mainRegions[entry];
+    }
+
+    /**
+     * Returns true if the entry is offered in the country list.
+     */
+    boolean isListed(int entry) {
+        return !hidden[entry];
+    }
+
+    /**
+     * Returns the trunk prefix dialed before national numbers, or {@link #NO_NATIONAL_PREFIX}.
+     */
+    char getNationalPrefix(int entry) {
+        return nationalPrefixes[entry];
+    }
+
+    int getMinNationalLength(int entry) {
+        return minNationalLengths[entry];
+    }
+
+    int getMaxNationalLength(int entry) {
+        return maxNationalLengths[entry];
+    }
+
+    private static class Holder {
+        static final CountryMetadata INSTANCE = new CountryMetadata(CountryMetadataTable.DATA);
+    }
+}
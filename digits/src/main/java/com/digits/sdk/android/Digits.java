@@ -50,6 +50,7 @@ public class Digits extends Kit<Void> {
 
     private volatile DigitsClient digitsClient;
     private volatile ContactsClient contactsClient;
+    private volatile DigitsTransport transport;
     private SessionManager<DigitsSession> sessionManager;
     private SessionMonitor<DigitsSession> sessionMonitor;
     private ActivityClassManager activityClassManager;
@@ -57,6 +58,7 @@ public class Digits extends Kit<Void> {
 
 
     private int themeResId;
+    private final boolean prewarmLogin;
 
     public static Digits getInstance() {
         return Fabric.getKit(Digits.class);
@@ -113,8 +115,17 @@ public class Digits extends Kit<Void> {
     }
 
     public Digits() {
+        this(false);
+    }
+
+    /**
+     * @param prewarmLogin if true, a guest token is requested and the connection to Digits is
+     * opened while the kit initializes, so that sending the phone number is a single request.
+     */
+    public Digits(boolean prewarmLogin) {
         super();
         scribeService = new NoOpScribeService();
+        this.prewarmLogin = prewarmLogin;
     }
 
     @Override
@@ -134,9 +145,12 @@ public class Digits extends Kit<Void> {
     @Override
     protected Void doInBackground() {
         // Trigger restoration of session
-        sessionManager.getActiveSession();
+        final DigitsSession session = sessionManager.getActiveSession();
         createDigitsClient();
         createContactsClient();
+        if (prewarmLogin && (session == null || session.isLoggedOutUser())) {
+            digitsClient.prefetchGuestAuth();
+        }
         scribeService = new DigitsScribeServiceImp(setUpScribing());
         sessionMonitor.triggerVerificationIfNecessary();
         // Monitor activity lifecycle after sessions have been restored. Otherwise we would not
@@ -194,6 +208,22 @@ public class Digits extends Kit<Void> {
         }
     }
 
+    DigitsTransport getTransport() {
+        if (transport == null) {
+            createTransport();
+        }
+        return transport;
+    }
+
+    private synchronized void createTransport() {
+        if (transport == null) {
+            final TwitterCore twitterCore = TwitterCore.getInstance();
+            transport = new DigitsTransport(twitterCore.getAuthConfig(),
+                    twitterCore.getSSLSocketFactory(), sessionManager, getExecutorService(),
+                    new DigitsUserAgent(getVersion(), Build.VERSION.RELEASE));
+        }
+    }
+
     protected ExecutorService getExecutorService() {
         return getFabric().getExecutorService();
     }
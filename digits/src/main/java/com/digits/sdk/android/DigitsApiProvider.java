@@ -18,56 +18,34 @@
 package com.digits.sdk.android;
 
 
-import com.twitter.sdk.android.core.AuthenticatedClient;
 import com.twitter.sdk.android.core.Callback;
-import com.twitter.sdk.android.core.TwitterAuthConfig;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-
-import javax.net.ssl.SSLSocketFactory;
-
-import retrofit.RestAdapter;
-import retrofit.android.MainThreadExecutor;
 import retrofit.http.Field;
 import retrofit.http.FormUrlEncoded;
 import retrofit.http.POST;
 
+/**
+ * Services used by the login flow. They're created by the shared {@link DigitsTransport} and
+ * signed with the active session, which is the guest session until the user logs in.
+ */
 class DigitsApiProvider {
-    private final ConcurrentHashMap<Class, Object> services;
-    private final RestAdapter restAdapter;
+    private final DigitsTransport transport;
 
-
-    DigitsApiProvider(DigitsSession session, TwitterAuthConfig authConfig,
-            SSLSocketFactory sslFactory, ExecutorService executorService,
-            DigitsUserAgent userAgent) {
-        this.services = new ConcurrentHashMap<>();
-        this.restAdapter = new RestAdapter.Builder()
-                .setEndpoint(new DigitsApi().getBaseHostUrl())
-                .setRequestInterceptor(new DigitsRequestInterceptor(userAgent))
-                .setExecutors(executorService, new MainThreadExecutor())
-                .setClient(new AuthenticatedClient(authConfig, session, sslFactory))
-                .build();
+    DigitsApiProvider(DigitsTransport transport) {
+        if (transport == null) {
+            throw new IllegalArgumentException("transport must not be null");
+        }
+        this.transport = transport;
     }
 
-
     public SdkService getSdkService() {
-        return getService(SdkService.class);
+        return transport.getService(SdkService.class);
     }
 
     public DeviceService getDeviceService() {
-        return getService(DeviceService.class);
+        return transport.getService(DeviceService.class);
     }
 
-    @SuppressWarnings("unchecked")
-    private <T> T getService(Class<T> cls) {
-        if (!services.containsKey(cls)) {
-            services.put(cls, restAdapter.create(cls));
-        }
-        return (T) services.<T>get(cls);
-    }
-
-
     protected interface DeviceService {
         @FormUrlEncoded
         @POST("/1.1/device/register.json")
@@ -19,16 +19,24 @@ package com.digits.sdk.android;
 
 import android.content.Context;
 import android.content.Intent;
-import android.os.Build;
 import android.os.Bundle;
 
 import com.twitter.sdk.android.core.Callback;
 import com.twitter.sdk.android.core.Result;
 import com.twitter.sdk.android.core.SessionManager;
+import com.twitter.sdk.android.core.TwitterApiErrorConstants;
+import com.twitter.sdk.android.core.TwitterApiException;
 import com.twitter.sdk.android.core.TwitterCore;
+import com.twitter.sdk.android.core.TwitterException;
 import com.twitter.sdk.android.core.internal.oauth.OAuth2Service;
 import com.twitter.sdk.android.core.internal.oauth.OAuth2Token;
 
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+
+import retrofit.RetrofitError;
+
 public class DigitsClient {
     public static final String EXTRA_PHONE = "phone_number";
     public static final String EXTRA_RESULT_RECEIVER = "receiver";
@@ -42,6 +50,7 @@ public class DigitsClient {
     private final Digits digits;
     private final SessionManager<DigitsSession> sessionManager;
     private final TwitterCore twitterCore;
+    private final List<Callback<OAuth2Token>> guestAuthCallbacks = new ArrayList<>();
     protected DigitsApiProvider digitsApiProvider;
 
 
@@ -76,30 +85,169 @@ public class DigitsClient {
 
     protected void authDevice(Context context, DigitsController controller,
             final String phoneNumber, final Callback<AuthResponse> callback) {
+        authDevice(context, controller, phoneNumber, callback, true);
+    }
+
+    /**
+     * The guest token may be one stored by an earlier process that the server no longer
+     * accepts, when retryInvalidGuestAuth is set a rejected token is cleared and authDevice is
+     * retried once with a new one.
+     */
+    private void authDevice(final Context context, final DigitsController controller,
+            final String phoneNumber, final Callback<AuthResponse> callback,
+            final boolean retryInvalidGuestAuth) {
+
+        requestGuestAuth(new DigitsCallback<OAuth2Token>(context, controller) {
+
+            @Override
+            public void success(Result<OAuth2Token> result) {
+                if (!retryInvalidGuestAuth) {
+                    getDigitsApiProvider().getSdkService().auth(phoneNumber, callback);
+                    return;
+                }
+
+                getDigitsApiProvider().getSdkService().auth(phoneNumber,
+                        new Callback<AuthResponse>() {
+                            @Override
+                            public void success(Result<AuthResponse> result) {
+                                callback.success(result);
+                            }
+
+                            @Override
+                            public void failure(TwitterException exception) {
+                                if (isInvalidGuestAuth(exception)) {
+                                    sessionManager.clearSession(
+                                            DigitsSession.LOGGED_OUT_USER_ID);
+                                    authDevice(context, controller, phoneNumber, callback,
+                                            false);
+                                } else {
+                                    callback.failure(exception);
+                                }
+                            }
+                        });
+            }
+
+        });
+    }
+
+    /**
+     * Returns true if the request was rejected because of its guest or app token.
+     */
+    static boolean isInvalidGuestAuth(TwitterException exception) {
+        if (!(exception instanceof TwitterApiException)) {
+            return false;
+        }
+
+        final TwitterApiException apiException = (TwitterApiException) exception;
+        if (apiException.getErrorCode() == TwitterApiErrorConstants.GUEST_AUTH_ERROR_CODE ||
+                apiException.getErrorCode() == TwitterApiErrorConstants.APP_AUTH_ERROR_CODE) {
+            return true;
+        }
+        final RetrofitError error = apiException.getRetrofitError();
+        return error != null && error.getResponse() != null &&
+                error.getResponse().getStatus() == HttpURLConnection.HTTP_UNAUTHORIZED;
+    }
+
+    /**
+     * Requests a guest token ahead of authDevice, or opens the connection to Digits when a
+     * valid one is already stored, so that sending the phone number only takes one request on
+     * a warm connection. The token is requested through the same SSLSocketFactory as the
+     * Digits services, so requesting it warms the connection too.
+     */
+    void prefetchGuestAuth() {
+        if (getStoredGuestSession() == null) {
+            requestGuestAuth(new Callback<OAuth2Token>() {
+                @Override
+                public void success(Result<OAuth2Token> result) {
+                    // The guest session is set once the token is received.
+                }
 
-        authService.requestGuestOrAppAuthToken(new DigitsCallback<OAuth2Token>(context,
-                controller) {
+                @Override
+                public void failure(TwitterException exception) {
+                    // authDevice requests the token again and reports the error.
+                }
+            });
+        } else {
+            digits.getExecutorService().submit(new Runnable() {
+                @Override
+                public void run() {
+                    digits.getTransport().warmUp();
+                }
+            });
+        }
+    }
+
+    /**
+     * Calls back with the stored guest token while it's valid, otherwise with a new one. The
+     * callers waiting on the same token request share it. In both cases the guest session is
+     * set, which makes it the active one signing the login requests.
+     */
+    void requestGuestAuth(Callback<OAuth2Token> callback) {
+        final DigitsSession storedSession = getStoredGuestSession();
+        if (storedSession != null) {
+            sessionManager.setSession(DigitsSession.LOGGED_OUT_USER_ID, storedSession);
+            callback.success(new Result<>((OAuth2Token) storedSession.getAuthToken(), null));
+            return;
+        }
 
+        synchronized (this) {
+            guestAuthCallbacks.add(callback);
+            if (guestAuthCallbacks.size() > 1) {
+                return;
+            }
+        }
+
+        authService.requestGuestOrAppAuthToken(new Callback<OAuth2Token>() {
             @Override
             public void success(Result<OAuth2Token> result) {
-                final DigitsSession session = setSession(result);
-                digitsApiProvider = new DigitsApiProvider(session, twitterCore.getAuthConfig(),
-                        twitterCore.getSSLSocketFactory(), digits.getExecutorService(),
-                        new DigitsUserAgent(digits.getVersion(), Build.VERSION.RELEASE));
-                digitsApiProvider.getSdkService().auth(phoneNumber, callback);
+                setSession(result);
+                for (Callback<OAuth2Token> guestAuthCallback : takeGuestAuthCallbacks()) {
+                    guestAuthCallback.success(result);
+                }
             }
 
+            @Override
+            public void failure(TwitterException exception) {
+                for (Callback<OAuth2Token> guestAuthCallback : takeGuestAuthCallbacks()) {
+                    guestAuthCallback.failure(exception);
+                }
+            }
         });
     }
 
-    private DigitsSession setSession(Result<OAuth2Token> result) {
+    private synchronized List<Callback<OAuth2Token>> takeGuestAuthCallbacks() {
+        final List<Callback<OAuth2Token>> callbacks = new ArrayList<>(guestAuthCallbacks);
+        guestAuthCallbacks.clear();
+        return callbacks;
+    }
+
+    private DigitsSession getStoredGuestSession() {
+        final DigitsSession session = sessionManager.getSession(DigitsSession.LOGGED_OUT_USER_ID);
+        if (session == null || !(session.getAuthToken() instanceof OAuth2Token) ||
+                session.getAuthToken().isExpired()) {
+            return null;
+        }
+        return session;
+    }
+
+    private void setSession(Result<OAuth2Token> result) {
         final DigitsSession session = new DigitsSession(result.data);
         sessionManager.setSession(DigitsSession.LOGGED_OUT_USER_ID, session);
-        return session;
+    }
+
+    /**
+     * The services are signed with the active session at the time of each request, so the
+     * provider is created once and picks up the guest session set by authDevice.
+     */
+    private synchronized DigitsApiProvider getDigitsApiProvider() {
+        if (digitsApiProvider == null) {
+            digitsApiProvider = new DigitsApiProvider(digits.getTransport());
+        }
+        return digitsApiProvider;
     }
 
     protected void createAccount(String pin, String phoneNumber, Callback<DigitsUser> listener) {
-        digitsApiProvider.getSdkService().account(phoneNumber, pin, listener);
+        getDigitsApiProvider().getSdkService().account(phoneNumber, pin, listener);
     }
 
     protected void startSignUp(AuthCallback callback) {
@@ -144,17 +292,17 @@ public class DigitsClient {
 
     protected void loginDevice(String requestId, long userId, String code,
             Callback<DigitsSessionResponse> digitsCallback) {
-        digitsApiProvider.getSdkService().login(requestId, userId, code, digitsCallback);
+        getDigitsApiProvider().getSdkService().login(requestId, userId, code, digitsCallback);
     }
 
     protected void registerDevice(String phoneNumber, Callback<DeviceRegistrationResponse>
             listener) {
-        digitsApiProvider.getDeviceService().register(phoneNumber, THIRD_PARTY_CONFIRMATION_CODE,
-                true, listener);
+        getDigitsApiProvider().getDeviceService().register(phoneNumber,
+                THIRD_PARTY_CONFIRMATION_CODE, true, listener);
     }
 
     protected void verifyPin(String requestId, long userId, String pin,
             Callback<DigitsSessionResponse> digitsCallback) {
-        digitsApiProvider.getSdkService().verifyPin(requestId, userId, pin, digitsCallback);
+        getDigitsApiProvider().getSdkService().verifyPin(requestId, userId, pin, digitsCallback);
     }
 }
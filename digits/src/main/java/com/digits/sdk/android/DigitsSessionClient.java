@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import com.twitter.sdk.android.core.AuthenticatedClient;
+import com.twitter.sdk.android.core.SessionManager;
+import com.twitter.sdk.android.core.TwitterAuthConfig;
+
+import java.io.IOException;
+
+import javax.net.ssl.SSLSocketFactory;
+
+import retrofit.client.Client;
+import retrofit.client.Request;
+import retrofit.client.Response;
+
+/**
+ * Signs every request with the session that's active when it's sent, so that a RestAdapter
+ * built once keeps working across logins, logouts and guest sessions.
+ *
+ * All requests go through the same SSLSocketFactory, which keeps the keep-alive connections
+ * pooled by HttpURLConnection and the TLS sessions cached by the factory shared between the
+ * Digits services.
+ */
+class DigitsSessionClient implements Client {
+    private final TwitterAuthConfig authConfig;
+    private final SSLSocketFactory sslSocketFactory;
+    private final SessionManager<DigitsSession> sessionManager;
+    private DigitsSession clientSession;
+    private AuthenticatedClient client;
+
+    DigitsSessionClient(TwitterAuthConfig authConfig, SSLSocketFactory sslSocketFactory,
+            SessionManager<DigitsSession> sessionManager) {
+        if (authConfig == null) {
+            throw new IllegalArgumentException("authConfig must not be null");
+        }
+        if (sessionManager == null) {
+            throw new IllegalArgumentException("sessionManager must not be null");
+        }
+        this.authConfig = authConfig;
+        this.sslSocketFactory = sslSocketFactory;
+        this.sessionManager = sessionManager;
+    }
+
+    @Override
+    public Response execute(Request request) throws IOException {
+        return getClient(sessionManager.getActiveSession()).execute(request);
+    }
+
+    /**
+     * Returns the client signing with session, only creating a new one when the session
+     * changed since the last request.
+     */
+    synchronized AuthenticatedClient getClient(DigitsSession session) {
+        if (client == null || clientSession != session) {
+            client = new AuthenticatedClient(authConfig, session, sslSocketFactory);
+            clientSession = session;
+        }
+        return client;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import com.twitter.sdk.android.core.SessionManager;
+import com.twitter.sdk.android.core.TwitterAuthConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+
+import io.fabric.sdk.android.Fabric;
+import io.fabric.sdk.android.services.common.CommonUtils;
+
+import retrofit.RestAdapter;
+import retrofit.android.MainThreadExecutor;
+
+/**
+ * The RestAdapter shared by all the Digits services. It's built once per process and signs
+ * requests with the active session through {@link DigitsSessionClient}, so that the
+ * connections, TLS sessions and resolved addresses are reused from the first request on,
+ * instead of starting over with a new adapter for each phone number or session.
+ */
+class DigitsTransport {
+    private final ConcurrentHashMap<Class, Object> services;
+    private final RestAdapter restAdapter;
+    private final SSLSocketFactory sslFactory;
+    private final String baseHostUrl;
+
+    DigitsTransport(TwitterAuthConfig authConfig, SSLSocketFactory sslFactory,
+            SessionManager<DigitsSession> sessionManager, ExecutorService executorService,
+            DigitsUserAgent userAgent) {
+        this.services = new ConcurrentHashMap<>();
+        this.sslFactory = sslFactory;
+        this.baseHostUrl = new DigitsApi().getBaseHostUrl();
+        this.restAdapter = new RestAdapter.Builder()
+                .setEndpoint(baseHostUrl)
+                .setRequestInterceptor(new DigitsRequestInterceptor(userAgent))
+                .setExecutors(executorService, new MainThreadExecutor())
+                .setClient(new DigitsSessionClient(authConfig, sslFactory, sessionManager))
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T getService(Class<T> cls) {
+        if (!services.containsKey(cls)) {
+            services.putIfAbsent(cls, restAdapter.create(cls));
+        }
+        return (T) services.get(cls);
+    }
+
+    /**
+     * Opens a connection to the Digits API and leaves it in the keep-alive pool, with its TLS
+     * session cached, for the next request. Blocks, so it must not be called on the main thread.
+     */
+    void warmUp() {
+        InputStream in = null;
+        try {
+            final HttpURLConnection connection =
+                    (HttpURLConnection) new URL(baseHostUrl).openConnection();
+            if (connection instanceof HttpsURLConnection && sslFactory != null) {
+                ((HttpsURLConnection) connection).setSSLSocketFactory(sslFactory);
+            }
+            connection.setRequestMethod("HEAD");
+            // The connection only goes back to the pool once the response is read.
+            in = connection.getResponseCode() < HttpURLConnection.HTTP_BAD_REQUEST ?
+                    connection.getInputStream() : connection.getErrorStream();
+        } catch (IOException e) {
+            Fabric.getLogger().d(Digits.TAG, "Connection to Digits could not be opened", e);
+        } finally {
+            CommonUtils.closeOrLog(in, "Failed to close warm up response");
+        }
+    }
+}
@@ -54,6 +54,7 @@ class PhoneNumberActivityDelegate extends DigitsActivityDelegateImpl implements
         termsTextView = (TextView) activity.findViewById(R.id.dgts__termsText);
 
         controller = initController(bundle);
+        controller.prefetchGuestAuth();
 
         setUpEditText(activity, controller, phoneEditText);
 
@@ -66,6 +67,8 @@ class PhoneNumberActivityDelegate extends DigitsActivityDelegateImpl implements
         executePhoneNumberTask(new PhoneNumberUtils(SimManager.createSimManager(activity)),
                 bundle);
 
+        CountryListCache.getInstance().prefetch(Digits.getInstance().getExecutorService());
+
         CommonUtils.openKeyboard(activity, phoneEditText);
     }
 
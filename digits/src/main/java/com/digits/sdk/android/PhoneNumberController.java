@@ -58,6 +58,13 @@ class PhoneNumberController extends DigitsControllerImpl {
         this.countryCodeSpinner = countryCodeSpinner;
     }
 
+    /**
+     * Gets the guest token and the connection ready while the phone number is typed.
+     */
+    public void prefetchGuestAuth() {
+        digitsClient.prefetchGuestAuth();
+    }
+
     public void setPhoneNumber(PhoneNumber phoneNumber) {
         if (PhoneNumber.isValid(phoneNumber)) {
             editText.setText(phoneNumber.getPhoneNumber());
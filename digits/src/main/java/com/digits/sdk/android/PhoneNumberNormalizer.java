@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import com.digits.sdk.vcard.VCardPhoneNumberTranslationCallback;
+
+/**
+ * Normalizes the phone numbers of exported contacts to E.164, e.g. "+14155550100", since the
+ * server only needs their digits. Numbers without an international prefix take the default
+ * country code, usually the one of the SIM. Numbers that can't be normalized, like short codes
+ * or numbers read without a default country code, are kept as digits only.
+ *
+ * This is a best effort with little numbering plan metadata: the national prefix and the length
+ * range of national numbers come from {@link CountryMetadata}, and "00" or "011" is taken as the
+ * international prefix. Characters after a pause, a wait or a line break are dropped.
+ *
+ * Not thread safe, the numbers are built in a reused buffer.
+ */
+class PhoneNumberNormalizer implements VCardPhoneNumberTranslationCallback {
+    private static final int MAX_E164_DIGITS = 15;
+    // Shorter national numbers are local numbers or short codes.
+    private static final int MIN_NATIONAL_DIGITS = 6;
+    private static final String NANP_COUNTRY_CODE = "1";
+    private static final char[] INTERNATIONAL_PREFIX = {'0', '0'};
+    private static final char[] NANP_INTERNATIONAL_PREFIX = {'0', '1', '1'};
+    private static final char PAUSE = ',';
+    private static final char WAIT = ';';
+    // Room left before the digits for '+' and the country code.
+    private static final int PREFIX_LENGTH = 4;
+
+    private final char[] countryCode;
+    private final boolean isNanp;
+    private final char[] internationalPrefix;
+    private final char trunkPrefix;
+    private final int minNationalDigits;
+    private final int maxNationalDigits;
+    private char[] buffer = new char[32];
+
+    /**
+     * @param defaultCountryCode country calling code without '+', e.g. "1", or null or an empty
+     *                           string if unknown.
+     */
+    PhoneNumberNormalizer(String defaultCountryCode) {
+        if (defaultCountryCode == null || defaultCountryCode.length() >= PREFIX_LENGTH) {
+            defaultCountryCode = "";
+        }
+        countryCode = defaultCountryCode.toCharArray();
+        isNanp = NANP_COUNTRY_CODE.equals(defaultCountryCode);
+        internationalPrefix = isNanp ? NANP_INTERNATIONAL_PREFIX : INTERNATIONAL_PREFIX;
+
+        final CountryCodeIndex index = CountryCodeIndex.getInstance();
+        final int entry = index.getMainEntry(parseCallingCode(defaultCountryCode));
+        if (entry < 0) {
+            trunkPrefix = '0';
+            minNationalDigits = MIN_NATIONAL_DIGITS;
+            maxNationalDigits = MAX_E164_DIGITS - countryCode.length;
+        } else {
+            final CountryMetadata metadata = index.getMetadata();
+            trunkPrefix = metadata.getNationalPrefix(entry);
+            minNationalDigits = metadata.getMinNationalLength(entry);
+            maxNationalDigits = metadata.getMaxNationalLength(entry);
+        }
+    }
+
+    /**
+     * @return the number in E.164 or as digits only, or an empty string if it has no digits.
+     */
+    @Override
+    public String onValueReceived(String rawValue, int type, String label, boolean isPrimary) {
+        final int length = rawValue.length();
+        if (buffer.length < PREFIX_LENGTH + length) {
+            buffer = new char[PREFIX_LENGTH + length];
+        }
+        final char[] chars = buffer;
+
+        int end = PREFIX_LENGTH;
+        boolean isInternational = false;
+        for (int i = 0; i < length; i++) {
+            final char ch = rawValue.charAt(i);
+            final int digit = Character.digit(ch, 10);
+            if (digit != -1) {
+                chars[end++] = (char) ('0' + digit);
+            } else if (ch == '+' && end == PREFIX_LENGTH) {
+                isInternational = true;
+            } else if (ch == PAUSE || ch == WAIT || ch == '\n') {
+                break;
+            }
+        }
+
+        int start = PREFIX_LENGTH;
+        if (!isInternational && startsWith(chars, start, end, internationalPrefix)) {
+            start += internationalPrefix.length;
+            isInternational = true;
+        }
+        if (start == end) {
+            return "";
+        }
+
+        if (!isInternational && countryCode.length > 0) {
+            int nationalStart = start;
+            if (chars[nationalStart] == trunkPrefix) {
+                nationalStart++;
+            }
+            final int nationalDigits = end - nationalStart;
+            if (nationalDigits >= minNationalDigits && nationalDigits <= maxNationalDigits) {
+                start = nationalStart - countryCode.length;
+                System.arraycopy(countryCode, 0, chars, start, countryCode.length);
+                isInternational = true;
+            }
+        }
+
+        if (isInternational) {
+            chars[--start] = '+';
+        }
+        return new String(chars, start, end - start);
+    }
+
+    /**
+     * Returns the calling code, or 0 if it isn't only made of digits.
+     */
+    private static int parseCallingCode(String countryCode) {
+        int callingCode = 0;
+        for (int i = 0; i < countryCode.length(); i++) {
+            final char c = countryCode.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+            callingCode = callingCode * 10 + c - '0';
+        }
+        return callingCode;
+    }
+
+    private static boolean startsWith(char[] chars, int start, int end, char[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (chars[start + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -26,7 +26,15 @@ import android.telephony.PhoneNumberUtils;
 import android.text.TextUtils;
 import android.util.Log;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -83,6 +91,19 @@ public class VCardBuilder {
             "ENCODING=" + VCardConstants.PARAM_ENCODING_QP;
 
     private static final String SHIFT_JIS = "SHIFT_JIS";
+    private static final int WRITE_BUFFER_SIZE = 1024;
+    private static final char[] HEX_DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9',
+            'A', 'B', 'C', 'D', 'E', 'F'};
+    // Specification requires CRLF must be inserted before the length of the line becomes more
+    // than 76. Assuming that the next character is a multi-byte character, it will become 6
+    // bytes. 76 - 6 - 3 = 67
+    private static final int QUOTED_PRINTABLE_MAX_LINE_COUNT = 67;
+    private static final int QUOTED_PRINTABLE_BUFFER_SIZE = 256;
+
+    // Flags of the characters found by escapeCharacters(). A value with neither flag contains
+    // only printable ASCII.
+    private static final int VALUE_NEEDS_CHARSET = 0x1;
+    private static final int VALUE_NEEDS_QUOTED_PRINTABLE = 0x2;
 
     private final int mVCardType;
 
@@ -94,6 +115,7 @@ public class VCardBuilder {
     private final boolean mAppendTypeParamName;
     private final boolean mRefrainsQPToNameProperties;
     private final boolean mNeedsToConvertPhoneticString;
+    private final boolean mUsesLegacyQuotedPrintable;
 
     private final boolean mShouldAppendCharsetParam;
 
@@ -102,6 +124,15 @@ public class VCardBuilder {
 
     private StringBuilder mBuilder;
     private boolean mEndAppended;
+    // Phones or emails appended by the current call, reused to save an allocation per contact.
+    private final Set<String> mValueSet = new HashSet<>();
+    private char[] mWriteBuffer;
+    // Quoted-printable encoding state, created on first use.
+    private CharsetEncoder mCharsetEncoder;
+    private ByteBuffer mEncodedBytes;
+    private StringBuilder mQuotedPrintableBuilder;
+    // VALUE_* flags of the values escaped since it was last reset.
+    private int mValueFlags;
 
     public VCardBuilder(final int vcardType) {
         // Default charset should be used
@@ -129,6 +160,7 @@ public class VCardBuilder {
         mRefrainsQPToNameProperties = VCardConfig.shouldRefrainQPToNameProperties(vcardType);
         mAppendTypeParamName = VCardConfig.appendTypeParamName(vcardType);
         mNeedsToConvertPhoneticString = VCardConfig.needsToConvertPhoneticString(vcardType);
+        mUsesLegacyQuotedPrintable = VCardConfig.usesLegacyQuotedPrintable(vcardType);
 
         // vCard 2.1 requires charset.
         // vCard 3.0 does not allow it but we found some devices use it to determine
@@ -166,8 +198,15 @@ public class VCardBuilder {
         clear();
     }
 
+    /**
+     * Starts a new vCard, reusing the buffer of the previous one.
+     */
     public void clear() {
-        mBuilder = new StringBuilder();
+        if (mBuilder == null) {
+            mBuilder = new StringBuilder();
+        } else {
+            mBuilder.setLength(0);
+        }
         mEndAppended = false;
         appendLine(VCardConstants.PROPERTY_BEGIN, VCARD_DATA_VCARD);
         if (VCardConfig.isVersion40(mVCardType)) {
@@ -373,23 +412,53 @@ public class VCardBuilder {
 
         final ContentValues contentValues =
                 getPrimaryContentValueWithStructuredName(contentValuesList);
-        final String familyName = contentValues.getAsString(StructuredName.FAMILY_NAME);
-        final String middleName = contentValues.getAsString(StructuredName.MIDDLE_NAME);
-        final String givenName = contentValues.getAsString(StructuredName.GIVEN_NAME);
-        final String prefix = contentValues.getAsString(StructuredName.PREFIX);
-        final String suffix = contentValues.getAsString(StructuredName.SUFFIX);
-        final String displayName = contentValues.getAsString(StructuredName.DISPLAY_NAME);
+        appendNameProperties(contentValues.getAsString(StructuredName.FAMILY_NAME),
+                contentValues.getAsString(StructuredName.MIDDLE_NAME),
+                contentValues.getAsString(StructuredName.GIVEN_NAME),
+                contentValues.getAsString(StructuredName.PREFIX),
+                contentValues.getAsString(StructuredName.SUFFIX),
+                contentValues.getAsString(StructuredName.DISPLAY_NAME));
+        appendPhoneticNameFields(contentValues);
+        return this;
+    }
+
+    /**
+     * Same as {@link #appendNameProperties(List)} for a single name read without
+     * {@link ContentValues}. Middle name, prefix, suffix and phonetic names are left empty.
+     */
+    public VCardBuilder appendNameProperties(final String familyName, final String givenName,
+            final String displayName) {
+        if (VCardConfig.isVersion40(mVCardType) || (TextUtils.isEmpty(familyName) &&
+                TextUtils.isEmpty(givenName) && TextUtils.isEmpty(displayName))) {
+            final ContentValues contentValues = new ContentValues();
+            contentValues.put(StructuredName.FAMILY_NAME, familyName);
+            contentValues.put(StructuredName.GIVEN_NAME, givenName);
+            contentValues.put(StructuredName.DISPLAY_NAME, displayName);
+            return appendNameProperties(Collections.singletonList(contentValues));
+        }
 
+        appendNameProperties(familyName, null, givenName, null, null, displayName);
+        appendPhoneticNameFields(null, null, null);
+        return this;
+    }
+
+    /**
+     * Emits N and FN properties, not the phonetic ones.
+     */
+    private void appendNameProperties(final String familyName, final String middleName,
+            final String givenName, final String prefix, final String suffix,
+            final String displayName) {
         if (!TextUtils.isEmpty(familyName) || !TextUtils.isEmpty(givenName)) {
-            final boolean reallyAppendCharsetParameterToName =
-                    shouldAppendCharsetParam(familyName, givenName, middleName, prefix, suffix);
-            final boolean reallyUseQuotedPrintableToName =
-                    (!mRefrainsQPToNameProperties &&
-                            !(VCardUtils.containsOnlyNonCrLfPrintableAscii(familyName) &&
-                                    VCardUtils.containsOnlyNonCrLfPrintableAscii(givenName) &&
-                                    VCardUtils.containsOnlyNonCrLfPrintableAscii(middleName) &&
-                                    VCardUtils.containsOnlyNonCrLfPrintableAscii(prefix) &&
-                                    VCardUtils.containsOnlyNonCrLfPrintableAscii(suffix)));
+            mValueFlags = 0;
+            final String escapedFamily = escapeCharacters(familyName);
+            final String escapedGiven = escapeCharacters(givenName);
+            final String escapedMiddle = escapeCharacters(middleName);
+            final String escapedPrefix = escapeCharacters(prefix);
+            final String escapedSuffix = escapeCharacters(suffix);
+            final int nameFlags = mValueFlags;
+            final boolean reallyAppendCharsetParameterToName = shouldAppendCharsetParam(nameFlags);
+            final boolean reallyUseQuotedPrintableToName = !mRefrainsQPToNameProperties &&
+                    (nameFlags & VALUE_NEEDS_QUOTED_PRINTABLE) != 0;
 
             final String formattedName;
             if (!TextUtils.isEmpty(displayName)) {
@@ -399,11 +468,13 @@ public class VCardBuilder {
                         VCardConfig.getNameOrderType(mVCardType),
                         familyName, middleName, givenName, prefix, suffix);
             }
+            mValueFlags = 0;
+            final String escapedFormattedName = escapeCharacters(formattedName);
+            final int formattedNameFlags = mValueFlags;
             final boolean reallyAppendCharsetParameterToFN =
-                    shouldAppendCharsetParam(formattedName);
-            final boolean reallyUseQuotedPrintableToFN =
-                    !mRefrainsQPToNameProperties &&
-                    !VCardUtils.containsOnlyNonCrLfPrintableAscii(formattedName);
+                    shouldAppendCharsetParam(formattedNameFlags);
+            final boolean reallyUseQuotedPrintableToFN = !mRefrainsQPToNameProperties &&
+                    (formattedNameFlags & VALUE_NEEDS_QUOTED_PRINTABLE) != 0;
 
             final String encodedFamily;
             final String encodedGiven;
@@ -417,16 +488,16 @@ public class VCardBuilder {
                 encodedPrefix = encodeQuotedPrintable(prefix);
                 encodedSuffix = encodeQuotedPrintable(suffix);
             } else {
-                encodedFamily = escapeCharacters(familyName);
-                encodedGiven = escapeCharacters(givenName);
-                encodedMiddle = escapeCharacters(middleName);
-                encodedPrefix = escapeCharacters(prefix);
-                encodedSuffix = escapeCharacters(suffix);
+                encodedFamily = escapedFamily;
+                encodedGiven = escapedGiven;
+                encodedMiddle = escapedMiddle;
+                encodedPrefix = escapedPrefix;
+                encodedSuffix = escapedSuffix;
             }
 
             final String encodedFormattedname =
                     (reallyUseQuotedPrintableToFN ?
-                            encodeQuotedPrintable(formattedName) : escapeCharacters(formattedName));
+                            encodeQuotedPrintable(formattedName) : escapedFormattedName);
 
             mBuilder.append(VCardConstants.PROPERTY_N);
             if (mIsDoCoMo) {
@@ -500,25 +571,24 @@ public class VCardBuilder {
         } else if (mIsDoCoMo) {
             appendLine(VCardConstants.PROPERTY_N, "");
         }
-
-        appendPhoneticNameFields(contentValues);
-        return this;
     }
 
     private void buildSinglePartNameField(String property, String part) {
-        final boolean reallyUseQuotedPrintable =
-                (!mRefrainsQPToNameProperties &&
-                        !VCardUtils.containsOnlyNonCrLfPrintableAscii(part));
+        mValueFlags = 0;
+        final String escapedPart = escapeCharacters(part);
+        final int partFlags = mValueFlags;
+        final boolean reallyUseQuotedPrintable = !mRefrainsQPToNameProperties &&
+                (partFlags & VALUE_NEEDS_QUOTED_PRINTABLE) != 0;
         final String encodedPart = reallyUseQuotedPrintable ?
                 encodeQuotedPrintable(part) :
-                escapeCharacters(part);
+                escapedPart;
 
         mBuilder.append(property);
 
         // Note: "CHARSET" param is not allowed in vCard 3.0, but we may add it
         //       when it would be useful or necessary for external importers,
         //       assuming the external importer allows this vioration of the spec.
-        if (shouldAppendCharsetParam(part)) {
+        if (shouldAppendCharsetParam(partFlags)) {
             mBuilder.append(VCARD_PARAM_SEPARATOR);
             mBuilder.append(mVCardCharsetParameter);
         }
@@ -534,16 +604,18 @@ public class VCardBuilder {
      * Emits SOUND;IRMC, SORT-STRING, and de-fact values for phonetic names like X-PHONETIC-FAMILY.
      */
     private void appendPhoneticNameFields(final ContentValues contentValues) {
+        appendPhoneticNameFields(
+                contentValues.getAsString(StructuredName.PHONETIC_FAMILY_NAME),
+                contentValues.getAsString(StructuredName.PHONETIC_MIDDLE_NAME),
+                contentValues.getAsString(StructuredName.PHONETIC_GIVEN_NAME));
+    }
+
+    private void appendPhoneticNameFields(final String tmpPhoneticFamilyName,
+            final String tmpPhoneticMiddleName, final String tmpPhoneticGivenName) {
         final String phoneticFamilyName;
         final String phoneticMiddleName;
         final String phoneticGivenName;
         {
-            final String tmpPhoneticFamilyName =
-                contentValues.getAsString(StructuredName.PHONETIC_FAMILY_NAME);
-            final String tmpPhoneticMiddleName =
-                contentValues.getAsString(StructuredName.PHONETIC_MIDDLE_NAME);
-            final String tmpPhoneticGivenName =
-                contentValues.getAsString(StructuredName.PHONETIC_GIVEN_NAME);
             if (mNeedsToConvertPhoneticString) {
                 phoneticFamilyName = VCardUtils.toHalfWidthString(tmpPhoneticFamilyName);
                 phoneticMiddleName = VCardUtils.toHalfWidthString(tmpPhoneticMiddleName);
@@ -741,92 +813,38 @@ public class VCardBuilder {
             VCardPhoneNumberTranslationCallback translationCallback) {
         boolean phoneLineExists = false;
         if (contentValuesList != null) {
-            Set<String> phoneSet = new HashSet<>();
+            mValueSet.clear();
             for (ContentValues contentValues : contentValuesList) {
                 final Integer typeAsObject = contentValues.getAsInteger(Phone.TYPE);
                 final String label = contentValues.getAsString(Phone.LABEL);
                 final Integer isPrimaryAsInteger = contentValues.getAsInteger(Phone.IS_PRIMARY);
                 final boolean isPrimary = (isPrimaryAsInteger != null ?
                         (isPrimaryAsInteger > 0) : false);
-                String phoneNumber = contentValues.getAsString(Phone.NUMBER);
-                if (phoneNumber != null) {
-                    phoneNumber = phoneNumber.trim();
-                }
-                if (TextUtils.isEmpty(phoneNumber)) {
-                    continue;
-                }
-
                 final int type = (typeAsObject != null ? typeAsObject : DEFAULT_PHONE_TYPE);
-                // Note: We prioritize this callback over FLAG_REFRAIN_PHONE_NUMBER_FORMATTING
-                // intentionally. In the future the flag will be replaced by callback
-                // mechanism entirely.
-                if (translationCallback != null) {
-                    phoneNumber = translationCallback.onValueReceived(
-                            phoneNumber, type, label, isPrimary);
-                    if (!phoneSet.contains(phoneNumber)) {
-                        phoneSet.add(phoneNumber);
-                        appendTelLine(type, label, phoneNumber, isPrimary);
-                    }
-                } else if (type == Phone.TYPE_PAGER ||
-                        VCardConfig.refrainPhoneNumberFormatting(mVCardType)) {
-                    // Note: PAGER number needs unformatted "phone number".
-                    phoneLineExists = true;
-                    if (!phoneSet.contains(phoneNumber)) {
-                        phoneSet.add(phoneNumber);
-                        appendTelLine(type, label, phoneNumber, isPrimary);
-                    }
-                } else {
-                    final List<String> phoneNumberList = splitPhoneNumbers(phoneNumber);
-                    if (phoneNumberList.isEmpty()) {
-                        continue;
-                    }
-                    phoneLineExists = true;
-                    for (String actualPhoneNumber : phoneNumberList) {
-                        if (!phoneSet.contains(actualPhoneNumber)) {
-                            // 'p' and 'w' are the standard characters for pause and wait
-                            // (see RFC 3601)
-                            // so use those when exporting phone numbers via vCard.
-                            String numberWithControlSequence = actualPhoneNumber
-                                    .replace(PhoneNumberUtils.PAUSE, 'p')
-                                    .replace(PhoneNumberUtils.WAIT, 'w');
-                            String formatted;
-                            // TODO: remove this code and relevant test cases. vCard and any other
-                            // codes using it shouldn't rely on the formatter here.
-                            if (TextUtils.equals(numberWithControlSequence, actualPhoneNumber)) {
-                                StringBuilder digitsOnlyBuilder = new StringBuilder();
-                                final int length = actualPhoneNumber.length();
-                                for (int i = 0; i < length; i++) {
-                                    final char ch = actualPhoneNumber.charAt(i);
-                                    if (Character.isDigit(ch) || ch == '+') {
-                                        digitsOnlyBuilder.append(ch);
-                                    }
-                                }
-                                final int phoneFormat =
-                                        VCardUtils.getPhoneNumberFormat(mVCardType);
-                                formatted = VCardUtils.PhoneNumberUtilsPort.formatNumber(
-                                        digitsOnlyBuilder.toString(), phoneFormat);
-                            } else {
-                                // Be conservative.
-                                formatted = numberWithControlSequence;
-                            }
+                phoneLineExists |= appendPhone(type, label,
+                        contentValues.getAsString(Phone.NUMBER), isPrimary, translationCallback);
+            }
+        }
 
-                            // In vCard 4.0, value type must be "a single URI value",
-                            // not just a phone number. (Based on vCard 4.0 rev.13)
-                            if (VCardConfig.isVersion40(mVCardType)
-                                    && !TextUtils.isEmpty(formatted)
-                                    && !formatted.startsWith("tel:")) {
-                                formatted = "tel:" + formatted;
-                            }
+        if (!phoneLineExists && mIsDoCoMo) {
+            appendTelLine(Phone.TYPE_HOME, "", "", false);
+        }
 
-                            // Pre-formatted string should be stored.
-                            phoneSet.add(actualPhoneNumber);
-                            appendTelLine(type, label, formatted, isPrimary);
-                        }
-                    }  // for (String actualPhoneNumber : phoneNumberList) {
+        return this;
+    }
 
-                    // TODO: TEL with SIP URI?
-                }
-            }
+    /**
+     * Same as {@link #appendPhones(List, VCardPhoneNumberTranslationCallback)} for the first
+     * count phones of parallel arrays, read without {@link ContentValues}.
+     */
+    public VCardBuilder appendPhones(final int count, final int[] types, final String[] labels,
+            final String[] phoneNumbers, final boolean[] isPrimary,
+            VCardPhoneNumberTranslationCallback translationCallback) {
+        boolean phoneLineExists = false;
+        mValueSet.clear();
+        for (int i = 0; i < count; i++) {
+            phoneLineExists |= appendPhone(types[i], labels[i], phoneNumbers[i], isPrimary[i],
+                    translationCallback);
         }
 
         if (!phoneLineExists && mIsDoCoMo) {
@@ -836,6 +854,94 @@ public class VCardBuilder {
         return this;
     }
 
+    /**
+     * Appends the TEL lines of a phone not appended yet since {@link #mValueSet} was cleared.
+     *
+     * @return true if a phone line exists for the phone, as needed by DoCoMo.
+     */
+    private boolean appendPhone(final int type, final String label, String phoneNumber,
+            final boolean isPrimary, VCardPhoneNumberTranslationCallback translationCallback) {
+        final Set<String> phoneSet = mValueSet;
+        boolean phoneLineExists = false;
+        if (phoneNumber != null) {
+            phoneNumber = phoneNumber.trim();
+        }
+        if (TextUtils.isEmpty(phoneNumber)) {
+            return false;
+        }
+
+        // Note: We prioritize this callback over FLAG_REFRAIN_PHONE_NUMBER_FORMATTING
+        // intentionally. In the future the flag will be replaced by callback
+        // mechanism entirely.
+        if (translationCallback != null) {
+            phoneNumber = translationCallback.onValueReceived(
+                    phoneNumber, type, label, isPrimary);
+            if (!TextUtils.isEmpty(phoneNumber) && !phoneSet.contains(phoneNumber)) {
+                phoneSet.add(phoneNumber);
+                appendTelLine(type, label, phoneNumber, isPrimary);
+            }
+        } else if (type == Phone.TYPE_PAGER ||
+                VCardConfig.refrainPhoneNumberFormatting(mVCardType)) {
+            // Note: PAGER number needs unformatted "phone number".
+            phoneLineExists = true;
+            if (!phoneSet.contains(phoneNumber)) {
+                phoneSet.add(phoneNumber);
+                appendTelLine(type, label, phoneNumber, isPrimary);
+            }
+        } else {
+            final List<String> phoneNumberList = splitPhoneNumbers(phoneNumber);
+            if (phoneNumberList.isEmpty()) {
+                return false;
+            }
+            phoneLineExists = true;
+            for (String actualPhoneNumber : phoneNumberList) {
+                if (!phoneSet.contains(actualPhoneNumber)) {
+                    // 'p' and 'w' are the standard characters for pause and wait
+                    // (see RFC 3601)
+                    // so use those when exporting phone numbers via vCard.
+                    String numberWithControlSequence = actualPhoneNumber
+                            .replace(PhoneNumberUtils.PAUSE, 'p')
+                            .replace(PhoneNumberUtils.WAIT, 'w');
+                    String formatted;
+                    // TODO: remove this code and relevant test cases. vCard and any other
+                    // codes using it shouldn't rely on the formatter here.
+                    if (TextUtils.equals(numberWithControlSequence, actualPhoneNumber)) {
+                        StringBuilder digitsOnlyBuilder = new StringBuilder();
+                        final int length = actualPhoneNumber.length();
+                        for (int i = 0; i < length; i++) {
+                            final char ch = actualPhoneNumber.charAt(i);
+                            if (Character.isDigit(ch) || ch == '+') {
+                                digitsOnlyBuilder.append(ch);
+                            }
+                        }
+                        final int phoneFormat =
+                                VCardUtils.getPhoneNumberFormat(mVCardType);
+                        formatted = VCardUtils.PhoneNumberUtilsPort.formatNumber(
+                                digitsOnlyBuilder.toString(), phoneFormat);
+                    } else {
+                        // Be conservative.
+                        formatted = numberWithControlSequence;
+                    }
+
+                    // In vCard 4.0, value type must be "a single URI value",
+                    // not just a phone number. (Based on vCard 4.0 rev.13)
+                    if (VCardConfig.isVersion40(mVCardType)
+                            && !TextUtils.isEmpty(formatted)
+                            && !formatted.startsWith("tel:")) {
+                        formatted = "tel:" + formatted;
+                    }
+
+                    // Pre-formatted string should be stored.
+                    phoneSet.add(actualPhoneNumber);
+                    appendTelLine(type, label, formatted, isPrimary);
+                }
+            }  // for (String actualPhoneNumber : phoneNumberList) {
+
+            // TODO: TEL with SIP URI?
+        }
+        return phoneLineExists;
+    }
+
     /**
      * <p>
      * Splits a given string expressing phone numbers into several strings, and remove
@@ -884,15 +990,8 @@ public class VCardBuilder {
     public VCardBuilder appendEmails(final List<ContentValues> contentValuesList) {
         boolean emailAddressExists = false;
         if (contentValuesList != null) {
-            final Set<String> addressSet = new HashSet<>();
+            mValueSet.clear();
             for (ContentValues contentValues : contentValuesList) {
-                String emailAddress = contentValues.getAsString(Email.DATA);
-                if (emailAddress != null) {
-                    emailAddress = emailAddress.trim();
-                }
-                if (TextUtils.isEmpty(emailAddress)) {
-                    continue;
-                }
                 Integer typeAsObject = contentValues.getAsInteger(Email.TYPE);
                 final int type = (typeAsObject != null ?
                         typeAsObject : DEFAULT_EMAIL_TYPE);
@@ -900,11 +999,8 @@ public class VCardBuilder {
                 Integer isPrimaryAsInteger = contentValues.getAsInteger(Email.IS_PRIMARY);
                 final boolean isPrimary = (isPrimaryAsInteger != null ?
                         (isPrimaryAsInteger > 0) : false);
-                emailAddressExists = true;
-                if (!addressSet.contains(emailAddress)) {
-                    addressSet.add(emailAddress);
-                    appendEmailLine(type, label, emailAddress, isPrimary);
-                }
+                emailAddressExists |= appendEmail(type, label,
+                        contentValues.getAsString(Email.DATA), isPrimary);
             }
         }
 
@@ -915,6 +1011,47 @@ public class VCardBuilder {
         return this;
     }
 
+    /**
+     * Same as {@link #appendEmails(List)} for the first count emails of parallel arrays, read
+     * without {@link ContentValues}.
+     */
+    public VCardBuilder appendEmails(final int count, final int[] types, final String[] labels,
+            final String[] emailAddresses, final boolean[] isPrimary) {
+        boolean emailAddressExists = false;
+        mValueSet.clear();
+        for (int i = 0; i < count; i++) {
+            emailAddressExists |= appendEmail(types[i], labels[i], emailAddresses[i],
+                    isPrimary[i]);
+        }
+
+        if (!emailAddressExists && mIsDoCoMo) {
+            appendEmailLine(Email.TYPE_HOME, "", "", false);
+        }
+
+        return this;
+    }
+
+    /**
+     * Appends the EMAIL line of an address not appended yet since {@link #mValueSet} was
+     * cleared.
+     *
+     * @return false if the address is empty.
+     */
+    private boolean appendEmail(final int type, final String label, String emailAddress,
+            final boolean isPrimary) {
+        if (emailAddress != null) {
+            emailAddress = emailAddress.trim();
+        }
+        if (TextUtils.isEmpty(emailAddress)) {
+            return false;
+        }
+        if (!mValueSet.contains(emailAddress)) {
+            mValueSet.add(emailAddress);
+            appendEmailLine(type, label, emailAddress, isPrimary);
+        }
+        return true;
+    }
+
     public void appendEmailLine(final int type, final String label,
             final String rawValue, final boolean isPrimary) {
         final String typeAsString;
@@ -1125,13 +1262,13 @@ public class VCardBuilder {
 
     public void appendLineWithCharsetAndQPDetection(final String propertyName,
             final List<String> parameterList, final String rawValue) {
-        final boolean needCharset =
-                !VCardUtils.containsOnlyPrintableAscii(rawValue);
-        final boolean reallyUseQuotedPrintable =
-                (mShouldUseQuotedPrintable &&
-                        !VCardUtils.containsOnlyNonCrLfPrintableAscii(rawValue));
-        appendLine(propertyName, parameterList,
-                rawValue, needCharset, reallyUseQuotedPrintable);
+        mValueFlags = 0;
+        final String escapedValue = escapeCharacters(rawValue);
+        final boolean needCharset = (mValueFlags & VALUE_NEEDS_CHARSET) != 0;
+        final boolean reallyUseQuotedPrintable = mShouldUseQuotedPrintable &&
+                (mValueFlags & VALUE_NEEDS_QUOTED_PRINTABLE) != 0;
+        appendEncodedLine(propertyName, parameterList, needCharset, reallyUseQuotedPrintable,
+                reallyUseQuotedPrintable ? encodeQuotedPrintable(rawValue) : escapedValue);
     }
 
     /**
@@ -1150,6 +1287,24 @@ public class VCardBuilder {
     public void appendLine(final String propertyName, final List<String> parameterList,
             final String rawValue, final boolean needCharset,
             boolean reallyUseQuotedPrintable) {
+        final String encodedValue;
+        if (reallyUseQuotedPrintable) {
+            encodedValue = encodeQuotedPrintable(rawValue);
+        } else {
+            // TODO: one line may be too huge, which may be invalid in vCard spec, though
+            //       several (even well-known) applications do not care that violation.
+            encodedValue = escapeCharacters(rawValue);
+        }
+        appendEncodedLine(propertyName, parameterList, needCharset, reallyUseQuotedPrintable,
+                encodedValue);
+    }
+
+    /**
+     * Appends one line with a value already escaped or encoded in quoted-printable.
+     */
+    private void appendEncodedLine(final String propertyName, final List<String> parameterList,
+            final boolean needCharset, final boolean reallyUseQuotedPrintable,
+            final String encodedValue) {
         mBuilder.append(propertyName);
         if (parameterList != null && parameterList.size() > 0) {
             mBuilder.append(VCARD_PARAM_SEPARATOR);
@@ -1159,16 +1314,9 @@ public class VCardBuilder {
             mBuilder.append(VCARD_PARAM_SEPARATOR);
             mBuilder.append(mVCardCharsetParameter);
         }
-
-        final String encodedValue;
         if (reallyUseQuotedPrintable) {
             mBuilder.append(VCARD_PARAM_SEPARATOR);
             mBuilder.append(VCARD_PARAM_ENCODING_QP);
-            encodedValue = encodeQuotedPrintable(rawValue);
-        } else {
-            // TODO: one line may be too huge, which may be invalid in vCard spec, though
-            //       several (even well-known) applications do not care that violation.
-            encodedValue = escapeCharacters(rawValue);
         }
 
         mBuilder.append(VCARD_DATA_SEPARATOR);
@@ -1256,7 +1404,74 @@ public class VCardBuilder {
         return false;
     }
 
+    private boolean shouldAppendCharsetParam(final int valueFlags) {
+        return mShouldAppendCharsetParam && (valueFlags & VALUE_NEEDS_CHARSET) != 0;
+    }
+
     private String encodeQuotedPrintable(final String str) {
+        if (mUsesLegacyQuotedPrintable) {
+            return encodeQuotedPrintableLegacy(str);
+        }
+        if (TextUtils.isEmpty(str)) {
+            return "";
+        }
+
+        if (mCharsetEncoder == null) {
+            mCharsetEncoder = getCharset().newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            mEncodedBytes = ByteBuffer.allocate(QUOTED_PRINTABLE_BUFFER_SIZE);
+            mQuotedPrintableBuilder = new StringBuilder();
+        }
+
+        final CharsetEncoder encoder = mCharsetEncoder.reset();
+        final CharBuffer chars = CharBuffer.wrap(str);
+        final ByteBuffer bytes = mEncodedBytes;
+        final StringBuilder builder = mQuotedPrintableBuilder;
+        builder.setLength(0);
+        int lineCount = 0;
+        boolean flushing = false;
+        CoderResult result;
+        do {
+            bytes.clear();
+            result = flushing ? encoder.flush(bytes) : encoder.encode(chars, bytes, true);
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                // The soft line break is only added before a byte, so a value never ends
+                // with one.
+                if (lineCount >= QUOTED_PRINTABLE_MAX_LINE_COUNT) {
+                    builder.append("=\r\n");
+                    lineCount = 0;
+                }
+                final int b = bytes.get();
+                builder.append('=');
+                builder.append(HEX_DIGITS[(b >> 4) & 0xF]);
+                builder.append(HEX_DIGITS[b & 0xF]);
+                lineCount += 3;
+            }
+            if (result.isUnderflow() && !flushing) {
+                flushing = true;
+                result = CoderResult.OVERFLOW;
+            }
+        } while (result.isOverflow());
+
+        return builder.toString();
+    }
+
+    /**
+     * Returns the export charset, or the default one if it isn't supported.
+     */
+    private Charset getCharset() {
+        try {
+            return Charset.forName(mCharset);
+        } catch (IllegalArgumentException e) {
+            Log.e(LOG_TAG, "Charset " + mCharset + " cannot be used. "
+                    + "Try default charset");
+            return Charset.defaultCharset();
+        }
+    }
+
+    private String encodeQuotedPrintableLegacy(final String str) {
         if (TextUtils.isEmpty(str)) {
             return "";
         }
@@ -1298,79 +1513,115 @@ public class VCardBuilder {
      * Append '\' to the characters which should be escaped. The character set is different
      * not only between vCard 2.1 and vCard 3.0 but also among each device.
      *
+     * The characters are classified in the same pass, adding VALUE_* flags to
+     * {@link #mValueFlags}. The value itself is returned when nothing needs escaping.
+     *
      * Note that Quoted-Printable string must not be input here.
      */
-    @SuppressWarnings("fallthrough")
     private String escapeCharacters(final String unescaped) {
         if (TextUtils.isEmpty(unescaped)) {
             return "";
         }
 
-        final StringBuilder tmpBuilder = new StringBuilder();
+        StringBuilder tmpBuilder = null;
+        int flags = 0;
         final int length = unescaped.length();
         for (int i = 0; i < length; i++) {
             final char ch = unescaped.charAt(i);
+            if (ch >= 0x7F || (ch < 0x20 && ch != '\r' && ch != '\n')) {
+                flags |= VALUE_NEEDS_CHARSET | VALUE_NEEDS_QUOTED_PRINTABLE;
+            } else if (ch < 0x20) {
+                flags |= VALUE_NEEDS_QUOTED_PRINTABLE;
+            }
+
+            final String escaped;
             switch (ch) {
                 case ';': {
-                    tmpBuilder.append('\\');
-                    tmpBuilder.append(';');
+                    escaped = "\\;";
                     break;
                 }
-                case '\r': {
-                    if (i + 1 < length) {
-                        char nextChar = unescaped.charAt(i);
-                        if (nextChar == '\n') {
-                            break;
-                        } else {
-                            // fall through
-                        }
-                    } else {
-                        // fall through
-                    }
-                }
+                case '\r':
                 case '\n': {
                     // In vCard 2.1, there's no specification about this, while
                     // vCard 3.0 explicitly requires this should be encoded to "\n".
-                    tmpBuilder.append("\\n");
+                    // Each character of CRLF is encoded.
+                    escaped = "\\n";
                     break;
                 }
                 case '\\': {
-                    if (mIsV30OrV40) {
-                        tmpBuilder.append("\\\\");
-                        break;
-                    } else {
-                        // fall through
-                    }
+                    escaped = mIsV30OrV40 || mIsDoCoMo ? "\\\\" : null;
+                    break;
+                }
+                case '<': {
+                    escaped = mIsDoCoMo ? "\\<" : null;
+                    break;
                 }
-                case '<':
                 case '>': {
-                    if (mIsDoCoMo) {
-                        tmpBuilder.append('\\');
-                        tmpBuilder.append(ch);
-                    } else {
-                        tmpBuilder.append(ch);
-                    }
+                    escaped = mIsDoCoMo ? "\\>" : null;
                     break;
                 }
                 case ',': {
-                    if (mIsV30OrV40) {
-                        tmpBuilder.append("\\,");
-                    } else {
-                        tmpBuilder.append(ch);
-                    }
+                    escaped = mIsV30OrV40 ? "\\," : null;
                     break;
                 }
                 default: {
-                    tmpBuilder.append(ch);
+                    escaped = null;
                     break;
                 }
             }
+
+            if (escaped != null) {
+                if (tmpBuilder == null) {
+                    tmpBuilder = new StringBuilder(length + 16);
+                    tmpBuilder.append(unescaped, 0, i);
+                }
+                tmpBuilder.append(escaped);
+            } else if (tmpBuilder != null) {
+                tmpBuilder.append(ch);
+            }
         }
-        return tmpBuilder.toString();
+        mValueFlags |= flags;
+        return tmpBuilder == null ? unescaped : tmpBuilder.toString();
     }
 
     @Override
     public String toString() {
+        appendEnd();
+        return mBuilder.toString();
+    }
+
+    /**
+     * Returns the vCard without copying it. The returned value changes with the builder, so
+     * it's only valid until the next call to {@link #clear()}.
+     */
+    public CharSequence toCharSequence() {
+        appendEnd();
+        return mBuilder;
+    }
+
+    /**
+     * Writes the vCard to the appendable without copying it into a String first.
+     */
+    public void appendTo(Appendable appendable) throws IOException {
+        appendEnd();
+        if (appendable instanceof Writer) {
+            // Writer.append(CharSequence) would convert the whole vCard to a String.
+            final Writer writer = (Writer) appendable;
+            if (mWriteBuffer == null) {
+                mWriteBuffer = new char[WRITE_BUFFER_SIZE];
+            }
+            final int length = mBuilder.length();
+            for (int start = 0; start < length; start += mWriteBuffer.length) {
+                final int end = Math.min(length, start + mWriteBuffer.length);
+                mBuilder.getChars(start, end, mWriteBuffer, 0);
+                writer.write(mWriteBuffer, 0, end - start);
+            }
+        } else {
+            appendable.append(mBuilder);
+        }
+    }
+
+    private void appendEnd() {
         if (!mEndAppended) {
             if (mIsDoCoMo) {
                 appendLine(VCardConstants.PROPERTY_X_CLASS, VCARD_DATA_PUBLIC);
@@ -1381,6 +1632,5 @@ public class VCardBuilder {
             appendLine(VCardConstants.PROPERTY_END, VCARD_DATA_VCARD);
             mEndAppended = true;
         }
-        return mBuilder.toString();
     }
 }
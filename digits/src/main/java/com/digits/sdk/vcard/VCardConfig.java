@@ -245,6 +245,19 @@ public class VCardConfig {
      */
     public static final int FLAG_REFRAIN_IMAGE_EXPORT = 0x00800000;
 
+    /**
+     * <p>
+     * The flag asking exporter to encode quoted-printable values the way it originally did,
+     * formatting each byte separately. That encoder also ends a value with a soft line break
+     * when its last encoded byte fills the line.
+     * </p>
+     * <p>
+     * By default values are encoded through a lookup table, and never end with a soft line
+     * break. The output is otherwise the same.
+     * </p>
+     */
+    public static final int FLAG_USE_LEGACY_QUOTED_PRINTABLE = 0x01000000;
+
     //// The followings are VCard types available from importer/exporter. ////
 
     /**
@@ -461,6 +474,10 @@ public class VCardConfig {
         return ((vcardType & FLAG_REFRAIN_PHONE_NUMBER_FORMATTING) != 0);
     }
 
+    public static boolean usesLegacyQuotedPrintable(final int vcardType) {
+        return ((vcardType & FLAG_USE_LEGACY_QUOTED_PRINTABLE) != 0);
+    }
+
     public static boolean needsToConvertPhoneticString(final int vcardType) {
         return ((vcardType & FLAG_CONVERT_PHONETIC_NAME_STRINGS) != 0);
     }
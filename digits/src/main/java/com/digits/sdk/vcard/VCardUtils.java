@@ -288,8 +288,14 @@ public class VCardUtils {
         return true;
     }
 
-    private static final Set<Character> sUnAcceptableAsciiInV21WordSet =
-        new HashSet<>(Arrays.asList('[', ']', '=', ':', '.', ',', ' '));
+    // Indexed by ASCII code.
+    private static final boolean[] sUnAcceptableAsciiInV21Word = new boolean[0x80];
+
+    static {
+        for (char c : "[]=:., ".toCharArray()) {
+            sUnAcceptableAsciiInV21Word[c] = true;
+        }
+    }
 
     /**
      * <p>
@@ -383,7 +389,7 @@ public class VCardUtils {
         for (int i = 0; i < length; i = value.offsetByCodePoints(i, 1)) {
             final int c = value.codePointAt(i);
             if (!(asciiFirst <= c && c <= asciiLast) ||
-                    sUnAcceptableAsciiInV21WordSet.contains((char)c)) {
+                    sUnAcceptableAsciiInV21Word[c]) {
                 return false;
             }
         }
@@ -454,16 +460,13 @@ public class VCardUtils {
         if (TextUtils.isEmpty(orgString)) {
             return null;
         }
-        final StringBuilder builder = new StringBuilder();
         final int length = orgString.length();
+        final StringBuilder builder = new StringBuilder(length);
         for (int i = 0; i < length; i = orgString.offsetByCodePoints(i, 1)) {
             // All Japanese character is able to be expressed by char.
             // Do not need to use String#codepPointAt().
             final char ch = orgString.charAt(i);
-            final String halfWidthText = JapaneseUtils.tryGetHalfWidthText(ch);
-            if (halfWidthText != null) {
-                builder.append(halfWidthText);
-            } else {
+            if (!JapaneseUtils.appendHalfWidthText(builder, ch)) {
                 builder.append(ch);
             }
         }
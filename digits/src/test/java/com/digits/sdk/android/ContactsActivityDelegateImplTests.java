@@ -18,6 +18,7 @@
 package com.digits.sdk.android;
 
 import android.app.Activity;
+import android.content.Intent;
 import android.view.View;
 import android.widget.Button;
 import android.widget.TextView;
@@ -29,6 +30,8 @@ import org.mockito.ArgumentCaptor;
 import org.robolectric.RobolectricGradleTestRunner;
 import org.robolectric.annotation.Config;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.*;
 
 @RunWith(RobolectricGradleTestRunner.class)
@@ -103,10 +106,25 @@ public class ContactsActivityDelegateImplTests {
         verify(button).setOnClickListener(captorClick.capture());
         final View.OnClickListener listener = captorClick.getValue();
         listener.onClick(null);
-        verify(controller).startUploadService(activity);
+        verify(controller).startUploadService(activity, null);
         verify(activity).finish();
     }
 
+    @Test
+    public void testGetUploadOptions() {
+        final ContactsUploadOptions options = new ContactsUploadOptions.Builder().build();
+        final Intent intent = new Intent();
+        intent.putExtra(ContactsUploadService.UPLOAD_OPTIONS_EXTRA, options);
+        when(activity.getIntent()).thenReturn(intent);
+
+        assertEquals(options, delegate.getUploadOptions());
+    }
+
+    @Test
+    public void testGetUploadOptions_noIntent() {
+        assertNull(delegate.getUploadOptions());
+    }
+
     public class DummyContactsDelegateImpl extends ContactsActivityDelegateImpl {
 
         public DummyContactsDelegateImpl(Activity activity, ContactsController controller) {
@@ -21,6 +21,9 @@ import android.content.ComponentName;
 import android.content.Intent;
 import android.test.mock.MockContext;
 
+import com.twitter.sdk.android.core.Result;
+import com.twitter.sdk.android.core.TwitterApiException;
+import com.twitter.sdk.android.core.TwitterException;
 import com.twitter.sdk.android.core.TwitterCore;
 
 import com.digits.sdk.android.ContactsClient.ContactsService;
@@ -29,10 +32,26 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import retrofit.RestAdapter;
+import retrofit.RetrofitError;
+import retrofit.client.Client;
+import retrofit.client.Header;
+import retrofit.client.Request;
+import retrofit.client.Response;
+import retrofit.mime.TypedByteArray;
+import retrofit.mime.TypedOutput;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
@@ -40,6 +59,8 @@ import static org.mockito.Mockito.*;
 @RunWith(RobolectricGradleTestRunner.class)
 @Config(constants = BuildConfig.class, emulateSdk = 21)
 public class ContactsClientTests {
+    private static final String ENDPOINT = "http://localhost";
+    private static final long USER_ID = 1L;
     private TwitterCore twitterCore;
     private MockContext context;
     private ContactsClient contactsClient;
@@ -121,6 +142,51 @@ public class ContactsClientTests {
         verify(contactsClient).startContactsUpload(context, R.style.Digits_default);
     }
 
+    @Test
+    public void testStartContactsUpload_options() {
+        contactsClient = spy(contactsClient);
+        final ContactsUploadOptions options = new ContactsUploadOptions.Builder().build();
+
+        contactsClient.startContactsUpload(options);
+
+        verify(contactsClient).startContactsUpload(R.style.Digits_default, options);
+        verify(contactsClient).startContactsUpload(context, R.style.Digits_default, options);
+    }
+
+    @Test
+    public void testStartContactsUpload_nullOptions() {
+        try {
+            contactsClient.startContactsUpload(R.style.Digits_default, null);
+            fail("Expected IllegalArgumentException to be thrown");
+        } catch (IllegalArgumentException e) {
+            assertEquals("options must not be null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testStartContactsUpload_optionsPassedToActivity() {
+        when(prefManager.hasContactImportPermissionGranted()).thenReturn(false);
+        final ContactsUploadOptions options = new ContactsUploadOptions.Builder().build();
+
+        contactsClient.startContactsUpload(context, R.style.Digits_default, options);
+
+        verify(context).startActivity(intentArgumentCaptor.capture());
+        assertEquals(options, intentArgumentCaptor.getValue()
+                .getParcelableExtra(ContactsUploadService.UPLOAD_OPTIONS_EXTRA));
+    }
+
+    @Test
+    public void testStartContactsUpload_optionsPassedToService() {
+        when(prefManager.hasContactImportPermissionGranted()).thenReturn(true);
+        final ContactsUploadOptions options = new ContactsUploadOptions.Builder().build();
+
+        contactsClient.startContactsUpload(context, R.style.Digits_default, options);
+
+        verify(context).startService(intentArgumentCaptor.capture());
+        assertEquals(options, intentArgumentCaptor.getValue()
+                .getParcelableExtra(ContactsUploadService.UPLOAD_OPTIONS_EXTRA));
+    }
+
     @Test
     public void testStartContactsUpload_uploadPermissionNotGranted() {
         when(prefManager.hasContactImportPermissionGranted()).thenReturn(false);
@@ -166,9 +232,24 @@ public class ContactsClientTests {
 
     @Test
     public void testDeleteAllContacts() {
+        final ContactsMatchesStore matchesStore = mock(ContactsMatchesStore.class);
+        final List<Runnable> tasks = new ArrayList<>();
+        contactsClient = new ContactsClient(twitterCore, prefManager,
+                activityClassManagerFactory, contactsService, matchesStore, new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        tasks.add(command);
+                    }
+                });
+
         contactsClient.deleteAllUploadedContacts(callback);
 
+        verify(prefManager).clearContactsReadTimestamp();
         verify(contactsService).deleteAll(callback);
+        // Stored files are deleted on the executor.
+        verifyZeroInteractions(matchesStore);
+        tasks.get(0).run();
+        verify(matchesStore).clear();
     }
 
     @Test
@@ -211,11 +292,341 @@ public class ContactsClientTests {
     }
 
     @Test
-    public void testUploadContacts() {
-        final Vcards vCards = new Vcards(new ArrayList<String>());
+    public void testLookupCachedContactMatches_notStored() {
+        final ContactsMatchesStore matchesStore = createMatchesStore(1000);
+        final Contacts contacts = ContactsMatchesStoreTests.createContacts("next", 1, 2);
+        final Contacts nextContacts = ContactsMatchesStoreTests.createContacts(null, 3);
+        when(contactsService.usersAndUploadedBy(null, 20)).thenReturn(contacts);
+        when(contactsService.usersAndUploadedBy("next", 20)).thenReturn(nextContacts);
+
+        createCachingClient(matchesStore).lookupCachedContactMatches(null, 20, callback);
+
+        final ArgumentCaptor<Result> result = ArgumentCaptor.forClass(Result.class);
+        verify(callback).success(result.capture());
+        assertSame(contacts, result.getValue().data);
+        // Next page is prefetched.
+        verify(contactsService).usersAndUploadedBy("next", 20);
+        assertEquals(1, matchesStore.get(USER_ID, "next", 20).contacts.users.size());
+    }
+
+    @Test
+    public void testLookupCachedContactMatches_stored() {
+        final ContactsMatchesStore matchesStore = createMatchesStore(1000000);
+        final Contacts contacts = ContactsMatchesStoreTests.createContacts(null, 1);
+        matchesStore.put(USER_ID, "cursor", null, contacts, System.currentTimeMillis());
 
-        contactsClient.uploadContacts(vCards);
+        createCachingClient(matchesStore).lookupCachedContactMatches("cursor", 0, callback);
 
-        verify(contactsService).upload(vCards);
+        final ArgumentCaptor<Result> result = ArgumentCaptor.forClass(Result.class);
+        verify(callback).success(result.capture());
+        assertSame(contacts, result.getValue().data);
+        verifyZeroInteractions(contactsService);
+    }
+
+    @Test
+    public void testLookupCachedContactMatches_stale() {
+        final ContactsMatchesStore matchesStore = createMatchesStore(1000);
+        final Contacts contacts = ContactsMatchesStoreTests.createContacts(null, 1);
+        matchesStore.put(USER_ID, null, null, contacts, System.currentTimeMillis() - 1000);
+        when(contactsService.usersAndUploadedBy(null, null))
+                .thenReturn(ContactsMatchesStoreTests.createContacts(null, 1, 2));
+
+        createCachingClient(matchesStore).lookupCachedContactMatches(null, null, callback);
+
+        final ArgumentCaptor<Result> result = ArgumentCaptor.forClass(Result.class);
+        verify(callback).success(result.capture());
+        assertSame(contacts, result.getValue().data);
+        // Refreshed for the next lookup.
+        assertEquals(2, matchesStore.get(USER_ID, null, null).contacts.users.size());
+    }
+
+    @Test
+    public void testLookupCachedContactMatches_staleNextCursorChanged() {
+        final ContactsMatchesStore matchesStore = createMatchesStore(1000);
+        matchesStore.put(USER_ID, null, null, ContactsMatchesStoreTests.createContacts("old", 1),
+                System.currentTimeMillis() - 1000);
+        when(contactsService.usersAndUploadedBy(null, null))
+                .thenReturn(ContactsMatchesStoreTests.createContacts("new", 1, 2));
+        when(contactsService.usersAndUploadedBy("new", null))
+                .thenReturn(ContactsMatchesStoreTests.createContacts(null, 3));
+
+        createCachingClient(matchesStore).lookupCachedContactMatches(null, null, callback);
+
+        // The next page is prefetched with the cursor of the refreshed page.
+        verify(contactsService).usersAndUploadedBy("new", null);
+        verify(contactsService, never()).usersAndUploadedBy("old", null);
+        assertEquals(1, matchesStore.get(USER_ID, "new", null).contacts.users.size());
+    }
+
+    @Test
+    public void testLookupCachedContactMatches_failure() {
+        when(contactsService.usersAndUploadedBy(null, null))
+                .thenThrow(RetrofitError.networkError(ENDPOINT, new IOException()));
+
+        createCachingClient(createMatchesStore(1000))
+                .lookupCachedContactMatches(null, null, callback);
+
+        verify(callback).failure(any(TwitterApiException.class));
+        verify(callback, never()).success(any(Result.class));
+    }
+
+    @Test
+    public void testFetchAllContactMatches() {
+        final ContactMatchesListener listener = mock(ContactMatchesListener.class);
+        final Contacts firstPage = ContactsMatchesStoreTests.createContacts("next", 1, 2);
+        final Contacts lastPage = ContactsMatchesStoreTests.createContacts(null, 3);
+        when(contactsService.usersAndUploadedBy(null, ContactsClient.MAX_MATCHES_PAGE_SIZE))
+                .thenReturn(firstPage);
+        when(contactsService.usersAndUploadedBy("next", ContactsClient.MAX_MATCHES_PAGE_SIZE))
+                .thenReturn(lastPage);
+        final ContactsMatchesStore matchesStore = spy(createMatchesStore(1000));
+
+        createCachingClient(matchesStore).fetchAllContactMatches(0, listener);
+
+        final InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).onMatches(firstPage.users);
+        inOrder.verify(listener).onMatches(lastPage.users);
+        inOrder.verify(listener).onComplete(3);
+        verify(listener, never()).onFailure(any(TwitterException.class));
+        assertEquals(2, matchesStore.size());
+        // The store is written once for all the pages.
+        verify(matchesStore).putAll(eq(USER_ID), eq(ContactsClient.MAX_MATCHES_PAGE_SIZE),
+                anyMap(), anyLong());
+        verify(matchesStore, never()).put(anyLong(), anyString(), anyInt(), any(Contacts.class),
+                anyLong());
+    }
+
+    @Test
+    public void testFetchAllContactMatches_maxUsers() {
+        final ContactMatchesListener listener = mock(ContactMatchesListener.class);
+        when(contactsService.usersAndUploadedBy(null, ContactsClient.MAX_MATCHES_PAGE_SIZE))
+                .thenReturn(ContactsMatchesStoreTests.createContacts("next", 1, 2, 3));
+
+        createCachingClient(createMatchesStore(1000)).fetchAllContactMatches(2, listener);
+
+        final ArgumentCaptor<List> users = ArgumentCaptor.forClass(List.class);
+        verify(listener).onMatches(users.capture());
+        assertEquals(2, users.getValue().size());
+        verify(listener).onComplete(2);
+        verify(contactsService, never()).usersAndUploadedBy("next",
+                ContactsClient.MAX_MATCHES_PAGE_SIZE);
+    }
+
+    @Test
+    public void testFetchAllContactMatches_repeatedCursor() {
+        final ContactMatchesListener listener = mock(ContactMatchesListener.class);
+        when(contactsService.usersAndUploadedBy(anyString(), anyInt()))
+                .thenReturn(ContactsMatchesStoreTests.createContacts("next", 1));
+
+        createCachingClient(createMatchesStore(1000)).fetchAllContactMatches(0, listener);
+
+        verify(contactsService).usersAndUploadedBy("next", ContactsClient.MAX_MATCHES_PAGE_SIZE);
+        verify(listener).onComplete(2);
+    }
+
+    @Test
+    public void testFetchAllContactMatches_failure() {
+        final ContactMatchesListener listener = mock(ContactMatchesListener.class);
+        when(contactsService.usersAndUploadedBy(null, ContactsClient.MAX_MATCHES_PAGE_SIZE))
+                .thenThrow(RetrofitError.networkError(ENDPOINT, new IOException()));
+
+        createCachingClient(createMatchesStore(1000)).fetchAllContactMatches(0, listener);
+
+        verify(listener).onFailure(any(TwitterApiException.class));
+        verify(listener, never()).onComplete(anyInt());
+    }
+
+    @Test
+    public void testFetchAllContactMatches_cancelled() {
+        final ContactMatchesListener listener = mock(ContactMatchesListener.class);
+        final List<Runnable> tasks = new ArrayList<>();
+        final ContactsClient client = new ContactsClient(twitterCore, prefManager,
+                activityClassManagerFactory, contactsService, createMatchesStore(1000),
+                new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        tasks.add(command);
+                    }
+                }) {
+            @Override
+            long getActiveUserId() {
+                return USER_ID;
+            }
+        };
+
+        final ContactMatchesRequest request = client.fetchAllContactMatches(0, listener);
+        request.cancel();
+        tasks.get(0).run();
+
+        assertTrue(request.isCancelled());
+        verifyZeroInteractions(contactsService);
+        verifyZeroInteractions(listener);
+    }
+
+    @Test
+    public void testFetchAllContactMatches_invalid() {
+        try {
+            contactsClient.fetchAllContactMatches(-1, mock(ContactMatchesListener.class));
+            fail("Expected IllegalArgumentException to be thrown");
+        } catch (IllegalArgumentException e) {
+            assertEquals("maxUsers must not be negative", e.getMessage());
+        }
+        try {
+            contactsClient.fetchAllContactMatches(0, null);
+            fail("Expected IllegalArgumentException to be thrown");
+        } catch (IllegalArgumentException e) {
+            assertEquals("listener must not be null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testUploadContacts() throws Exception {
+        final ContactsUploadBody body = ContactsUploadBody.create(
+                new Vcards(new ArrayList<String>()), false);
+
+        contactsClient.uploadContacts(body);
+
+        verify(contactsService).upload(null, body);
+    }
+
+    @Test
+    public void testUploadContacts_compressed() throws Exception {
+        final ContactsUploadBody body = ContactsUploadBody.create(
+                new Vcards(new ArrayList<String>()), true);
+
+        contactsClient.uploadContacts(body);
+
+        verify(contactsService).upload(ContactsUploadBody.GZIP_ENCODING, body);
+    }
+
+    @Test
+    public void testUploadContacts_hashed() throws Exception {
+        final ContactsUploadBody body = ContactsUploadBody.createHashed(
+                new ArrayList<String>(), "salt", false);
+
+        contactsClient.uploadContacts(body);
+
+        verify(contactsService).uploadHashed(null, body);
+        verify(contactsService, never()).upload(anyString(), any(ContactsUploadBody.class));
+    }
+
+    @Test
+    public void testAddUploadProgressListener_nullListener() {
+        try {
+            contactsClient.addUploadProgressListener(null);
+            fail("Expected IllegalArgumentException to be thrown");
+        } catch (IllegalArgumentException e) {
+            assertEquals("listener must not be null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testNotifyUploadProgress() {
+        final ContactsUploadProgressListener listener =
+                mock(ContactsUploadProgressListener.class);
+        final ContactsUploadProgress progress = new ContactsUploadProgress(1, 2, 3, 4);
+        contactsClient.addUploadProgressListener(listener);
+
+        contactsClient.notifyUploadProgress(progress);
+
+        verify(listener).onProgress(progress);
+    }
+
+    @Test
+    public void testRemoveUploadProgressListener() {
+        final ContactsUploadProgressListener listener =
+                mock(ContactsUploadProgressListener.class);
+        contactsClient.addUploadProgressListener(listener);
+        contactsClient.removeUploadProgressListener(listener);
+
+        contactsClient.notifyUploadProgress(new ContactsUploadProgress(1, 2, 3, 4));
+
+        verifyZeroInteractions(listener);
+    }
+
+    @Test
+    public void testUploadContacts_wireFormat() throws Exception {
+        final LocalContactsEndpoint endpoint = new LocalContactsEndpoint();
+        final ContactsUploadBody body = ContactsUploadBody.create(
+                new Vcards(Collections.singletonList("BEGIN:VCARD\r\nEND:VCARD\r\n")), false);
+
+        createClient(endpoint).uploadContacts(body);
+
+        assertEquals("POST", endpoint.request.getMethod());
+        assertEquals(ENDPOINT + "/1.1/contacts/upload.json", endpoint.request.getUrl());
+        assertEquals("application/json; charset=UTF-8", endpoint.request.getBody().mimeType());
+        assertArrayEquals(toByteArray(body), toByteArray(endpoint.request.getBody()));
+    }
+
+    @Test
+    public void testUploadContacts_hashedWireFormat() throws Exception {
+        final LocalContactsEndpoint endpoint = new LocalContactsEndpoint();
+        final ContactsUploadBody body = ContactsUploadBody.createHashed(
+                Collections.singletonList("+15555555555\nsupport@digits.com\n"), "salt", true);
+
+        createClient(endpoint).uploadContacts(body);
+
+        assertEquals("POST", endpoint.request.getMethod());
+        assertEquals(ENDPOINT + "/1.1/contacts/upload_hashed.json", endpoint.request.getUrl());
+        assertTrue(endpoint.request.getHeaders().contains(
+                new Header("Content-Encoding", ContactsUploadBody.GZIP_ENCODING)));
+        assertEquals("application/octet-stream", endpoint.request.getBody().mimeType());
+        assertArrayEquals(toByteArray(body), toByteArray(endpoint.request.getBody()));
+    }
+
+    private static ContactsMatchesStore createMatchesStore(long ttlMillis) {
+        final ContactsMatchesStore matchesStore =
+                new ContactsMatchesStore(RuntimeEnvironment.application, ttlMillis);
+        matchesStore.clear();
+        return matchesStore;
+    }
+
+    /**
+     * Returns a client running lookups on the calling thread.
+     */
+    private ContactsClient createCachingClient(ContactsMatchesStore matchesStore) {
+        return new ContactsClient(twitterCore, prefManager, activityClassManagerFactory,
+                contactsService, matchesStore, new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        command.run();
+                    }
+                }) {
+            @Override
+            long getActiveUserId() {
+                return USER_ID;
+            }
+        };
+    }
+
+    private ContactsClient createClient(Client client) {
+        final ContactsService service = new RestAdapter.Builder()
+                .setEndpoint(ENDPOINT)
+                .setClient(client)
+                .build()
+                .create(ContactsService.class);
+        return new ContactsClient(twitterCore, prefManager, activityClassManagerFactory,
+                service);
+    }
+
+    private static byte[] toByteArray(TypedOutput body) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Stands in for the contacts endpoints, recording the last request to check its wire
+     * format.
+     */
+    private static class LocalContactsEndpoint implements Client {
+        Request request;
+
+        @Override
+        public Response execute(Request request) throws IOException {
+            this.request = request;
+            return new Response(request.getUrl(), 200, "OK", Collections.<Header>emptyList(),
+                    new TypedByteArray("application/json", "{}".getBytes("UTF-8")));
+        }
     }
 }
@@ -52,7 +52,8 @@ public class ContactsControllerTests {
 
     @Test
     public void testStartUploadService() {
-        controller.startUploadService(context);
+        final ContactsUploadOptions options = new ContactsUploadOptions.Builder().build();
+        controller.startUploadService(context, options);
 
         verify(context).startService(intentCaptor.capture());
         final Intent intent = intentCaptor.getValue();
@@ -60,5 +61,7 @@ public class ContactsControllerTests {
         final ComponentName component = new ComponentName(context, ContactsUploadService.class
                 .getName());
         assertEquals(component, intent.getComponent());
+        assertEquals(options, intent.getParcelableExtra(
+                ContactsUploadService.UPLOAD_OPTIONS_EXTRA));
     }
 }
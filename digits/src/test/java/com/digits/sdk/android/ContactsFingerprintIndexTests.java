@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, emulateSdk = 21)
+public class ContactsFingerprintIndexTests {
+    private static final long USER_ID = 1L;
+    private static final long READ_TIMESTAMP = 1000L;
+    private static final String LOOKUP_KEY = "lookup";
+    private static final String OTHER_LOOKUP_KEY = "other";
+    private static final String CARD = "BEGIN:VCARD\r\nVERSION:3.0\r\nFN:nene goose\r\n" +
+            "TEL;TYPE=CELL:555-555-5555\r\nEND:VCARD\r\n";
+
+    private ContactsFingerprintIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        index = new ContactsFingerprintIndex(RuntimeEnvironment.application);
+        index.clear();
+    }
+
+    @Test
+    public void testFingerprint() {
+        assertEquals(ContactsFingerprintIndex.fingerprint(CARD),
+                ContactsFingerprintIndex.fingerprint(new String(CARD)));
+        assertNotEquals(ContactsFingerprintIndex.fingerprint(CARD),
+                ContactsFingerprintIndex.fingerprint(CARD.replace('5', '6')));
+    }
+
+    @Test
+    public void testFingerprint_salt() {
+        assertEquals(ContactsFingerprintIndex.fingerprint(CARD),
+                ContactsFingerprintIndex.fingerprint(CARD, null));
+        assertEquals(ContactsFingerprintIndex.fingerprint(CARD, "salt"),
+                ContactsFingerprintIndex.fingerprint(CARD, "salt"));
+        assertNotEquals(ContactsFingerprintIndex.fingerprint(CARD, "salt"),
+                ContactsFingerprintIndex.fingerprint(CARD, "pepper"));
+        assertNotEquals(ContactsFingerprintIndex.fingerprint(CARD),
+                ContactsFingerprintIndex.fingerprint(CARD, ""));
+    }
+
+    @Test
+    public void testIsUnchanged() {
+        final long fingerprint = ContactsFingerprintIndex.fingerprint(CARD);
+        assertFalse(index.isUnchanged(LOOKUP_KEY, fingerprint));
+
+        index.put(LOOKUP_KEY, fingerprint);
+
+        assertTrue(index.isUnchanged(LOOKUP_KEY, fingerprint));
+        assertFalse(index.isUnchanged(LOOKUP_KEY, fingerprint + 1));
+        assertFalse(index.isUnchanged(OTHER_LOOKUP_KEY, fingerprint));
+    }
+
+    @Test
+    public void testRetainAll() {
+        index.put(LOOKUP_KEY, 1L);
+        index.put(OTHER_LOOKUP_KEY, 2L);
+
+        index.retainAll(Collections.singleton(LOOKUP_KEY));
+
+        assertEquals(1, index.size());
+        assertTrue(index.isUnchanged(LOOKUP_KEY, 1L));
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        index.put(LOOKUP_KEY, 1L);
+        index.put(OTHER_LOOKUP_KEY, 2L);
+        assertTrue(index.save(USER_ID, READ_TIMESTAMP));
+
+        final ContactsFingerprintIndex loaded =
+                new ContactsFingerprintIndex(RuntimeEnvironment.application);
+
+        assertTrue(loaded.load(USER_ID, READ_TIMESTAMP));
+        assertEquals(2, loaded.size());
+        assertTrue(loaded.isUnchanged(LOOKUP_KEY, 1L));
+        assertTrue(loaded.isUnchanged(OTHER_LOOKUP_KEY, 2L));
+    }
+
+    @Test
+    public void testLoad_missingIndex() {
+        assertFalse(index.load(USER_ID, READ_TIMESTAMP));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testLoad_differentUser() {
+        index.put(LOOKUP_KEY, 1L);
+        index.save(USER_ID, READ_TIMESTAMP);
+
+        assertFalse(index.load(USER_ID + 1, READ_TIMESTAMP));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testLoad_differentReadTimestamp() {
+        index.put(LOOKUP_KEY, 1L);
+        index.save(USER_ID, READ_TIMESTAMP);
+
+        assertFalse(index.load(USER_ID, 0));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testLoad_corruptIndex() throws Exception {
+        index.put(LOOKUP_KEY, 1L);
+        index.save(USER_ID, READ_TIMESTAMP);
+
+        final RandomAccessFile file = new RandomAccessFile(index.getFile(), "rw");
+        file.seek(file.length() - 12);
+        file.write(0xff);
+        file.close();
+
+        assertFalse(index.load(USER_ID, READ_TIMESTAMP));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testLoad_truncatedIndex() throws Exception {
+        final FileOutputStream out = new FileOutputStream(index.getFile());
+        out.write(new byte[]{0x44, 0x43});
+        out.close();
+
+        assertFalse(index.load(USER_ID, READ_TIMESTAMP));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testClear() {
+        index.put(LOOKUP_KEY, 1L);
+        index.save(USER_ID, READ_TIMESTAMP);
+
+        index.clear();
+
+        assertEquals(0, index.size());
+        assertFalse(index.getFile().exists());
+        assertFalse(index.load(USER_ID, READ_TIMESTAMP));
+    }
+}
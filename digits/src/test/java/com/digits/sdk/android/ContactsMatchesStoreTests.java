@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, emulateSdk = 21)
+public class ContactsMatchesStoreTests {
+    private static final long USER_ID = 1L;
+    private static final long OTHER_USER_ID = 2L;
+    private static final long FETCHED_AT = 1000L;
+    private static final String CURSOR = "cursor";
+    private static final Integer COUNT = 20;
+
+    private ContactsMatchesStore store;
+
+    static Contacts createContacts(String nextCursor, long... ids) {
+        final Contacts contacts = new Contacts();
+        contacts.nextCursor = nextCursor;
+        contacts.users = new ArrayList<>();
+        for (long id : ids) {
+            contacts.users.add(new DigitsUser(id, Long.toString(id)));
+        }
+        return contacts;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        store = new ContactsMatchesStore(RuntimeEnvironment.application, 100);
+        store.clear();
+    }
+
+    @Test
+    public void testPut() {
+        assertNull(store.get(USER_ID, CURSOR, COUNT));
+
+        store.put(USER_ID, CURSOR, COUNT, createContacts("next", 1, 2), FETCHED_AT);
+
+        final ContactsMatchesStore.Page page = store.get(USER_ID, CURSOR, COUNT);
+        assertEquals("next", page.contacts.nextCursor);
+        assertEquals(2, page.contacts.users.size());
+        assertEquals(FETCHED_AT, page.fetchedAtMillis);
+        assertNull(store.get(USER_ID, null, COUNT));
+        assertNull(store.get(USER_ID, CURSOR, null));
+    }
+
+    @Test
+    public void testPutAll() {
+        final Map<String, Contacts> pagesByCursor = new HashMap<>();
+        pagesByCursor.put(null, createContacts(CURSOR, 1, 2));
+        pagesByCursor.put(CURSOR, createContacts(null, 3));
+
+        store.putAll(USER_ID, COUNT, pagesByCursor, FETCHED_AT);
+
+        final ContactsMatchesStore loaded =
+                new ContactsMatchesStore(RuntimeEnvironment.application);
+        assertEquals(CURSOR, loaded.get(USER_ID, null, COUNT).contacts.nextCursor);
+        assertEquals(1, loaded.get(USER_ID, CURSOR, COUNT).contacts.users.size());
+        assertEquals(FETCHED_AT, loaded.get(USER_ID, CURSOR, COUNT).fetchedAtMillis);
+        assertEquals(2, loaded.size());
+    }
+
+    @Test
+    public void testGet_persisted() {
+        store.put(USER_ID, null, null, createContacts(null, 1, 2), FETCHED_AT);
+        store.put(USER_ID, CURSOR, COUNT, createContacts("next", 3), FETCHED_AT + 1);
+
+        final ContactsMatchesStore loaded =
+                new ContactsMatchesStore(RuntimeEnvironment.application);
+        final ContactsMatchesStore.Page firstPage = loaded.get(USER_ID, null, null);
+        final ContactsMatchesStore.Page page = loaded.get(USER_ID, CURSOR, COUNT);
+
+        assertEquals(2, loaded.size());
+        assertNull(firstPage.contacts.nextCursor);
+        assertEquals(1, firstPage.contacts.users.get(0).id);
+        assertEquals("2", firstPage.contacts.users.get(1).idStr);
+        assertEquals("next", page.contacts.nextCursor);
+        assertEquals(FETCHED_AT + 1, page.fetchedAtMillis);
+    }
+
+    @Test
+    public void testGet_nullUsersPersisted() {
+        final Contacts contacts = new Contacts();
+        store.put(USER_ID, null, null, contacts, FETCHED_AT);
+
+        final ContactsMatchesStore loaded =
+                new ContactsMatchesStore(RuntimeEnvironment.application);
+
+        assertNull(loaded.get(USER_ID, null, null).contacts.users);
+    }
+
+    @Test
+    public void testGet_otherUser() {
+        store.put(USER_ID, CURSOR, COUNT, createContacts(null, 1), FETCHED_AT);
+
+        assertNull(new ContactsMatchesStore(RuntimeEnvironment.application)
+                .get(OTHER_USER_ID, CURSOR, COUNT));
+        assertNull(store.get(OTHER_USER_ID, CURSOR, COUNT));
+    }
+
+    @Test
+    public void testGet_corrupt() throws Exception {
+        store.put(USER_ID, CURSOR, COUNT, createContacts(null, 1), FETCHED_AT);
+        final RandomAccessFile file = new RandomAccessFile(store.getFile(), "rw");
+        file.seek(file.length() - 1);
+        final int lastByte = file.read();
+        file.seek(file.length() - 1);
+        file.write(lastByte ^ 0xFF);
+        file.close();
+
+        assertNull(new ContactsMatchesStore(RuntimeEnvironment.application)
+                .get(USER_ID, CURSOR, COUNT));
+    }
+
+    @Test
+    public void testClear() {
+        store.put(USER_ID, CURSOR, COUNT, createContacts(null, 1), FETCHED_AT);
+
+        store.clear();
+
+        assertNull(store.get(USER_ID, CURSOR, COUNT));
+        assertFalse(store.getFile().exists());
+    }
+
+    @Test
+    public void testIsStale() {
+        store.put(USER_ID, CURSOR, COUNT, createContacts(null, 1), FETCHED_AT);
+        final ContactsMatchesStore.Page page = store.get(USER_ID, CURSOR, COUNT);
+
+        assertFalse(store.isStale(page, FETCHED_AT + 99));
+        assertTrue(store.isStale(page, FETCHED_AT + 100));
+        assertTrue(store.isStale(null, FETCHED_AT));
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.fabric.sdk.android.services.concurrency.internal.Backoff;
+import retrofit.RetrofitError;
+import retrofit.client.Header;
+import retrofit.client.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, emulateSdk = 21)
+public class ContactsPageUploaderTests {
+    private static final int PAGE_SIZE = 3;
+    private static final String URL = "https://api.digits.com/1.1/contacts/upload.json";
+
+    private ContactsClient contactsClient;
+    private ContactsPageUploader.Listener listener;
+    private ScheduledThreadPoolExecutor executor;
+    private Backoff backoff;
+
+    @Before
+    public void setUp() throws Exception {
+        contactsClient = mock(ContactsClient.class);
+        listener = mock(ContactsPageUploader.Listener.class);
+        executor = new ScheduledThreadPoolExecutor(4);
+        backoff = new Backoff() {
+            @Override
+            public long getDelayMillis(int retries) {
+                return 0;
+            }
+        };
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    private ContactsPageUploader createUploader(ContactsUploadOptions options) {
+        return new ContactsPageUploader(contactsClient, options, listener, executor, backoff);
+    }
+
+    private static ContactsPage createPage() {
+        final ContactsPage page = new ContactsPage(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(Integer.toString(i), "card" + i, i);
+        }
+        return page;
+    }
+
+    private static RetrofitError createHttpError(int status) {
+        final Response response = new Response(URL, status, "", Collections.<Header>emptyList(),
+                null);
+        return RetrofitError.httpError(URL, response, null, null);
+    }
+
+    @Test
+    public void testUpload() throws Exception {
+        final ContactsPageUploader uploader = createUploader(
+                new ContactsUploadOptions.Builder().build());
+
+        uploader.upload(createPage());
+        uploader.upload(createPage());
+        uploader.upload(createPage());
+        uploader.awaitCompletion();
+
+        verify(contactsClient, times(3)).uploadContacts(any(ContactsUploadBody.class));
+        verify(listener, times(3)).onPageUploaded(any(ContactsPage.class),
+                any(ContactsUploadBody.class));
+        assertEquals(3 * PAGE_SIZE, uploader.getSuccessCount());
+        assertEquals(0, uploader.getFailureCount());
+        assertTrue(uploader.getUncompressedBytes() > 0);
+        assertEquals(uploader.getUncompressedBytes(), uploader.getCompressedBytes());
+    }
+
+    @Test
+    public void testUpload_gzipEnabled() throws Exception {
+        final ArgumentCaptor<ContactsUploadBody> bodyCaptor =
+                ArgumentCaptor.forClass(ContactsUploadBody.class);
+        final ContactsPageUploader uploader = createUploader(new ContactsUploadOptions.Builder()
+                .setGzipEnabled(true)
+                .build());
+
+        uploader.upload(createPage());
+        uploader.awaitCompletion();
+
+        verify(contactsClient).uploadContacts(bodyCaptor.capture());
+        assertTrue(bodyCaptor.getValue().compressed);
+        assertEquals(bodyCaptor.getValue().uncompressedLength, uploader.getUncompressedBytes());
+        assertEquals(bodyCaptor.getValue().length(), uploader.getCompressedBytes());
+    }
+
+    @Test
+    public void testUpload_hashedIdentifiers() throws Exception {
+        final ArgumentCaptor<ContactsUploadBody> bodyCaptor =
+                ArgumentCaptor.forClass(ContactsUploadBody.class);
+        final ContactsPageUploader uploader = createUploader(new ContactsUploadOptions.Builder()
+                .setHashedIdentifiersSalt("salt")
+                .build());
+
+        final ContactsPage page = new ContactsPage(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(Integer.toString(i), "+1555555000" + i + "\n", i);
+        }
+
+        uploader.upload(page);
+        uploader.awaitCompletion();
+
+        verify(contactsClient).uploadContacts(bodyCaptor.capture());
+        assertTrue(bodyCaptor.getValue().hashed);
+        assertEquals(PAGE_SIZE * ContactsUploadBody.HASH_LENGTH + PAGE_SIZE + 2,
+                bodyCaptor.getValue().length());
+    }
+
+    @Test
+    public void testUpload_capsConcurrentPages() throws Exception {
+        final AtomicInteger concurrentPages = new AtomicInteger(0);
+        final AtomicInteger maxConcurrentPages = new AtomicInteger(0);
+        doAnswer(new Answer<UploadResponse>() {
+            @Override
+            public UploadResponse answer(InvocationOnMock invocation) throws Throwable {
+                final int current = concurrentPages.incrementAndGet();
+                synchronized (maxConcurrentPages) {
+                    maxConcurrentPages.set(Math.max(current, maxConcurrentPages.get()));
+                }
+                Thread.sleep(20);
+                concurrentPages.decrementAndGet();
+                return null;
+            }
+        }).when(contactsClient).uploadContacts(any(ContactsUploadBody.class));
+        final ContactsPageUploader uploader = createUploader(new ContactsUploadOptions.Builder()
+                .setMaxConcurrentPages(2)
+                .build());
+
+        for (int i = 0; i < 8; i++) {
+            uploader.upload(createPage());
+        }
+        uploader.awaitCompletion();
+
+        assertEquals(8 * PAGE_SIZE, uploader.getSuccessCount());
+        assertTrue(maxConcurrentPages.get() <= 2);
+    }
+
+    @Test
+    public void testUpload_increasesLimit() throws Exception {
+        final ContactsPageUploader uploader = createUploader(new ContactsUploadOptions.Builder()
+                .setInitialConcurrentPages(1)
+                .setMaxConcurrentPages(4)
+                .build());
+        assertEquals(1, uploader.getLimit());
+
+        for (int i = 0; i < 10; i++) {
+            uploader.upload(createPage());
+            uploader.awaitCompletion();
+        }
+
+        assertEquals(4, uploader.getLimit());
+    }
+
+    @Test
+    public void testUpload_tooManyRequests() throws Exception {
+        when(contactsClient.uploadContacts(any(ContactsUploadBody.class)))
+                .thenThrow(createHttpError(429))
+                .thenReturn(null);
+        final ContactsPageUploader uploader = createUploader(new ContactsUploadOptions.Builder()
+                .setInitialConcurrentPages(4)
+                .setMaxConcurrentPages(4)
+                .build());
+
+        uploader.upload(createPage());
+        uploader.awaitCompletion();
+
+        verify(contactsClient, times(2)).uploadContacts(any(ContactsUploadBody.class));
+        assertEquals(PAGE_SIZE, uploader.getSuccessCount());
+        assertEquals(2, uploader.getLimit());
+    }
+
+    @Test
+    public void testUpload_serverErrorRetriesExhausted() throws Exception {
+        when(contactsClient.uploadContacts(any(ContactsUploadBody.class)))
+                .thenThrow(createHttpError(503));
+        final ContactsPageUploader uploader = createUploader(new ContactsUploadOptions.Builder()
+                .setMaxRetries(2)
+                .build());
+
+        uploader.upload(createPage());
+        uploader.awaitCompletion();
+
+        verify(contactsClient, times(3)).uploadContacts(any(ContactsUploadBody.class));
+        verify(listener, times(0)).onPageUploaded(any(ContactsPage.class),
+                any(ContactsUploadBody.class));
+        assertEquals(0, uploader.getSuccessCount());
+        assertEquals(PAGE_SIZE, uploader.getFailureCount());
+        assertEquals(0, uploader.getUncompressedBytes());
+    }
+
+    @Test
+    public void testUpload_clientErrorNotRetried() throws Exception {
+        when(contactsClient.uploadContacts(any(ContactsUploadBody.class)))
+                .thenThrow(createHttpError(400));
+        final ContactsPageUploader uploader = createUploader(
+                new ContactsUploadOptions.Builder().build());
+
+        uploader.upload(createPage());
+        uploader.awaitCompletion();
+
+        verify(contactsClient).uploadContacts(any(ContactsUploadBody.class));
+        assertEquals(PAGE_SIZE, uploader.getFailureCount());
+        assertEquals(ContactsUploadOptions.DEFAULT_INITIAL_CONCURRENT_PAGES, uploader.getLimit());
+    }
+
+    @Test
+    public void testUpload_networkErrorRetried() throws Exception {
+        when(contactsClient.uploadContacts(any(ContactsUploadBody.class)))
+                .thenThrow(RetrofitError.networkError(URL, new IOException()))
+                .thenReturn(null);
+        final ContactsPageUploader uploader = createUploader(
+                new ContactsUploadOptions.Builder().build());
+
+        uploader.upload(createPage());
+        uploader.awaitCompletion();
+
+        verify(contactsClient, times(2)).uploadContacts(any(ContactsUploadBody.class));
+        assertEquals(PAGE_SIZE, uploader.getSuccessCount());
+    }
+
+    @Test
+    public void testUpload_slowPageHalvesLimit() throws Exception {
+        doAnswer(new Answer<UploadResponse>() {
+            @Override
+            public UploadResponse answer(InvocationOnMock invocation) throws Throwable {
+                Thread.sleep(20);
+                return null;
+            }
+        }).when(contactsClient).uploadContacts(any(ContactsUploadBody.class));
+        final ContactsPageUploader uploader = createUploader(new ContactsUploadOptions.Builder()
+                .setInitialConcurrentPages(4)
+                .setMaxConcurrentPages(4)
+                .setTargetLatencyMillis(1)
+                .build());
+
+        uploader.upload(createPage());
+        uploader.awaitCompletion();
+
+        assertEquals(PAGE_SIZE, uploader.getSuccessCount());
+        assertEquals(2, uploader.getLimit());
+    }
+
+    @Test
+    public void testIsOverloaded() {
+        assertTrue(ContactsPageUploader.isOverloaded(createHttpError(429)));
+        assertTrue(ContactsPageUploader.isOverloaded(createHttpError(500)));
+        assertTrue(ContactsPageUploader.isOverloaded(createHttpError(503)));
+        assertFalse(ContactsPageUploader.isOverloaded(createHttpError(400)));
+        assertFalse(ContactsPageUploader.isOverloaded(
+                RetrofitError.networkError(URL, new IOException())));
+    }
+
+    @Test
+    public void testIsRetryable() {
+        assertTrue(ContactsPageUploader.isRetryable(createHttpError(429)));
+        assertTrue(ContactsPageUploader.isRetryable(createHttpError(502)));
+        assertTrue(ContactsPageUploader.isRetryable(
+                RetrofitError.networkError(URL, new IOException())));
+        assertFalse(ContactsPageUploader.isRetryable(createHttpError(401)));
+    }
+}
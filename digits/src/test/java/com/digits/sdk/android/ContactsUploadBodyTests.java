@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, emulateSdk = 21)
+public class ContactsUploadBodyTests {
+    private static final String CARD = "BEGIN:VCARD\r\nVERSION:3.0\r\nFN:nene goose\r\n" +
+            "TEL;TYPE=CELL:555-555-5555\r\nEND:VCARD\r\n";
+    private static final String JSON = "{\"vcards\":[\"BEGIN:VCARD\\r\\nVERSION:3.0\\r\\n" +
+            "FN:nene goose\\r\\nTEL;TYPE\\u003dCELL:555-555-5555\\r\\nEND:VCARD\\r\\n\"]}";
+
+    private static Vcards createVcards(int count) {
+        final List<String> cards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            cards.add(CARD);
+        }
+        return new Vcards(cards);
+    }
+
+    private static byte[] toByteArray(ContactsUploadBody body) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static String gunzip(byte[] bytes) throws Exception {
+        return new String(gunzipBytes(bytes), "UTF-8");
+    }
+
+    private static byte[] gunzipBytes(byte[] bytes) throws Exception {
+        final InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+    private static byte[] hash(String salt, String identifier) throws Exception {
+        final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update((salt + identifier).getBytes("UTF-8"));
+        return Arrays.copyOf(digest.digest(), ContactsUploadBody.HASH_LENGTH);
+    }
+
+    @Test
+    public void testCreate() throws Exception {
+        final ContactsUploadBody body = ContactsUploadBody.create(createVcards(1), false);
+
+        assertFalse(body.compressed);
+        assertNull(body.getContentEncoding());
+        assertEquals("application/json; charset=UTF-8", body.mimeType());
+        assertEquals(JSON, new String(toByteArray(body), "UTF-8"));
+        assertEquals(JSON.length(), body.length());
+        assertEquals(JSON.length(), body.uncompressedLength);
+    }
+
+    @Test
+    public void testCreate_compressed() throws Exception {
+        final ContactsUploadBody body = ContactsUploadBody.create(createVcards(1), true);
+
+        assertTrue(body.compressed);
+        assertEquals(ContactsUploadBody.GZIP_ENCODING, body.getContentEncoding());
+        assertEquals(JSON, gunzip(toByteArray(body)));
+        assertEquals(JSON.length(), body.uncompressedLength);
+    }
+
+    @Test
+    public void testCreate_compressedPage() throws Exception {
+        final Vcards vcards = createVcards(ContactsClient.MAX_PAGE_SIZE);
+        final ContactsUploadBody body = ContactsUploadBody.create(vcards, true);
+
+        assertTrue(body.length() * 5 < body.uncompressedLength);
+        assertEquals(ContactsUploadBody.create(vcards, false).length(), body.uncompressedLength);
+    }
+
+    @Test
+    public void testCreateHashed() throws Exception {
+        final ContactsUploadBody body = ContactsUploadBody.createHashed(
+                Arrays.asList("+15555555555\nsupport@digits.com\n", ""), "salt", false);
+
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(ContactsUploadBody.HASHED_VERSION);
+        expected.write(ContactsUploadBody.HASH_LENGTH);
+        expected.write(2);
+        expected.write(hash("salt", "+15555555555"));
+        expected.write(hash("salt", "support@digits.com"));
+        expected.write(0);
+        assertTrue(body.hashed);
+        assertFalse(body.compressed);
+        assertEquals("application/octet-stream", body.mimeType());
+        assertArrayEquals(expected.toByteArray(), toByteArray(body));
+        assertEquals(expected.size(), body.uncompressedLength);
+    }
+
+    @Test
+    public void testCreateHashed_compressed() throws Exception {
+        final List<String> identifiers = Arrays.asList("+15555555555\n", "+15555555556\n");
+        final ContactsUploadBody body = ContactsUploadBody.createHashed(identifiers, "salt",
+                true);
+
+        assertTrue(body.compressed);
+        assertEquals(ContactsUploadBody.GZIP_ENCODING, body.getContentEncoding());
+        assertArrayEquals(toByteArray(ContactsUploadBody.createHashed(identifiers, "salt",
+                false)), gunzipBytes(toByteArray(body)));
+    }
+
+    @Test
+    public void testCreateHashed_smallerThanVcards() throws Exception {
+        final List<String> identifiers = new ArrayList<>();
+        for (int i = 0; i < ContactsClient.MAX_PAGE_SIZE; i++) {
+            identifiers.add("+15555555555\n");
+        }
+
+        final ContactsUploadBody body = ContactsUploadBody.createHashed(identifiers, "salt",
+                false);
+
+        assertTrue(body.length() * 5 < ContactsUploadBody.create(
+                createVcards(ContactsClient.MAX_PAGE_SIZE), false).length());
+    }
+
+    @Test
+    public void testHashedLength() {
+        assertEquals(1, ContactsUploadBody.hashedLength(""));
+        assertEquals(1 + 2 * ContactsUploadBody.HASH_LENGTH,
+                ContactsUploadBody.hashedLength("+15555555555\nsupport@digits.com\n"));
+    }
+
+    @Test
+    public void testJsonLength() throws Exception {
+        assertEquals(JSON.length() - "{\"vcards\":[]}".length() + 1,
+                ContactsPage.jsonLength(CARD));
+        assertEquals(3 + 2 + 3 + 4 + 6, ContactsPage.jsonLength("é日😀<"));
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, emulateSdk = 21)
+public class ContactsUploadCheckpointTests {
+    private static final long USER_ID = 1L;
+    private static final long READ_TIMESTAMP = 1000L;
+
+    private ContactsUploadCheckpoint checkpoint;
+
+    @Before
+    public void setUp() throws Exception {
+        checkpoint = new ContactsUploadCheckpoint(RuntimeEnvironment.application);
+        checkpoint.clear();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        checkpoint.clear();
+    }
+
+    private static ContactsPage createPage(String... lookupKeys) {
+        final ContactsPage page = new ContactsPage(lookupKeys.length);
+        for (int i = 0; i < lookupKeys.length; i++) {
+            page.add(lookupKeys[i], "card" + lookupKeys[i], i + 1);
+        }
+        return page;
+    }
+
+    private ContactsUploadCheckpoint reload(long userId, long readTimestamp) {
+        final ContactsUploadCheckpoint loaded =
+                new ContactsUploadCheckpoint(RuntimeEnvironment.application);
+        loaded.load(userId, readTimestamp);
+        return loaded;
+    }
+
+    @Test
+    public void testAppend() {
+        assertTrue(checkpoint.open(USER_ID, READ_TIMESTAMP));
+
+        checkpoint.append(createPage("a", "b"));
+
+        assertTrue(checkpoint.isUploaded("a", 1));
+        assertTrue(checkpoint.isUploaded("b", 2));
+        assertFalse(checkpoint.isUploaded("b", 1));
+        assertFalse(checkpoint.isUploaded("c", 1));
+    }
+
+    @Test
+    public void testLoad_appendedPages() {
+        checkpoint.open(USER_ID, READ_TIMESTAMP);
+        checkpoint.append(createPage("a", "b"));
+        checkpoint.append(createPage("c"));
+
+        final ContactsUploadCheckpoint loaded = reload(USER_ID, READ_TIMESTAMP);
+
+        assertEquals(3, loaded.size());
+        assertTrue(loaded.isUploaded("a", 1));
+        assertTrue(loaded.isUploaded("c", 1));
+    }
+
+    @Test
+    public void testLoad_missingCheckpoint() {
+        assertFalse(checkpoint.load(USER_ID, READ_TIMESTAMP));
+        assertEquals(0, checkpoint.size());
+    }
+
+    @Test
+    public void testLoad_differentUser() {
+        checkpoint.open(USER_ID, READ_TIMESTAMP);
+        checkpoint.append(createPage("a"));
+        checkpoint.close();
+
+        assertFalse(checkpoint.load(USER_ID + 1, READ_TIMESTAMP));
+        assertEquals(0, checkpoint.size());
+    }
+
+    @Test
+    public void testLoad_differentReadTimestamp() {
+        checkpoint.open(USER_ID, READ_TIMESTAMP);
+        checkpoint.append(createPage("a"));
+        checkpoint.close();
+
+        assertFalse(checkpoint.load(USER_ID, 0));
+        assertEquals(0, checkpoint.size());
+    }
+
+    @Test
+    public void testLoad_tornRecord() throws Exception {
+        checkpoint.open(USER_ID, READ_TIMESTAMP);
+        checkpoint.append(createPage("a"));
+        checkpoint.append(createPage("b", "c"));
+        checkpoint.close();
+
+        final RandomAccessFile file = new RandomAccessFile(checkpoint.getFile(), "rw");
+        file.setLength(file.length() - 4);
+        file.close();
+
+        final ContactsUploadCheckpoint loaded = reload(USER_ID, READ_TIMESTAMP);
+        assertEquals(1, loaded.size());
+        assertTrue(loaded.isUploaded("a", 1));
+    }
+
+    @Test
+    public void testOpen_keepsLoadedContacts() {
+        checkpoint.open(USER_ID, READ_TIMESTAMP);
+        checkpoint.append(createPage("a"));
+        checkpoint.close();
+
+        final ContactsUploadCheckpoint loaded = reload(USER_ID, READ_TIMESTAMP);
+        loaded.open(USER_ID, READ_TIMESTAMP);
+        loaded.append(createPage("b"));
+        loaded.close();
+
+        assertEquals(2, reload(USER_ID, READ_TIMESTAMP).size());
+    }
+
+    @Test
+    public void testClear() {
+        checkpoint.open(USER_ID, READ_TIMESTAMP);
+        checkpoint.append(createPage("a"));
+
+        checkpoint.clear();
+
+        assertEquals(0, checkpoint.size());
+        assertFalse(checkpoint.getFile().exists());
+        assertFalse(checkpoint.load(USER_ID, READ_TIMESTAMP));
+    }
+}
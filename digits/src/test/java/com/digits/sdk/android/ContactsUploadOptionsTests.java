@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import android.os.Parcel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, emulateSdk = 21)
+public class ContactsUploadOptionsTests {
+    @Test
+    public void testBuild_defaults() {
+        final ContactsUploadOptions options = new ContactsUploadOptions.Builder().build();
+
+        assertEquals(ContactsUploadOptions.DEFAULT_MAX_CONCURRENT_PAGES,
+                options.maxConcurrentPages);
+        assertEquals(ContactsUploadOptions.DEFAULT_INITIAL_CONCURRENT_PAGES,
+                options.initialConcurrentPages);
+        assertEquals(ContactsUploadOptions.DEFAULT_MAX_RETRIES, options.maxRetries);
+        assertEquals(ContactsUploadOptions.DEFAULT_TARGET_LATENCY_MILLIS,
+                options.targetLatencyMillis);
+        assertEquals(ContactsUploadOptions.DEFAULT_MAX_PAGE_BYTES, options.maxPageBytes);
+        assertFalse(options.gzipEnabled);
+        assertEquals(ContactsUploadOptions.DEFAULT_VCARD_THREADS, options.vCardThreads);
+        assertNull(options.hashedIdentifiersSalt);
+    }
+
+    @Test
+    public void testBuild_initialConcurrentPagesCapped() {
+        final ContactsUploadOptions options = new ContactsUploadOptions.Builder()
+                .setMaxConcurrentPages(3)
+                .setInitialConcurrentPages(8)
+                .build();
+
+        assertEquals(3, options.maxConcurrentPages);
+        assertEquals(3, options.initialConcurrentPages);
+    }
+
+    @Test
+    public void testSetMaxConcurrentPages_invalid() {
+        try {
+            new ContactsUploadOptions.Builder().setMaxConcurrentPages(0);
+            fail("Expected IllegalArgumentException to be thrown");
+        } catch (IllegalArgumentException e) {
+            assertEquals("maxConcurrentPages must be at least 1", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSetInitialConcurrentPages_invalid() {
+        try {
+            new ContactsUploadOptions.Builder().setInitialConcurrentPages(0);
+            fail("Expected IllegalArgumentException to be thrown");
+        } catch (IllegalArgumentException e) {
+            assertEquals("initialConcurrentPages must be at least 1", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSetMaxRetries_invalid() {
+        try {
+            new ContactsUploadOptions.Builder().setMaxRetries(-1);
+            fail("Expected IllegalArgumentException to be thrown");
+        } catch (IllegalArgumentException e) {
+            assertEquals("maxRetries must not be negative", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSetTargetLatencyMillis_invalid() {
+        try {
+            new ContactsUploadOptions.Builder().setTargetLatencyMillis(0);
+            fail("Expected IllegalArgumentException to be thrown");
+        } catch (IllegalArgumentException e) {
+            assertEquals("targetLatencyMillis must be positive", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSetMaxPageBytes_invalid() {
+        try {
+            new ContactsUploadOptions.Builder().setMaxPageBytes(0);
+            fail("Expected IllegalArgumentException to be thrown");
+        } catch (IllegalArgumentException e) {
+            assertEquals("maxPageBytes must be at least 1", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSetVCardThreads_invalid() {
+        try {
+            new ContactsUploadOptions.Builder().setVCardThreads(0);
+            fail("Expected IllegalArgumentException to be thrown");
+        } catch (IllegalArgumentException e) {
+            assertEquals("vCardThreads must be at least 1", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSetHashedIdentifiersSalt_empty() {
+        try {
+            new ContactsUploadOptions.Builder().setHashedIdentifiersSalt("");
+            fail("Expected IllegalArgumentException to be thrown");
+        } catch (IllegalArgumentException e) {
+            assertEquals("hashedIdentifiersSalt must not be empty", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testParcelable() {
+        final ContactsUploadOptions options = new ContactsUploadOptions.Builder()
+                .setMaxConcurrentPages(6)
+                .setInitialConcurrentPages(3)
+                .setMaxRetries(5)
+                .setTargetLatencyMillis(1500)
+                .setMaxPageBytes(1024)
+                .setGzipEnabled(true)
+                .setVCardThreads(4)
+                .setHashedIdentifiersSalt("salt")
+                .build();
+        final Parcel parcel = Parcel.obtain();
+        options.writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+        final ContactsUploadOptions parceledOptions = ContactsUploadOptions
+                .CREATOR.createFromParcel(parcel);
+        assertEquals(options.maxConcurrentPages, parceledOptions.maxConcurrentPages);
+        assertEquals(options.initialConcurrentPages, parceledOptions.initialConcurrentPages);
+        assertEquals(options.maxRetries, parceledOptions.maxRetries);
+        assertEquals(options.targetLatencyMillis, parceledOptions.targetLatencyMillis);
+        assertEquals(options.maxPageBytes, parceledOptions.maxPageBytes);
+        assertTrue(parceledOptions.gzipEnabled);
+        assertEquals(options.vCardThreads, parceledOptions.vCardThreads);
+        assertEquals("salt", parceledOptions.hashedIdentifiersSalt);
+    }
+}
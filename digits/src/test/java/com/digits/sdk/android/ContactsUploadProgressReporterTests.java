@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, emulateSdk = 21)
+public class ContactsUploadProgressReporterTests {
+    private static final long LONG_INTERVAL_MILLIS = 60 * 60 * 1000;
+    private static final int TOTAL_COUNT = 10;
+
+    private ContactsUploadProgressReporter.Publisher publisher;
+    private ArgumentCaptor<ContactsUploadProgress> progressCaptor;
+
+    @Before
+    public void setUp() throws Exception {
+        publisher = mock(ContactsUploadProgressReporter.Publisher.class);
+        progressCaptor = ArgumentCaptor.forClass(ContactsUploadProgress.class);
+    }
+
+    @Test
+    public void testOnPageUploaded() {
+        final ContactsUploadProgressReporter reporter =
+                new ContactsUploadProgressReporter(publisher, 0, TOTAL_COUNT);
+
+        reporter.onPageUploaded(3, 100);
+        reporter.onPageUploaded(2, 50);
+
+        verify(publisher, times(2)).publish(progressCaptor.capture());
+        final ContactsUploadProgress progress = progressCaptor.getValue();
+        assertEquals(2, progress.pagesSent);
+        assertEquals(5, progress.contactsSent);
+        assertEquals(150, progress.bytesSent);
+    }
+
+    @Test
+    public void testOnPageUploaded_coalesced() {
+        final ContactsUploadProgressReporter reporter =
+                new ContactsUploadProgressReporter(publisher, LONG_INTERVAL_MILLIS, TOTAL_COUNT);
+
+        reporter.onPageUploaded(3, 100);
+        reporter.onPageUploaded(2, 50);
+        reporter.onContactsSkipped(1);
+
+        verify(publisher).publish(progressCaptor.capture());
+        assertEquals(1, progressCaptor.getValue().pagesSent);
+        assertEquals(3, progressCaptor.getValue().contactsSent);
+    }
+
+    @Test
+    public void testFlush() {
+        final ContactsUploadProgressReporter reporter =
+                new ContactsUploadProgressReporter(publisher, LONG_INTERVAL_MILLIS, TOTAL_COUNT);
+        reporter.onPageUploaded(3, 100);
+        reporter.onPageUploaded(2, 50);
+
+        reporter.flush();
+
+        verify(publisher, times(2)).publish(progressCaptor.capture());
+        assertEquals(2, progressCaptor.getValue().pagesSent);
+        assertEquals(5, progressCaptor.getValue().contactsSent);
+        assertEquals(150, progressCaptor.getValue().bytesSent);
+    }
+
+    @Test
+    public void testFlush_nothingCoalesced() {
+        final ContactsUploadProgressReporter reporter =
+                new ContactsUploadProgressReporter(publisher, LONG_INTERVAL_MILLIS, TOTAL_COUNT);
+        reporter.flush();
+        reporter.onPageUploaded(3, 100);
+
+        reporter.flush();
+
+        verify(publisher).publish(progressCaptor.capture());
+        verifyNoMoreInteractions(publisher);
+    }
+
+    @Test
+    public void testEstimateRemainingMillis() {
+        assertEquals(3000, ContactsUploadProgressReporter.estimateRemainingMillis(1000, 25, 100));
+        assertEquals(0, ContactsUploadProgressReporter.estimateRemainingMillis(1000, 120, 100));
+        assertEquals(ContactsUploadProgress.UNKNOWN_REMAINING_TIME,
+                ContactsUploadProgressReporter.estimateRemainingMillis(1000, 0, 100));
+        assertEquals(ContactsUploadProgress.UNKNOWN_REMAINING_TIME,
+                ContactsUploadProgressReporter.estimateRemainingMillis(1000, 25, -1));
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import android.os.Parcel;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, emulateSdk = 21)
+public class ContactsUploadProgressTests {
+    @Test
+    public void testParcelable() {
+        final ContactsUploadProgress progress = new ContactsUploadProgress(1, 2, 3, 4);
+        final Parcel parcel = Parcel.obtain();
+        progress.writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+        final ContactsUploadProgress parceledProgress = ContactsUploadProgress
+                .CREATOR.createFromParcel(parcel);
+        assertEquals(progress.pagesSent, parceledProgress.pagesSent);
+        assertEquals(progress.contactsSent, parceledProgress.contactsSent);
+        assertEquals(progress.bytesSent, parceledProgress.bytesSent);
+        assertEquals(progress.estimatedRemainingMillis,
+                parceledProgress.estimatedRemainingMillis);
+    }
+}
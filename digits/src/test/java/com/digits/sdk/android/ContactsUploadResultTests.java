@@ -31,7 +31,7 @@ import static org.junit.Assert.assertEquals;
 public class ContactsUploadResultTests {
     @Test
     public void testParcelable() {
-        final ContactsUploadResult result = new ContactsUploadResult(1, 2);
+        final ContactsUploadResult result = new ContactsUploadResult(1, 2, 3, 4, 5, 6, 7);
         final Parcel parcel = Parcel.obtain();
         result.writeToParcel(parcel, 0);
         parcel.setDataPosition(0);
@@ -39,5 +39,10 @@ public class ContactsUploadResultTests {
                 .CREATOR.createFromParcel(parcel);
         assertEquals(result.successCount, parceledResult.successCount);
         assertEquals(result.totalCount, parceledResult.totalCount);
+        assertEquals(result.skippedCount, parceledResult.skippedCount);
+        assertEquals(result.scannedCount, parceledResult.scannedCount);
+        assertEquals(result.resumedCount, parceledResult.resumedCount);
+        assertEquals(result.uncompressedBytes, parceledResult.uncompressedBytes);
+        assertEquals(result.compressedBytes, parceledResult.compressedBytes);
     }
 }
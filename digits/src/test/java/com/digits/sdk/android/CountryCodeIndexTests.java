@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, emulateSdk = 21)
+public class CountryCodeIndexTests {
+    private final CountryCodeIndex index = CountryCodeIndex.getInstance();
+
+    @Test
+    public void testGetInstance() {
+        assertSame(index, CountryCodeIndex.getInstance());
+    }
+
+    @Test
+    public void testGetCallingCode() {
+        assertEquals(1, index.getCallingCode("US"));
+        assertEquals(34, index.getCallingCode("es"));
+        assertEquals(358, index.getCallingCode("Fi"));
+    }
+
+    @Test
+    public void testGetCallingCode_unknown() {
+        assertEquals(0, index.getCallingCode(null));
+        assertEquals(0, index.getCallingCode(""));
+        assertEquals(0, index.getCallingCode("USA"));
+        assertEquals(0, index.getCallingCode("Z1"));
+        assertEquals(0, index.getCallingCode("\u00C9S"));
+    }
+
+    @Test
+    public void testGetMainRegion() {
+        assertEquals("US", index.getMainRegion(1));
+        assertEquals("GB", index.getMainRegion(44));
+        assertEquals("FI", index.getMainRegion(358));
+        assertNull(index.getMainRegion(0));
+        assertNull(index.getMainRegion(-1));
+        assertNull(index.getMainRegion(1000));
+    }
+
+    @Test
+    public void testFindCallingCode() {
+        assertEquals(1, index.findCallingCode("+14155550100", 1));
+        assertEquals(34, index.findCallingCode("+34612345678", 1));
+        assertEquals(358, index.findCallingCode("+358401234567", 1));
+        assertEquals(44, index.findCallingCode("442071234567", 0));
+    }
+
+    @Test
+    public void testFindCallingCode_noMatch() {
+        assertEquals(0, index.findCallingCode("+", 1));
+        assertEquals(0, index.findCallingCode("+ 34 612", 1));
+        assertEquals(0, index.findCallingCode("+0", 1));
+    }
+
+    @Test
+    public void testFindCallingCode_longestPrefix() {
+        final CountryCodeIndex overlapping = new CountryCodeIndex(new CountryMetadata(
+                "AA 7 m 8 10 10\nBB 77 - 8 10 10\nCC 77 m 8 10 10\n"));
+
+        assertEquals(77, overlapping.findCallingCode("+77011234567", 1));
+        assertEquals(7, overlapping.findCallingCode("+79161234567", 1));
+        assertEquals("CC", overlapping.getMainRegion(77));
+    }
+
+    @Test
+    public void testGetMainEntry() {
+        final CountryMetadata metadata = index.getMetadata();
+        final int entry = index.getMainEntry(39);
+
+        assertEquals("IT", metadata.getRegion(entry));
+        assertEquals(CountryMetadata.NO_NATIONAL_PREFIX, metadata.getNationalPrefix(entry));
+        assertEquals(-1, index.getMainEntry(0));
+        assertEquals(-1, index.getMainEntry(999));
+    }
+}
@@ -99,4 +99,30 @@ public class CountryInfoTests {
         assertEquals(usCountryInfo.country + " +" + usCountryInfo.countryCode,
                 usCountryInfo.toString());
     }
+
+    @Test
+    public void testCompareTo() throws Exception {
+        final CountryInfo usCountryInfo = new CountryInfo(COUNTRY_NAME_US, COUNTRY_CODE_US);
+        final CountryInfo bsCountryInfo = new CountryInfo(COUNTRY_NAME_BS, COUNTRY_CODE_US);
+
+        assertTrue(bsCountryInfo.compareTo(usCountryInfo) < 0);
+        assertTrue(usCountryInfo.compareTo(bsCountryInfo) > 0);
+    }
+
+    @Test
+    public void testCompareTo_ignoresCaseAndAccents() throws Exception {
+        final CountryInfo spain = new CountryInfo("spain", 34);
+        final CountryInfo reunion = new CountryInfo("R\u00e9union", 262);
+
+        assertEquals(0, spain.compareTo(new CountryInfo("Spain", 34)));
+        assertEquals(0, reunion.compareTo(new CountryInfo("Reunion", 262)));
+        assertTrue(reunion.compareTo(new CountryInfo("Romania", 40)) < 0);
+    }
+
+    @Test
+    public void testCompareTo_nullCountryName() throws Exception {
+        final CountryInfo usCountryInfo = new CountryInfo(COUNTRY_NAME_US, COUNTRY_CODE_US);
+
+        assertTrue(new CountryInfo(null, COUNTRY_CODE_US).compareTo(usCountryInfo) < 0);
+    }
 }
@@ -36,10 +36,10 @@ public class CountryListAdapterTests {
     @Before
     public void setUp() throws Exception {
         final ArrayList<CountryInfo> countries = new ArrayList<>();
-        countries.add(new CountryInfo("Germany", 1));
-        countries.add(new CountryInfo("Saoma", 2));
-        countries.add(new CountryInfo("spain", 3));
-        countries.add(new CountryInfo("United States", 4));
+        countries.add(new CountryInfo("Germany", 1, "DE"));
+        countries.add(new CountryInfo("Saoma", 2, "WS"));
+        countries.add(new CountryInfo("spain", 3, "ES"));
+        countries.add(new CountryInfo("United States", 4, "US"));
 
         countryListAdapter = new CountryListAdapter(RuntimeEnvironment.application);
         countryListAdapter.setData(countries);
@@ -61,4 +61,55 @@ public class CountryListAdapterTests {
         assertEquals(3, countryListAdapter.getPositionForSection(2));
         assertEquals(3, countryListAdapter.getPositionForSection(3));
     }
+
+    @Test
+    public void testGetSectionForPosition() {
+        assertEquals(0, countryListAdapter.getSectionForPosition(0));
+        assertEquals(1, countryListAdapter.getSectionForPosition(2));
+        assertEquals(2, countryListAdapter.getSectionForPosition(3));
+        assertEquals(0, countryListAdapter.getSectionForPosition(4));
+    }
+
+    @Test
+    public void testFilter() {
+        countryListAdapter.filter("s");
+
+        assertEquals(3, countryListAdapter.getCount());
+        assertEquals("Saoma", countryListAdapter.getItem(0).country);
+        assertEquals("United States", countryListAdapter.getItem(2).country);
+        assertEquals(1, countryListAdapter.getSectionForPosition(1));
+        assertEquals(2, countryListAdapter.getSectionForPosition(2));
+        assertEquals(0, countryListAdapter.getPositionForSection(1));
+        assertEquals(2, countryListAdapter.getPositionForSection(2));
+        assertEquals(1, countryListAdapter.getPositionForCountry("spain"));
+    }
+
+    @Test
+    public void testFilter_noMatch() {
+        countryListAdapter.filter("+7");
+
+        assertEquals(0, countryListAdapter.getCount());
+        assertEquals(0, countryListAdapter.getPositionForSection(1));
+    }
+
+    @Test
+    public void testFilter_cleared() {
+        countryListAdapter.filter("+4");
+        assertEquals(1, countryListAdapter.getCount());
+
+        countryListAdapter.filter("");
+
+        assertEquals(4, countryListAdapter.getCount());
+        assertEquals("spain", countryListAdapter.getItem(2).country);
+    }
+
+    @Test
+    public void testGetPositionForCountry_filterCleared() {
+        countryListAdapter.filter("uni");
+        assertEquals(0, countryListAdapter.getPositionForCountry("United States"));
+
+        countryListAdapter.filter(null);
+
+        assertEquals(3, countryListAdapter.getPositionForCountry("United States"));
+    }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, emulateSdk = 21)
+public class CountryListCacheTests {
+    private CountryListCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new CountryListCache();
+    }
+
+    @Test
+    public void testGet_notLoaded() {
+        assertNull(cache.get(Locale.US));
+    }
+
+    @Test
+    public void testLoad() {
+        final CountryList countryList = cache.load(Locale.US);
+
+        assertSame(countryList, cache.get(Locale.US));
+        assertSame(countryList, cache.load(Locale.US));
+        assertEquals(CountryListLoadTask.createCountryList(Locale.US),
+                countryList.getCountries());
+    }
+
+    @Test
+    public void testLoad_localeChanged() {
+        final CountryList countryList = cache.load(Locale.US);
+        final CountryList frenchCountryList = cache.load(Locale.FRANCE);
+
+        assertNotSame(countryList, frenchCountryList);
+        assertNull(cache.get(Locale.US));
+        assertSame(frenchCountryList, cache.get(Locale.FRANCE));
+        assertEquals(new Locale("", "DE").getDisplayCountry(Locale.FRANCE), frenchCountryList
+                .getCountries().get(frenchCountryList.getPositionForCountry("Allemagne"))
+                .country);
+    }
+}
@@ -25,7 +25,6 @@ import org.robolectric.annotation.Config;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.ExecutionException;
 
@@ -303,9 +302,9 @@ public class CountryListLoadTaskTests {
         task.execute();
 
         try {
-            final List<CountryInfo> result = task.get();
+            final CountryList result = task.get();
             Collections.sort(COUNTRY_LIST);
-            assertEquals(COUNTRY_LIST, result);
+            assertEquals(COUNTRY_LIST, result.getCountries());
         } catch (InterruptedException e) {
             fail("Should not throw InterruptedException");
         } catch (ExecutionException e) {
@@ -313,11 +312,17 @@ public class CountryListLoadTaskTests {
         }
     }
 
+    @Test
+    public void testCreateCountryList() {
+        Collections.sort(COUNTRY_LIST);
+        assertEquals(COUNTRY_LIST, CountryListLoadTask.createCountryList(Locale.getDefault()));
+    }
+
     @Test
     public void testOnPostExecute_nullListener() {
         task = new CountryListLoadTask(null);
         try {
-            task.onPostExecute(COUNTRY_LIST);
+            task.onPostExecute(new CountryList(COUNTRY_LIST));
         } catch (NullPointerException ex) {
             fail("Should not throw NullPointerException");
         }
@@ -325,7 +330,8 @@ public class CountryListLoadTaskTests {
 
     @Test
     public void testOnPostExecute() {
-        task.onPostExecute(COUNTRY_LIST);
-        verify(listener).onLoadComplete(COUNTRY_LIST);
+        final CountryList countryList = new CountryList(COUNTRY_LIST);
+        task.onPostExecute(countryList);
+        verify(listener).onLoadComplete(countryList);
     }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, emulateSdk = 21)
+public class CountryListTests {
+    private List<CountryInfo> countries;
+    private CountryList countryList;
+
+    @Before
+    public void setUp() throws Exception {
+        countries = new ArrayList<>();
+        countries.add(new CountryInfo("Germany", 49, "DE"));
+        countries.add(new CountryInfo("Samoa", 685, "WS"));
+        countries.add(new CountryInfo("spain", 34, "ES"));
+        countries.add(new CountryInfo("United States", 1, "US"));
+
+        countryList = new CountryList(countries);
+    }
+
+    @Test
+    public void testGetCountries() {
+        assertEquals(countries, countryList.getCountries());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetCountries_unmodifiable() {
+        countryList.getCountries().clear();
+    }
+
+    @Test
+    public void testGetSections() {
+        assertArrayEquals(new String[]{"G", "S", "U"}, countryList.getSections());
+    }
+
+    @Test
+    public void testGetPositionForSection() {
+        assertEquals(0, countryList.getPositionForSection(-1));
+        assertEquals(1, countryList.getPositionForSection(1));
+        assertEquals(3, countryList.getPositionForSection(2));
+        assertEquals(3, countryList.getPositionForSection(10));
+    }
+
+    @Test
+    public void testGetPositionForSection_empty() {
+        assertEquals(0, new CountryList(new ArrayList<CountryInfo>()).getPositionForSection(1));
+    }
+
+    @Test
+    public void testGetPositionForCountry() {
+        assertEquals(2, countryList.getPositionForCountry("spain"));
+        assertEquals(0, countryList.getPositionForCountry("Atlantis"));
+    }
+
+    @Test
+    public void testGetSectionForPosition() {
+        assertEquals(0, countryList.getSectionForPosition(0));
+        assertEquals(1, countryList.getSectionForPosition(1));
+        assertEquals(1, countryList.getSectionForPosition(2));
+        assertEquals(2, countryList.getSectionForPosition(3));
+    }
+
+    @Test
+    public void testFilter_name() {
+        assertEquals(bits(2), filter("SPA"));
+        assertEquals(bits(3), filter("  united "));
+    }
+
+    @Test
+    public void testFilter_wordOfName() {
+        assertEquals(bits(3), filter("states"));
+        assertEquals(bits(1, 2, 3), filter("s"));
+    }
+
+    @Test
+    public void testFilter_isoCode() {
+        assertEquals(bits(0), filter("de"));
+        assertEquals(bits(1), filter("ws"));
+    }
+
+    @Test
+    public void testFilter_callingCode() {
+        assertEquals(bits(1), filter("+68"));
+        assertEquals(bits(0), filter("49"));
+        assertEquals(bits(), filter("+7"));
+    }
+
+    @Test
+    public void testFilter_blank() {
+        final BitSet matches = bits(0);
+
+        assertFalse(countryList.filter(" ", matches));
+        assertTrue(matches.isEmpty());
+        assertFalse(countryList.filter(null, matches));
+    }
+
+    private BitSet filter(String query) {
+        final BitSet matches = new BitSet();
+        assertTrue(countryList.filter(query, matches));
+        return matches;
+    }
+
+    private static BitSet bits(int... positions) {
+        final BitSet bits = new BitSet();
+        for (int position : positions) {
+            bits.set(position);
+        }
+        return bits;
+    }
+}
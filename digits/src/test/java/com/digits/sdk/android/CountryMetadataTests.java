@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, emulateSdk = 21)
+public class CountryMetadataTests {
+    private static final int LISTED_COUNTRIES = 246;
+
+    @Test
+    public void testConstructor() {
+        final CountryMetadata metadata =
+                new CountryMetadata("US 1 m 1 10 10\nCA 1 - 1 10 10\n001 800 mh 0 6 12\n");
+
+        assertEquals(3, metadata.size());
+        assertEquals("US", metadata.getRegion(0));
+        assertEquals(1, metadata.getCallingCode(0));
+        assertTrue(metadata.isMainRegion(0));
+        assertTrue(metadata.isListed(0));
+        assertEquals('1', metadata.getNationalPrefix(0));
+        assertEquals(10, metadata.getMinNationalLength(0));
+        assertEquals(10, metadata.getMaxNationalLength(0));
+        assertFalse(metadata.isMainRegion(1));
+        assertEquals("001", metadata.getRegion(2));
+        assertFalse(metadata.isListed(2));
+    }
+
+    @Test
+    public void testConstructor_noNationalPrefix() {
+        final CountryMetadata metadata = new CountryMetadata("IT 39 m - 6 13\n");
+
+        assertEquals(CountryMetadata.NO_NATIONAL_PREFIX, metadata.getNationalPrefix(0));
+    }
+
+    @Test
+    public void testConstructor_invalidRow() {
+        try {
+            new CountryMetadata("US 1 m 1 10\n");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid country metadata: US 1 m 1 10", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testGetInstance() {
+        final CountryMetadata metadata = CountryMetadata.getInstance();
+        final Set<Integer> mainCallingCodes = new HashSet<>();
+        int listed = 0;
+        for (int entry = 0; entry < metadata.size(); entry++) {
+            if (metadata.isListed(entry)) {
+                listed++;
+            }
+            if (metadata.isMainRegion(entry)) {
+                assertTrue(mainCallingCodes.add(metadata.getCallingCode(entry)));
+            }
+            assertTrue(metadata.getMinNationalLength(entry) <=
+                    metadata.getMaxNationalLength(entry));
+        }
+
+        assertSame(metadata, CountryMetadata.getInstance());
+        assertEquals(LISTED_COUNTRIES, listed);
+    }
+}
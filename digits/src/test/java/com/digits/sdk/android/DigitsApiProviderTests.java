@@ -17,6 +17,7 @@
 
 package com.digits.sdk.android;
 
+import com.twitter.sdk.android.core.SessionManager;
 import com.twitter.sdk.android.core.TwitterAuthConfig;
 
 import org.junit.Before;
@@ -29,28 +30,41 @@ import java.util.concurrent.ExecutorService;
 
 import javax.net.ssl.SSLSocketFactory;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 
 @RunWith(RobolectricGradleTestRunner.class)
 @Config(constants = BuildConfig.class, emulateSdk = 21)
 public class DigitsApiProviderTests {
     private TwitterAuthConfig authConfig;
-    private DigitsSession guestSession;
+    private DigitsTransport transport;
     private DigitsApiProvider provider;
 
     @Before
+    @SuppressWarnings("unchecked")
     public void setUp() throws Exception {
 
         authConfig = new TwitterAuthConfig(TestConstants.CONSUMER_SECRET,
                 TestConstants.CONSUMER_KEY);
-        guestSession = DigitsSession.create(DigitsSessionTests.getNewLoggedOutUser());
+        transport = new DigitsTransport(authConfig, mock(SSLSocketFactory.class),
+                mock(SessionManager.class), mock(ExecutorService.class),
+                mock(DigitsUserAgent.class));
 
+        provider = new DigitsApiProvider(transport);
 
-        provider = new DigitsApiProvider(guestSession, authConfig,
-                mock(SSLSocketFactory.class), mock(ExecutorService.class),
-                mock(DigitsUserAgent.class));
+    }
 
+    @Test
+    public void testConstructor_nullTransport() {
+        try {
+            new DigitsApiProvider(null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("transport must not be null", e.getMessage());
+        }
     }
 
     @Test
@@ -67,4 +81,13 @@ public class DigitsApiProviderTests {
         assertTrue(deviceService == newDeviceService);
     }
 
+    @Test
+    public void testGetSdkService_sharedTransport() {
+        final DigitsApiProvider otherProvider = new DigitsApiProvider(transport);
+
+        assertSame(provider.getSdkService(), otherProvider.getSdkService());
+        assertSame(transport.getService(DigitsApiProvider.SdkService.class),
+                otherProvider.getSdkService());
+    }
+
 }
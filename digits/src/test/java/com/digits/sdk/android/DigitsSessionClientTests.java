@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import com.twitter.sdk.android.core.AuthenticatedClient;
+import com.twitter.sdk.android.core.SessionManager;
+import com.twitter.sdk.android.core.TwitterAuthConfig;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import javax.net.ssl.SSLSocketFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, emulateSdk = 21)
+public class DigitsSessionClientTests {
+    private TwitterAuthConfig authConfig;
+    private SessionManager<DigitsSession> sessionManager;
+    private DigitsSessionClient client;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        authConfig = new TwitterAuthConfig(TestConstants.CONSUMER_SECRET,
+                TestConstants.CONSUMER_KEY);
+        sessionManager = mock(SessionManager.class);
+        client = new DigitsSessionClient(authConfig, mock(SSLSocketFactory.class),
+                sessionManager);
+    }
+
+    @Test
+    public void testConstructor_nullAuthConfig() {
+        try {
+            new DigitsSessionClient(null, mock(SSLSocketFactory.class), sessionManager);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("authConfig must not be null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testConstructor_nullSessionManager() {
+        try {
+            new DigitsSessionClient(authConfig, mock(SSLSocketFactory.class), null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("sessionManager must not be null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testGetClient_sameSession() {
+        final DigitsSession session =
+                DigitsSession.create(DigitsSessionTests.getNewLoggedOutUser());
+
+        assertSame(client.getClient(session), client.getClient(session));
+    }
+
+    @Test
+    public void testGetClient_sessionChanged() {
+        final DigitsSession guestSession =
+                DigitsSession.create(DigitsSessionTests.getNewLoggedOutUser());
+        final DigitsSession userSession =
+                DigitsSession.create(DigitsSessionTests.getNewLoggedOutUser());
+
+        final AuthenticatedClient guestClient = client.getClient(guestSession);
+        final AuthenticatedClient userClient = client.getClient(userSession);
+
+        assertNotSame(guestClient, userClient);
+        assertSame(userClient, client.getClient(userSession));
+    }
+}
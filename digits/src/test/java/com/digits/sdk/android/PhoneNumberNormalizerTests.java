@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.android;
+
+import android.provider.ContactsContract.CommonDataKinds.Phone;
+
+import com.digits.sdk.vcard.VCardBuilder;
+import com.digits.sdk.vcard.VCardConfig;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, emulateSdk = 21)
+public class PhoneNumberNormalizerTests {
+    private final PhoneNumberNormalizer usNormalizer =
+            new PhoneNumberNormalizer(TestConstants.US_COUNTRY_CODE);
+    private final PhoneNumberNormalizer esNormalizer =
+            new PhoneNumberNormalizer(TestConstants.ES_COUNTRY_CODE);
+
+    @Test
+    public void testNormalize_international() {
+        assertEquals("+14155550100", normalize(usNormalizer, "+1 (415) 555-0100"));
+        assertEquals("+34612345678", normalize(usNormalizer, "+34 612 34 56 78"));
+        assertEquals("+34612345678", normalize(usNormalizer, "011 34 612 34 56 78"));
+        assertEquals("+14155550100", normalize(esNormalizer, "00 1 415 555 0100"));
+    }
+
+    @Test
+    public void testNormalize_national() {
+        assertEquals("+14155550100", normalize(usNormalizer, "(415) 555-0100"));
+        assertEquals("+14155550100", normalize(usNormalizer, "1-415-555-0100"));
+        assertEquals("+34612345678", normalize(esNormalizer, "612.34.56.78"));
+        assertEquals("+442071234567", normalize(new PhoneNumberNormalizer("44"), "020 7123 4567"));
+        assertEquals("+390612345678", normalize(new PhoneNumberNormalizer("39"), "06 1234 5678"));
+    }
+
+    @Test
+    public void testNormalize_digitsOnly() {
+        // Local number and short code.
+        assertEquals("5550100", normalize(usNormalizer, "555-0100"));
+        assertEquals("112", normalize(esNormalizer, "112"));
+        assertEquals("4155550100", normalize(new PhoneNumberNormalizer(null), "(415) 555-0100"));
+        assertEquals("4155550100", normalize(new PhoneNumberNormalizer(""), "415.555.0100"));
+    }
+
+    @Test
+    public void testNormalize_pauseWaitAndLineBreak() {
+        assertEquals("+14155550100", normalize(usNormalizer, "415-555-0100,1234"));
+        assertEquals("+14155550100", normalize(usNormalizer, "415-555-0100;1234"));
+        assertEquals("+14155550100", normalize(usNormalizer, "415-555-0100\n415-555-0101"));
+    }
+
+    @Test
+    public void testNormalize_noDigits() {
+        assertEquals("", normalize(usNormalizer, "+"));
+        assertEquals("", normalize(usNormalizer, "Miami"));
+    }
+
+    @Test
+    public void testNormalize_nonAsciiDigits() {
+        assertEquals("+14155550100", normalize(usNormalizer,
+                "\uFF14\uFF11\uFF15\uFF15\uFF15\uFF15\uFF10\uFF11\uFF10\uFF10"));
+    }
+
+    @Test
+    public void testNormalize_reusesBuffer() {
+        final StringBuilder longNumber = new StringBuilder("+");
+        for (int i = 0; i < 100; i++) {
+            longNumber.append(i % 10);
+        }
+
+        assertEquals(longNumber.toString(), normalize(usNormalizer, longNumber.toString()));
+        assertEquals("+14155550100", normalize(usNormalizer, "415 555 0100"));
+    }
+
+    @Test
+    public void testAppendPhones_dedupesNormalizedNumbers() {
+        final VCardBuilder builder = new VCardBuilder(VCardConfig.VCARD_TYPE_V30_GENERIC,
+                VCardConfig.DEFAULT_EXPORT_CHARSET);
+
+        final String card = builder.appendPhones(3,
+                new int[]{Phone.TYPE_MOBILE, Phone.TYPE_HOME, Phone.TYPE_WORK},
+                new String[3], new String[]{"(415) 555-0100", "+1 415 555 0100", "Miami"},
+                new boolean[3], usNormalizer).toString();
+
+        assertEquals("BEGIN:VCARD\r\nVERSION:3.0\r\nTEL;TYPE=CELL:+14155550100\r\n" +
+                "END:VCARD\r\n", card);
+    }
+
+    private static String normalize(PhoneNumberNormalizer normalizer, String rawValue) {
+        return normalizer.onValueReceived(rawValue, Phone.TYPE_MOBILE, null, false);
+    }
+}
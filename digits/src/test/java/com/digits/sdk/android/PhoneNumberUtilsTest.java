@@ -58,6 +58,20 @@ public class PhoneNumberUtilsTest {
         assertEquals(TestConstants.US_ISO2, number.getCountryIso());
     }
 
+    @Test
+    public void testGetCountryCode() throws Exception {
+        when(simManager.getCountryIso()).thenReturn(TestConstants.US_ISO2);
+        final PhoneNumberUtils phoneNumberUtils = new PhoneNumberUtils(simManager);
+        assertEquals(TestConstants.US_COUNTRY_CODE, phoneNumberUtils.getCountryCode());
+    }
+
+    @Test
+    public void testGetCountryCode_unknownCountry() throws Exception {
+        when(simManager.getCountryIso()).thenReturn(INVENTED_ISO);
+        assertEquals("", new PhoneNumberUtils(simManager).getCountryCode());
+        assertEquals("", new PhoneNumberUtils(null).getCountryCode());
+    }
+
     @Test
     public void testGetPhoneNumberProvidedRawPhoneNumber() throws Exception {
         final PhoneNumberUtils phoneNumberUtils = new PhoneNumberUtils(null);
@@ -67,6 +81,26 @@ public class PhoneNumberUtilsTest {
         assertEquals(TestConstants.PHONE_NO_COUNTRY_CODE, phoneNumber.getPhoneNumber());
     }
 
+    @Test
+    public void testGetPhoneNumberProvidedRawPhoneNumber_threeDigitCountryCode()
+            throws Exception {
+        final PhoneNumberUtils phoneNumberUtils = new PhoneNumberUtils(null);
+        final PhoneNumber phoneNumber = phoneNumberUtils.getPhoneNumber("+358401234567");
+        assertEquals("358", phoneNumber.getCountryCode());
+        assertEquals("FI", phoneNumber.getCountryIso());
+        assertEquals("401234567", phoneNumber.getPhoneNumber());
+    }
+
+    @Test
+    public void testGetPhoneNumberProvidedRawPhoneNumber_unknownCountryCode()
+            throws Exception {
+        final PhoneNumberUtils phoneNumberUtils = new PhoneNumberUtils(null);
+        final PhoneNumber phoneNumber = phoneNumberUtils.getPhoneNumber("+0123");
+        assertEquals(TestConstants.US_COUNTRY_CODE, phoneNumber.getCountryCode());
+        assertEquals(TestConstants.US_ISO2, phoneNumber.getCountryIso().toLowerCase());
+        assertEquals("+0123", phoneNumber.getPhoneNumber());
+    }
+
     @Test
     public void testGetPhoneNumberProvidedPhone_empty() throws Exception {
         final PhoneNumberUtils phoneNumberUtils = new PhoneNumberUtils(null);
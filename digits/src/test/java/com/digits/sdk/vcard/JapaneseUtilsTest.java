@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2015 Twitter, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.digits.sdk.vcard;
+
+import com.digits.sdk.android.BuildConfig;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, emulateSdk = 21)
+public class JapaneseUtilsTest {
+
+    @Test
+    public void testTryGetHalfWidthText() {
+        // Ideographic comma, hiragana A and katakana A.
+        assertEquals("\uFF64", JapaneseUtils.tryGetHalfWidthText('\u3001'));
+        assertEquals("\uFF71", JapaneseUtils.tryGetHalfWidthText('\u3042'));
+        assertEquals("\uFF71", JapaneseUtils.tryGetHalfWidthText('\u30A2'));
+        // Full-width forms.
+        assertEquals("!", JapaneseUtils.tryGetHalfWidthText('\uFF01'));
+        assertEquals("\"", JapaneseUtils.tryGetHalfWidthText('\uFF02'));
+        assertEquals("z", JapaneseUtils.tryGetHalfWidthText('\uFF5A'));
+        assertEquals("\uFF9F", JapaneseUtils.tryGetHalfWidthText('\uFF9F'));
+        assertEquals("\\", JapaneseUtils.tryGetHalfWidthText('\uFFE5'));
+    }
+
+    @Test
+    public void testTryGetHalfWidthText_soundMarks() {
+        // Hiragana GA and katakana PA.
+        assertEquals("\uFF76\uFF9E", JapaneseUtils.tryGetHalfWidthText('\u304C'));
+        assertEquals("\uFF8A\uFF9F", JapaneseUtils.tryGetHalfWidthText('\u30D1'));
+    }
+
+    @Test
+    public void testTryGetHalfWidthText_noHalfWidth() {
+        assertNull(JapaneseUtils.tryGetHalfWidthText('a'));
+        assertNull(JapaneseUtils.tryGetHalfWidthText('\u3000'));
+        assertNull(JapaneseUtils.tryGetHalfWidthText('\u5C71'));
+        assertNull(JapaneseUtils.tryGetHalfWidthText('\uFF00'));
+        assertNull(JapaneseUtils.tryGetHalfWidthText('\uFFE6'));
+        assertNull(JapaneseUtils.tryGetHalfWidthText('\uFFFF'));
+    }
+
+    @Test
+    public void testAppendHalfWidthText() {
+        final StringBuilder builder = new StringBuilder("x");
+
+        assertTrue(JapaneseUtils.appendHalfWidthText(builder, '\u304C'));
+        assertFalse(JapaneseUtils.appendHalfWidthText(builder, 'y'));
+
+        assertEquals("x\uFF76\uFF9E", builder.toString());
+    }
+
+    @Test
+    public void testToHalfWidthString() {
+        assertEquals("\uFF94\uFF8F\uFF80\uFF9E Taro",
+                VCardUtils.toHalfWidthString("\u3084\u307E\u3060 Taro"));
+        assertNull(VCardUtils.toHalfWidthString(""));
+    }
+}
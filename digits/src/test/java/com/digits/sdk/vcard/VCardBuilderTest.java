@@ -29,10 +29,13 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricGradleTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -152,4 +155,203 @@ public class VCardBuilderTest {
 
         assertEquals(NAME_CARD, card);
     }
+
+    @Test
+    public void testAppendNameProperties_withoutContentValues() {
+        final VCardBuilder builder = new VCardBuilder(VCardConfig.VCARD_TYPE_V30_GENERIC,
+                VCardConfig.DEFAULT_EXPORT_CHARSET);
+
+        final String card = builder.appendNameProperties("Grouse", "Spruce", "Spruce Grouse")
+                .toString();
+
+        assertEquals(NAME_CARD, card);
+    }
+
+    @Test
+    public void testAppendNameProperties_withoutContentValuesEmptyName() {
+        final VCardBuilder builder = new VCardBuilder(VCardConfig.VCARD_TYPE_V30_GENERIC,
+                VCardConfig.DEFAULT_EXPORT_CHARSET);
+
+        final String card = builder.appendNameProperties(null, "", null).toString();
+
+        assertEquals("BEGIN:VCARD\r\nVERSION:3.0\r\nN:\r\nFN:\r\nEND:VCARD\r\n", card);
+    }
+
+    @Test
+    public void testAppendPhones_withoutContentValues() {
+        final VCardBuilder builder = new VCardBuilder(VCardConfig.VCARD_TYPE_V30_GENERIC,
+                VCardConfig.DEFAULT_EXPORT_CHARSET);
+
+        final String card = builder.appendPhones(3,
+                new int[]{VCardBuilder.DEFAULT_PHONE_TYPE, Phone.TYPE_HOME, Phone.TYPE_MOBILE},
+                new String[3], new String[]{"(123) 123-4567", "(123) 123-4567", " "},
+                new boolean[3], null).toString();
+
+        assertEquals(PHONE_CARD, card);
+    }
+
+    @Test
+    public void testAppendEmails_withoutContentValues() {
+        final VCardBuilder builder = new VCardBuilder(VCardConfig.VCARD_TYPE_V30_GENERIC,
+                VCardConfig.DEFAULT_EXPORT_CHARSET);
+
+        final String card = builder.appendEmails(2, new int[]{Email.TYPE_OTHER, Email.TYPE_OTHER},
+                new String[]{"", null}, new String[]{"support@digits.com", " support@digits.com"},
+                new boolean[]{true, false}).toString();
+
+        assertEquals(EMAIL_CARD_2, card);
+    }
+
+    @Test
+    public void testClear_reusesBuffer() {
+        final VCardBuilder builder = new VCardBuilder(VCardConfig.VCARD_TYPE_V30_GENERIC,
+                VCardConfig.DEFAULT_EXPORT_CHARSET);
+        final CharSequence first = builder.appendNameProperties("Grouse", "Spruce",
+                "Spruce Grouse").toCharSequence();
+        assertEquals(NAME_CARD, first.toString());
+
+        builder.clear();
+        final CharSequence second = builder.appendPhones(1, new int[]{Phone.TYPE_HOME},
+                new String[1], new String[]{"(123) 123-4567"}, new boolean[1], null)
+                .toCharSequence();
+
+        assertSame(first, second);
+        assertEquals(PHONE_CARD, second.toString());
+    }
+
+    @Test
+    public void testAppendTo_writer() throws IOException {
+        final VCardBuilder builder = new VCardBuilder(VCardConfig.VCARD_TYPE_V30_GENERIC,
+                VCardConfig.DEFAULT_EXPORT_CHARSET);
+        final StringBuilder longName = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            longName.append("Grouse");
+        }
+        builder.appendNameProperties(longName.toString(), "Spruce", null);
+        final StringWriter writer = new StringWriter();
+
+        builder.appendTo(writer);
+
+        assertEquals(builder.toString(), writer.toString());
+    }
+
+    @Test
+    public void testAppendTo_appendable() throws IOException {
+        final VCardBuilder builder = new VCardBuilder(VCardConfig.VCARD_TYPE_V30_GENERIC,
+                VCardConfig.DEFAULT_EXPORT_CHARSET);
+        builder.appendNameProperties("Grouse", "Spruce", "Spruce Grouse");
+        final StringBuilder out = new StringBuilder("cards:");
+
+        builder.appendTo(out);
+
+        assertEquals("cards:" + NAME_CARD, out.toString());
+    }
+
+    @Test
+    public void testAppendLine_escapesCharacters() {
+        final VCardBuilder builder = new VCardBuilder(VCardConfig.VCARD_TYPE_V30_GENERIC,
+                VCardConfig.DEFAULT_EXPORT_CHARSET);
+        final VCardBuilder v21Builder = new VCardBuilder(VCardConfig.VCARD_TYPE_V21_GENERIC,
+                VCardConfig.DEFAULT_EXPORT_CHARSET);
+
+        builder.appendLine("NOTE", "a;b,c\\d<e>\nf");
+        v21Builder.appendLine("NOTE", "a;b,c\\d<e>\nf");
+
+        assertTrue(builder.toString().contains("\r\nNOTE:a\\;b\\,c\\\\d<e>\\nf\r\n"));
+        assertTrue(v21Builder.toString().contains("\r\nNOTE:a\\;b,c\\d<e>\\nf\r\n"));
+    }
+
+    @Test
+    public void testAppendLineWithCharsetAndQPDetection_printableAscii() {
+        final VCardBuilder builder = new VCardBuilder(VCardConfig.VCARD_TYPE_V21_GENERIC,
+                VCardConfig.DEFAULT_EXPORT_CHARSET);
+
+        builder.appendLineWithCharsetAndQPDetection("NOTE", null, "Spruce;Grouse");
+
+        assertTrue(builder.toString().contains("\r\nNOTE:Spruce\\;Grouse\r\n"));
+    }
+
+    @Test
+    public void testAppendLineWithCharsetAndQPDetection_lineBreak() {
+        final VCardBuilder builder = new VCardBuilder(VCardConfig.VCARD_TYPE_V21_GENERIC,
+                VCardConfig.DEFAULT_EXPORT_CHARSET);
+
+        builder.appendLineWithCharsetAndQPDetection("NOTE", null, "a\r\nb");
+
+        assertTrue(builder.toString().contains(
+                "\r\nNOTE;ENCODING=QUOTED-PRINTABLE:=61=0D=0A=62\r\n"));
+    }
+
+    @Test
+    public void testAppendLineWithCharsetAndQPDetection_nonAscii() {
+        final VCardBuilder builder = new VCardBuilder(VCardConfig.VCARD_TYPE_V21_GENERIC,
+                VCardConfig.DEFAULT_EXPORT_CHARSET);
+        final VCardBuilder v30Builder = new VCardBuilder(VCardConfig.VCARD_TYPE_V30_GENERIC,
+                VCardConfig.DEFAULT_EXPORT_CHARSET);
+
+        builder.appendLineWithCharsetAndQPDetection("NOTE", null, "Jos\u00E9;");
+        v30Builder.appendLineWithCharsetAndQPDetection("NOTE", null, "Jos\u00E9;");
+
+        assertTrue(builder.toString().contains(
+                "\r\nNOTE;CHARSET=UTF-8;ENCODING=QUOTED-PRINTABLE:=4A=6F=73=C3=A9=3B\r\n"));
+        assertTrue(v30Builder.toString().contains("\r\nNOTE;CHARSET=UTF-8:Jos\u00E9\\;\r\n"));
+    }
+
+    @Test
+    public void testQuotedPrintable_matchesLegacyEncoder() {
+        final String[] names = {"Gr\u00FCn=Spruce", "Jos\u00E9 N\u00FA\u00F1ez",
+                "\u5C71\u7530\u592A\u90CE", "\uD83D\uDE00 Party \uD83C\uDF89",
+                "lone \uD800 surrogate"};
+        final int[] types = {VCardConfig.VCARD_TYPE_V21_GENERIC,
+                VCardConfig.VCARD_TYPE_V21_JAPANESE};
+        final String[] charsets = {VCardConfig.DEFAULT_EXPORT_CHARSET, "SHIFT_JIS"};
+        for (int i = 0; i < types.length; i++) {
+            for (String name : names) {
+                assertQuotedPrintableMatchesLegacy(types[i], charsets[i], name);
+            }
+        }
+    }
+
+    @Test
+    public void testQuotedPrintable_softLineBreaks() {
+        final StringBuilder name = new StringBuilder();
+        // Two bytes each in UTF-8, so values end on and between soft line breaks.
+        for (int i = 0; i < 60; i++) {
+            name.append('\u00E9');
+            assertQuotedPrintableMatchesLegacy(VCardConfig.VCARD_TYPE_V21_GENERIC,
+                    VCardConfig.DEFAULT_EXPORT_CHARSET, name.toString());
+        }
+    }
+
+    @Test
+    public void testQuotedPrintable_noTrailingSoftLineBreak() {
+        // 23 bytes fill a line, and the legacy encoder breaks it after the last one.
+        final String name = "\u00E9\u00E9\u00E9\u00E9\u00E9\u00E9\u00E9\u00E9\u00E9\u00E9\u00E9e";
+        final VCardBuilder builder = new VCardBuilder(VCardConfig.VCARD_TYPE_V21_GENERIC,
+                VCardConfig.DEFAULT_EXPORT_CHARSET);
+        final VCardBuilder legacyBuilder = new VCardBuilder(VCardConfig.VCARD_TYPE_V21_GENERIC
+                | VCardConfig.FLAG_USE_LEGACY_QUOTED_PRINTABLE, VCardConfig.DEFAULT_EXPORT_CHARSET);
+
+        final String card = builder.appendNameProperties(name, null, null).toString();
+        final String legacyCard = legacyBuilder.appendNameProperties(name, null, null).toString();
+
+        assertTrue(legacyCard.contains("=65=\r\n;"));
+        assertTrue(card.contains("=65;"));
+        assertEquals(legacyCard.replace("=\r\n;", ";").replace("=\r\n\r\n", "\r\n"), card);
+    }
+
+    private static void assertQuotedPrintableMatchesLegacy(int vcardType, String charset,
+            String name) {
+        final VCardBuilder builder = new VCardBuilder(vcardType, charset);
+        final VCardBuilder legacyBuilder = new VCardBuilder(
+                vcardType | VCardConfig.FLAG_USE_LEGACY_QUOTED_PRINTABLE, charset);
+
+        final String card = builder.appendNameProperties(name, name, name).toString();
+        final String legacyCard = legacyBuilder.appendNameProperties(name, name, name)
+                .toString();
+
+        assertTrue(card.contains("ENCODING=QUOTED-PRINTABLE"));
+        // The legacy encoder may end values with a soft line break, the table one never does.
+        assertEquals(legacyCard.replace("=\r\n;", ";").replace("=\r\n\r\n", "\r\n"), card);
+    }
 }
@@ -45,7 +45,7 @@ public class FoundFriendsActivity extends ListActivity {
         final FriendAdapter adapter = new FriendAdapter(this);
         getListView().setAdapter(adapter);
 
-        Digits.getInstance().getContactsClient().lookupContactMatches(null, null,
+        Digits.getInstance().getContactsClient().lookupCachedContactMatches(null, null,
                 new ContactsCallback<Contacts>() {
 
                     @Override